@@ -0,0 +1,156 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx;
+
+import java.util.concurrent.Flow;
+
+import rx.internal.reactivestreams.*;
+import rx.internal.reactivestreams.flow.*;
+
+/**
+ * This type provides static factory methods for converting to and from RxJava types and the
+ * {@link java.util.concurrent.Flow} types of Java 9.
+ * <p/>
+ * The conversions are those of {@link RxReactiveStreams}: {@link #toFlowPublisher(Observable)} drives the
+ * Flow.Subscriber directly with the state machine of {@code toPublisher}, the other conversions go through the
+ * same adapters via a wrapper that only forwards the signals between the two APIs, without checking them again.
+ */
+public abstract class RxFlow {
+
+    private RxFlow() {
+    }
+
+    /**
+     * Convert a Rx {@link Observable} into a {@link Flow.Publisher}.
+     * <p/>
+     * If the observable was created by {@link #toObservable(Flow.Publisher)}, the original {@link Flow.Publisher} is returned.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @return the converted {@link Flow.Publisher}
+     * @throws NullPointerException if observable is null
+     */
+    public static <T> Flow.Publisher<T> toFlowPublisher(Observable<T> observable) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        Observable.OnSubscribe<T> onSubscribe = observable.onSubscribe;
+        if (onSubscribe instanceof FlowPublisherAsObservable) {
+            return ((FlowPublisherAsObservable<T>)onSubscribe).publisher();
+        }
+        return new ObservableAsFlowPublisher<T>(observable);
+    }
+
+    /**
+     * Convert a {@link Flow.Publisher} into a Rx {@link Observable}.
+     * <p/>
+     * If the publisher was created by {@link #toFlowPublisher(Observable)}, the original {@link Observable} is returned.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Flow.Publisher} to convert.
+     * @return the converted {@link Observable}
+     * @throws NullPointerException if publisher is null
+     */
+    public static <T> Observable<T> toObservable(Flow.Publisher<T> publisher) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (publisher instanceof ObservableAsFlowPublisher) {
+            return ((ObservableAsFlowPublisher<T>)publisher).observable();
+        }
+        return Observable.create(new FlowPublisherAsObservable<T>(publisher));
+    }
+
+    /**
+     * Convert an RxJava {@link rx.Subscriber} into a {@link Flow.Subscriber}.
+     *
+     * @param <T> the value type
+     * @param rxSubscriber an RxJava subscriber
+     * @return a Flow subscriber
+     */
+    public static <T> Flow.Subscriber<T> toFlowSubscriber(rx.Subscriber<T> rxSubscriber) {
+        return new SubscriberAsFlowSubscriber<T>(new SubscriberAdapter<T>(rxSubscriber));
+    }
+
+    /**
+     * Converts a Single into a Flow.Publisher which emits an onNext+onComplete if
+     * the source Single signals a non-null onSuccess; or onError if the source signals
+     * onError(NullPointerException) or a null value.
+     * @param <T> the value type
+     * @param single the Single instance to convert
+     * @return the Flow.Publisher instance
+     * @throws NullPointerException if single is null
+     */
+    public static <T> Flow.Publisher<T> toFlowPublisher(Single<T> single) {
+        if (single == null) {
+            throw new NullPointerException("single");
+        }
+        return new SingleAsFlowPublisher<T>(single);
+    }
+
+    /**
+     * Converts a Flow.Publisher into a Single which emits onSuccess if the
+     * Publisher signals an onNext+onComplete; or onError if the publisher signals an
+     * onError, the source Publisher is empty (NoSuchElementException) or the
+     * source Publisher signals more than one onNext (IndexOutOfBoundsException).
+     * If the Publisher was created by {@link #toFlowPublisher(Single)}, the original Single is returned.
+     * @param <T> the value type
+     * @param publisher the Flow.Publisher instance to convert
+     * @return the Single instance
+     * @throws NullPointerException if publisher is null
+     */
+    public static <T> Single<T> toSingle(Flow.Publisher<T> publisher) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (publisher instanceof SingleAsFlowPublisher) {
+            return ((SingleAsFlowPublisher<T>)publisher).single();
+        }
+        return Single.create(new PublisherAsSingle<T>(new FlowPublisherAsPublisher<T>(publisher)));
+    }
+
+    /**
+     * Converts an RxJava Completable into a Flow.Publisher that emits only onError or onComplete.
+     * @param <T> the target value type
+     * @param completable the Completable instance to convert
+     * @return the Flow.Publisher instance
+     * @throws NullPointerException if completable is null
+     */
+    public static <T> Flow.Publisher<T> toFlowPublisher(Completable completable) {
+        if (completable == null) {
+            throw new NullPointerException("completable");
+        }
+        return new CompletableAsFlowPublisher<T>(completable);
+    }
+
+    /**
+     * Converts a Flow.Publisher into a Completable by ignoring all onNext values and emitting
+     * onError or onComplete only. If the Publisher was created by {@link #toFlowPublisher(Completable)},
+     * the original Completable is returned.
+     * @param publisher the Flow.Publisher instance to convert
+     * @return the Completable instance
+     * @throws NullPointerException if publisher is null
+     */
+    public static Completable toCompletable(Flow.Publisher<?> publisher) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (publisher instanceof CompletableAsFlowPublisher) {
+            return ((CompletableAsFlowPublisher<?>)publisher).completable();
+        }
+        return Completable.create(new PublisherAsCompletable(new FlowPublisherAsPublisher<Object>(publisher)));
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import rx.Completable;
+import rx.internal.reactivestreams.CompletableAsPublisher;
+
+/**
+ * Wraps a Completable and exposes it as a Flow.Publisher by serving the Flow.Subscribers through a
+ * {@link CompletableAsPublisher}.
+ *
+ * @param <T> the value type of the publisher
+ */
+public final class CompletableAsFlowPublisher<T> implements Flow.Publisher<T> {
+
+    final CompletableAsPublisher<T> publisher;
+
+    public CompletableAsFlowPublisher(Completable completable) {
+        this.publisher = new CompletableAsPublisher<T>(completable);
+    }
+
+    /**
+     * Returns the wrapped Completable.
+     * @return the wrapped Completable
+     */
+    public Completable completable() {
+        return publisher.completable();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        publisher.subscribe(new FlowSubscriberAsSubscriber<T>(s));
+    }
+}
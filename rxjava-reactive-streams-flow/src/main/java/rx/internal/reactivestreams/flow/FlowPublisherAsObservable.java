@@ -0,0 +1,47 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import rx.internal.reactivestreams.SubscriberAdapter;
+
+/**
+ * Wraps a Flow.Publisher and exposes it as an Observable via a {@link SubscriberAdapter}.
+ *
+ * @param <T> the value type
+ */
+public final class FlowPublisherAsObservable<T> implements rx.Observable.OnSubscribe<T> {
+
+    final Flow.Publisher<T> publisher;
+
+    public FlowPublisherAsObservable(Flow.Publisher<T> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Returns the wrapped Flow.Publisher.
+     * @return the wrapped Flow.Publisher
+     */
+    public Flow.Publisher<T> publisher() {
+        return publisher;
+    }
+
+    @Override
+    public void call(rx.Subscriber<? super T> t) {
+        publisher.subscribe(new SubscriberAsFlowSubscriber<T>(new SubscriberAdapter<T>(t)));
+    }
+}
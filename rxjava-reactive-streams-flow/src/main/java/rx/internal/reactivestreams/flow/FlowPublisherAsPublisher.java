@@ -0,0 +1,39 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.*;
+
+/**
+ * Presents a Flow.Publisher as a Reactive Streams Publisher, so the Reactive Streams adapters can convert it.
+ *
+ * @param <T> the value type
+ */
+public final class FlowPublisherAsPublisher<T> implements Publisher<T> {
+
+    final Flow.Publisher<? extends T> publisher;
+
+    public FlowPublisherAsPublisher(Flow.Publisher<? extends T> publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        publisher.subscribe(new SubscriberAsFlowSubscriber<T>(s));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.*;
+
+/**
+ * Presents a Flow.Subscriber as a Reactive Streams Subscriber, and the Reactive Streams Subscription it
+ * receives as a Flow.Subscription, so the Reactive Streams adapters can serve Flow.Subscribers.
+ * <p>
+ * The signals are forwarded as they are; the adapter wrapped does the checks the specification requires.
+ *
+ * @param <T> the value type
+ */
+public final class FlowSubscriberAsSubscriber<T> implements Subscriber<T>, Flow.Subscription {
+
+    final Flow.Subscriber<? super T> actual;
+
+    Subscription s;
+
+    public FlowSubscriberAsSubscriber(Flow.Subscriber<? super T> actual) {
+        this.actual = actual;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.s = s;
+        actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        actual.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+        s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        s.cancel();
+    }
+}
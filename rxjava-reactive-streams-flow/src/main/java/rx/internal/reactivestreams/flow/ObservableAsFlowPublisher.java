@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import rx.Observable;
+import rx.RxReactiveStreams.*;
+import rx.internal.reactivestreams.*;
+
+/**
+ * Exposes an Observable as a Flow.Publisher.
+ * <p>
+ * The Flow.Subscribers are served by the state machine of {@link PublisherAdapter}, which delivers the
+ * signals to them directly instead of through a Reactive Streams Subscriber.
+ *
+ * @param <T> the value type
+ */
+public final class ObservableAsFlowPublisher<T> implements Flow.Publisher<T> {
+
+    private final Observable<T> observable;
+
+    public ObservableAsFlowPublisher(final Observable<T> observable) {
+        this.observable = observable;
+    }
+
+    /**
+     * Returns the wrapped Observable.
+     * @return the wrapped Observable
+     */
+    public Observable<T> observable() {
+        return observable;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        BridgeListener listener = BridgeHooks.listener();
+        if (listener != null) {
+            listener.onSubscribe(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        observable.subscribe(new ObservableAsFlowSubscriber<T>(s, listener));
+    }
+
+    /**
+     * Relays the Observable's signals to the Flow.Subscriber.
+     */
+    static final class ObservableAsFlowSubscriber<T> extends AbstractPublisherAdapterSubscriber<T> {
+
+        final Flow.Subscriber<? super T> actual;
+
+        public ObservableAsFlowSubscriber(Flow.Subscriber<? super T> actual, BridgeListener listener) {
+            super(listener);
+            this.actual = actual;
+        }
+
+        @Override
+        protected void deliverSubscription() {
+            actual.onSubscribe(new ObservableAsFlowSubscription(this));
+        }
+
+        @Override
+        protected void deliverNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        protected void deliverError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        protected void deliverComplete() {
+            actual.onComplete();
+        }
+    }
+
+    /**
+     * The Flow.Subscription handed to the Flow.Subscriber; rx.Subscriber's own request(long) is protected
+     * and final, so it can't be implemented by ObservableAsFlowSubscriber itself.
+     */
+    static final class ObservableAsFlowSubscription implements Flow.Subscription {
+
+        final ObservableAsFlowSubscriber<?> parent;
+
+        public ObservableAsFlowSubscription(ObservableAsFlowSubscriber<?> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            parent.requestMore(n);
+        }
+
+        @Override
+        public void cancel() {
+            parent.cancel();
+        }
+    }
+}
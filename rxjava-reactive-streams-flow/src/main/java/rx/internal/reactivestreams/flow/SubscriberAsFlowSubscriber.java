@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.*;
+
+/**
+ * Presents a Reactive Streams Subscriber as a Flow.Subscriber, and the Flow.Subscription it receives as a
+ * Reactive Streams Subscription, so the Reactive Streams adapters can subscribe to Flow.Publishers.
+ * <p>
+ * The signals are forwarded as they are; the adapter wrapped does the checks the specification requires.
+ *
+ * @param <T> the value type
+ */
+public final class SubscriberAsFlowSubscriber<T> implements Flow.Subscriber<T>, Subscription {
+
+    final Subscriber<? super T> actual;
+
+    Flow.Subscription s;
+
+    public SubscriberAsFlowSubscriber(Subscriber<? super T> actual) {
+        this.actual = actual;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        if (s == null) {
+            throw new NullPointerException("onSubscribe(null)");
+        }
+        this.s = s;
+        actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        actual.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+        s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        s.cancel();
+    }
+}
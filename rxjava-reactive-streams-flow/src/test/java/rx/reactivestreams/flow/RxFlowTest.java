@@ -0,0 +1,196 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.flow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.RxReactiveStreams.*;
+import rx.observers.TestSubscriber;
+
+public class RxFlowTest {
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toFlowPublisherNullCheck() {
+        RxFlow.toFlowPublisher((Observable<Integer>)null);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toObservableNullCheck() {
+        RxFlow.toObservable((Flow.Publisher<Integer>)null);
+    }
+
+    @Test
+    public void observableRoundTripReturnsOriginal() {
+        Observable<Integer> o = Observable.range(1, 10);
+
+        Assert.assertSame(RxFlow.toObservable(RxFlow.toFlowPublisher(o)), o);
+    }
+
+    @Test
+    public void publisherRoundTripReturnsOriginal() {
+        Flow.Publisher<Integer> p = new SubmissionPublisher<Integer>();
+
+        Assert.assertSame(RxFlow.toFlowPublisher(RxFlow.toObservable(p)), p);
+    }
+
+    @Test
+    public void singleRoundTripReturnsOriginal() {
+        Single<Integer> single = Single.just(1);
+
+        Assert.assertSame(RxFlow.toSingle(RxFlow.toFlowPublisher(single)), single);
+    }
+
+    @Test
+    public void completableRoundTripReturnsOriginal() {
+        Completable completable = Completable.complete();
+
+        Assert.assertSame(RxFlow.toCompletable(RxFlow.toFlowPublisher(completable)), completable);
+    }
+
+    @Test
+    public void submissionPublisherToObservable() throws Exception {
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>();
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        RxFlow.toObservable(p).subscribe(ts);
+
+        for (int i = 1; i <= 1000; i++) {
+            p.submit(i);
+        }
+        p.close();
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertCompleted();
+        Assert.assertEquals(ts.getOnNextEvents().size(), 1000);
+        Assert.assertEquals(ts.getOnNextEvents().get(999).intValue(), 1000);
+    }
+
+    @Test
+    public void backpressureIsRelayed() {
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(Runnable::run, 16);
+        TestSubscriber<Integer> ts = TestSubscriber.create(0L);
+
+        RxFlow.toObservable(p).subscribe(ts);
+
+        p.submit(1);
+        p.submit(2);
+        ts.assertNoValues();
+
+        ts.requestMore(1);
+        ts.assertValue(1);
+
+        ts.requestMore(1);
+        ts.assertValues(1, 2);
+    }
+
+    @Test
+    public void observableToFlowSubscriber() {
+        final List<Integer> values = new ArrayList<Integer>();
+        final List<Object> terminal = new ArrayList<Object>();
+
+        RxFlow.toFlowPublisher(Observable.range(1, 5)).subscribe(new Flow.Subscriber<Integer>() {
+            Flow.Subscription s;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                this.s = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                values.add(item);
+                s.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                terminal.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                terminal.add("done");
+            }
+        });
+
+        Assert.assertEquals(values, Arrays.asList(1, 2, 3, 4, 5));
+        Assert.assertEquals(terminal, Collections.<Object>singletonList("done"));
+    }
+
+    @Test
+    public void toSingleFailsOnMultipleValues() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        RxFlow.toSingle(RxFlow.toFlowPublisher(Observable.range(1, 2))).subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertError(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void toSingleFailsOnEmpty() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        RxFlow.toSingle(RxFlow.toFlowPublisher(Observable.<Integer>empty())).subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertError(NoSuchElementException.class);
+    }
+
+    @Test
+    public void toCompletableIgnoresValues() {
+        TestSubscriber<Object> ts = new TestSubscriber<Object>();
+
+        RxFlow.toCompletable(RxFlow.toFlowPublisher(Observable.range(1, 10))).subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void conversionsAreReportedToBridgeListener() {
+        final List<Bridge> subscribed = new ArrayList<Bridge>();
+        RxReactiveStreams.setBridgeListener(new BridgeListener() {
+            @Override
+            public void onSubscribe(Bridge bridge) {
+                subscribed.add(bridge);
+            }
+        });
+        try {
+            Flow.Publisher<Integer> p = RxFlow.toFlowPublisher(Observable.range(1, 1));
+
+            RxFlow.toSingle(p).subscribe(new TestSubscriber<Integer>());
+            RxFlow.toCompletable(p).subscribe(new TestSubscriber<Object>());
+        } finally {
+            RxReactiveStreams.setBridgeListener(null);
+        }
+
+        Assert.assertEquals(subscribed, Arrays.asList(
+                Bridge.OBSERVABLE_TO_PUBLISHER, Bridge.PUBLISHER_TO_SINGLE,
+                Bridge.OBSERVABLE_TO_PUBLISHER, Bridge.PUBLISHER_TO_COMPLETABLE));
+    }
+}
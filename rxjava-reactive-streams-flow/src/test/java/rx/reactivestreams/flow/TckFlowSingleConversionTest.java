@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.flow;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowPublisherVerification;
+import org.testng.annotations.Test;
+
+import rx.*;
+
+@Test
+public class TckFlowSingleConversionTest extends FlowPublisherVerification<Long> {
+
+    public TckFlowSingleConversionTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Flow.Publisher<Long> createFlowPublisher(long elements) {
+        return RxFlow.toFlowPublisher(Single.just(1L));
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 1L;
+    }
+
+    @Override
+    public Flow.Publisher<Long> createFailedFlowPublisher() {
+        return RxFlow.toFlowPublisher(Single.<Long>error(new IOException()));
+    }
+
+}
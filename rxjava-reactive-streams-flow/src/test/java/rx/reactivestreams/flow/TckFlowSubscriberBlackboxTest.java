@@ -0,0 +1,66 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.flow;
+
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowSubscriberBlackboxVerification;
+import org.testng.annotations.Test;
+
+import rx.RxFlow;
+
+@Test
+public class TckFlowSubscriberBlackboxTest extends FlowSubscriberBlackboxVerification<Long> {
+
+    public TckFlowSubscriberBlackboxTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Flow.Subscriber<Long> createFlowSubscriber() {
+        rx.Subscriber<Long> rxSubscriber = new rx.Subscriber<Long>() {
+
+            @Override
+            public void onStart() {
+                super.request(1);
+            }
+
+            @Override
+            public void onCompleted() {
+
+            }
+
+            @Override
+            public void onError(Throwable e) {
+
+            }
+
+            @Override
+            public void onNext(Long aLong) {
+                request(1);
+            }
+        };
+        rxSubscriber.onStart(); // Observable.subscribe() calls this automatically
+        return RxFlow.toFlowSubscriber(rxSubscriber);
+    }
+
+    @Override
+    public Long createElement(int element) {
+        return Long.valueOf(element);
+    }
+
+}
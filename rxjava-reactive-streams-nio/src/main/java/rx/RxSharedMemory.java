@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx;
+
+import java.io.*;
+
+import org.reactivestreams.Publisher;
+
+import rx.RxSocketChannel.FrameCodec;
+import rx.internal.reactivestreams.nio.*;
+import rx.internal.util.unsafe.UnsafeAccess;
+
+/**
+ * This type provides static factory methods for streaming Reactive Streams {@link Publisher}s between JVMs on the
+ * same host through a ring buffer in a shared memory-mapped file, with the demand of the receiving subscriber passed
+ * back through a control region of the same file.
+ * <p/>
+ * One side serves a publisher into a file with {@link #serve(Publisher, File, FrameCodec, int, int)}, the other side
+ * reads it with {@link #toPublisher(File, FrameCodec)}; {@link RxReactiveStreams#toPublisher(Observable)} and
+ * {@link RxReactiveStreams#toObservable(Publisher)} connect either side to Observables. The serving side never requests
+ * more than the receiving subscriber has, and never writes more than the ring holds. Both sides run on a single
+ * shared thread which polls the rings, backing off to parking for up to a millisecond while there is nothing to do,
+ * and which also signals the receiving subscriber, so subscribers should hand off expensive work, e.g. with
+ * {@code observeOn}. Put the file on a memory-backed file system such as {@code /dev/shm} to keep the pages from being
+ * written to disk. A process that dies is not detected by the other side, and the file is not deleted.
+ * <p/>
+ * The rings are accessed with {@code sun.misc.Unsafe}; the methods throw {@link UnsupportedOperationException} where
+ * it isn't available.
+ */
+public abstract class RxSharedMemory {
+
+    private RxSharedMemory() {
+    }
+
+    /**
+     * Serve a {@link Publisher} through a ring buffer of {@code capacity} bytes in a file, as records encoded by a
+     * {@link FrameCodec}.
+     * <p/>
+     * The returned {@link Completable} creates the file, or truncates it, and subscribes to the publisher when it is
+     * subscribed to. The publisher is requested no more than the reader has requested and no more than
+     * {@code prefetch} items beyond those written to the ring. Completion and errors of the publisher are written to
+     * the ring, an error with its message, and then signalled by the Completable; cancellation by the reader cancels
+     * the publisher and completes the Completable. Unsubscribing cancels the publisher and leaves the reader waiting.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to serve
+     * @param file the file to hold the ring
+     * @param codec encodes each item into at most {@code capacity / 2 - 4} bytes; an exception it throws cancels
+     *              the publisher and is served as its error
+     * @param capacity the size of the ring in bytes, a power of 2 of at least 64
+     * @param prefetch the number of items to request ahead of writing them, positive
+     * @return the {@link Completable} serving the publisher
+     * @throws NullPointerException if publisher, file or codec is null
+     * @throws IllegalArgumentException if capacity is not a power of 2 of at least 64 or prefetch is not positive
+     * @throws UnsupportedOperationException if {@code sun.misc.Unsafe} is not available
+     */
+    public static <T> Completable serve(Publisher<T> publisher, File file, FrameCodec<? super T> codec, int capacity, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+        if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity >= 64 and a power of 2 required but it was " + capacity);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        requireUnsafe();
+        return Completable.create(new RingWriter<T>(publisher, file, codec, capacity, prefetch));
+    }
+
+    /**
+     * Convert a file into a {@link Publisher} of the records written into it by
+     * {@link #serve(Publisher, File, FrameCodec, int, int)}, decoded by a {@link FrameCodec}.
+     * <p/>
+     * The file is mapped once the serving side has created it, which may happen after subscribing. The requests of
+     * the subscriber are passed on to the serving side. An error record is signalled as an {@link IOException} with
+     * the message of the remote error. Cancellation is passed on to the serving side as well. Only one subscriber is
+     * allowed.
+     *
+     * @param <T> the value type
+     * @param file the file holding the ring
+     * @param codec decodes each record; the buffer it is given is a view of the shared memory, valid only during the
+     *              call; an exception it throws is signalled to the subscriber and cancels the serving side
+     * @return the {@link Publisher} of the decoded items
+     * @throws NullPointerException if file or codec is null
+     * @throws UnsupportedOperationException if {@code sun.misc.Unsafe} is not available
+     */
+    public static <T> Publisher<T> toPublisher(File file, FrameCodec<T> codec) {
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+        requireUnsafe();
+        return new RingPublisher<T>(file, codec);
+    }
+
+    static void requireUnsafe() {
+        if (!UnsafeAccess.isUnsafeAvailable()) {
+            throw new UnsupportedOperationException("Shared memory rings require sun.misc.Unsafe");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.reactivestreams.Publisher;
+
+import rx.internal.reactivestreams.nio.*;
+
+/**
+ * This type provides static factory methods for streaming Reactive Streams {@link Publisher}s between JVMs over
+ * {@link SocketChannel}s, with the demand of the receiving subscriber mapped to TCP flow control.
+ * <p/>
+ * One side serves a publisher over a connected channel with {@link #serve(Publisher, SocketChannel, FrameCodec, int)},
+ * the other side reads the connected channel of the peer with {@link #toPublisher(SocketChannel, FrameCodec, int)}.
+ * The reading publisher reads only while its subscriber has outstanding demand; once the demand is met, the socket
+ * buffers fill up, the serving side can't write any more and stops requesting from the served publisher. Both sides
+ * do their I/O on a single shared selector thread, which also signals the reading subscriber, so subscribers should
+ * hand off expensive work, e.g. with {@code observeOn}.
+ */
+public abstract class RxSocketChannel {
+
+    private RxSocketChannel() {
+    }
+
+    /**
+     * Serve a {@link Publisher} of bytes over a connected {@link SocketChannel}, writing each buffer as it is.
+     * <p/>
+     * The returned {@link Completable} subscribes to the publisher when it is subscribed to, requests {@code prefetch}
+     * buffers upfront and then 75% of that amount whenever as many buffers have been written out, so a peer that
+     * doesn't read stops the publisher once the socket buffers are full. The buffers are not modified. Completion of the
+     * publisher shuts the output down, an error resets the connection; either is then signalled by the Completable.
+     * A failing write cancels the publisher and is signalled as well. The channel is closed once the Completable
+     * terminates or is unsubscribed.
+     *
+     * @param publisher the {@link Publisher} to serve
+     * @param channel the connected channel, switched to non-blocking mode
+     * @param prefetch the number of buffers to request upfront, positive
+     * @return the {@link Completable} serving the publisher
+     * @throws NullPointerException if publisher or channel is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     */
+    public static Completable serve(Publisher<ByteBuffer> publisher, SocketChannel channel, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return Completable.create(new ChannelWriter<ByteBuffer>(publisher, channel, null, prefetch));
+    }
+
+    /**
+     * Serve a {@link Publisher} over a connected {@link SocketChannel} as frames encoded by a {@link FrameCodec}.
+     * <p/>
+     * Each item is written as its length followed by its encoding, which {@link #toPublisher(SocketChannel, FrameCodec, int)}
+     * reads back; an error of the publisher is written as an error frame carrying its message. Requests, completion
+     * and closing behave like {@link #serve(Publisher, SocketChannel, int)}.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to serve
+     * @param channel the connected channel, switched to non-blocking mode
+     * @param codec encodes each item; an exception it throws cancels the publisher and is served as its error
+     * @param prefetch the number of items to request upfront, positive
+     * @return the {@link Completable} serving the publisher
+     * @throws NullPointerException if publisher, channel or codec is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     */
+    public static <T> Completable serve(Publisher<T> publisher, SocketChannel channel, FrameCodec<? super T> codec, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return Completable.create(new ChannelWriter<T>(publisher, channel, codec, prefetch));
+    }
+
+    /**
+     * Convert a connected {@link SocketChannel} into a {@link Publisher} of the bytes it receives, emitting each read
+     * of up to {@code bufferSize} bytes as a new buffer.
+     * <p/>
+     * The channel is read only while the subscriber has outstanding demand; the end of the stream completes the
+     * subscriber and a reset connection is signalled as an {@link IOException}. The channel is closed on termination
+     * and on cancellation. Only one subscriber is allowed.
+     *
+     * @param channel the connected channel, switched to non-blocking mode
+     * @param bufferSize the maximum number of bytes per buffer, positive
+     * @return the {@link Publisher} of the received bytes
+     * @throws NullPointerException if channel is null
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static Publisher<ByteBuffer> toPublisher(SocketChannel channel, int bufferSize) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new ChannelPublisher<ByteBuffer>(channel, null, bufferSize);
+    }
+
+    /**
+     * Convert a connected {@link SocketChannel} into a {@link Publisher} of the frames written by
+     * {@link #serve(Publisher, SocketChannel, FrameCodec, int)} on the other end, decoded by a {@link FrameCodec}.
+     * <p/>
+     * The channel is read only while the subscriber has outstanding demand. Frames are collected in a buffer of
+     * {@code bufferSize} bytes, grown for larger frames. An error frame is signalled as an {@link IOException} with
+     * the message of the remote error, the end of the stream completes the subscriber unless it ends within a frame.
+     * The channel is closed on termination and on cancellation. Only one subscriber is allowed.
+     *
+     * @param <T> the value type
+     * @param channel the connected channel, switched to non-blocking mode
+     * @param codec decodes each frame; an exception it throws is signalled to the subscriber
+     * @param bufferSize the initial size of the read buffer in bytes, positive
+     * @return the {@link Publisher} of the decoded items
+     * @throws NullPointerException if channel or codec is null
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> Publisher<T> toPublisher(SocketChannel channel, FrameCodec<T> codec, int bufferSize) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new ChannelPublisher<T>(channel, codec, bufferSize);
+    }
+
+    /**
+     * Converts items to the content of frames and back.
+     *
+     * @param <T> the value type
+     */
+    public interface FrameCodec<T> {
+
+        /**
+         * Encodes an item.
+         * @param value the item to encode
+         * @return the content of the item's frame, between its position and limit; not null
+         * @throws IOException if the item can't be encoded
+         */
+        ByteBuffer encode(T value) throws IOException;
+
+        /**
+         * Decodes the content of a frame; the buffer is reused once this method returns.
+         * @param frame the content of the frame, between its position and limit
+         * @return the item, not null
+         * @throws IOException if the frame can't be decoded
+         */
+        T decode(ByteBuffer frame) throws IOException;
+    }
+}
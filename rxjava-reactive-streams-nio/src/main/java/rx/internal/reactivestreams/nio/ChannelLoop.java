@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import rx.plugins.RxJavaHooks;
+
+/**
+ * A daemon thread running a {@link Selector} shared by all the channels served or read.
+ * <p>
+ * Channels are registered with a {@link Runnable} attached, which the loop runs whenever the channel
+ * is ready for the operations of interest. Registration, interest changes and all other work on the
+ * channels happen on the loop thread, as tasks submitted through {@link #execute(Runnable)}.
+ */
+public final class ChannelLoop implements Runnable {
+
+    static final class Holder {
+        static final ChannelLoop INSTANCE = new ChannelLoop();
+    }
+
+    final Selector selector;
+
+    final Queue<Runnable> tasks;
+
+    final Thread thread;
+
+    private ChannelLoop() {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to open a Selector", ex);
+        }
+        this.tasks = new ConcurrentLinkedQueue<Runnable>();
+        this.thread = new Thread(this, "RxSocketChannelLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the shared loop, starting it on first use.
+     * @return the shared loop
+     */
+    public static ChannelLoop instance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Runs the task on the loop thread.
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Registers a channel with the loop's Selector; call on the loop thread only.
+     * @param channel the non-blocking channel to register
+     * @param ready run on the loop thread whenever the channel is ready for the operations of interest
+     * @return the key of the registration, with no operations of interest yet
+     * @throws ClosedChannelException if the channel is closed
+     */
+    public SelectionKey register(SelectableChannel channel, Runnable ready) throws ClosedChannelException {
+        return channel.register(selector, 0, ready);
+    }
+
+    @Override
+    public void run() {
+        for (;;) {
+            runTasks();
+            try {
+                selector.select();
+            } catch (Throwable ex) {
+                RxJavaHooks.onError(ex);
+                continue;
+            }
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                if (key.isValid()) {
+                    run((Runnable)key.attachment());
+                }
+            }
+        }
+    }
+
+    void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            run(task);
+        }
+    }
+
+    static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            // the tasks signal their own failures, so this is a bug that must not stop the loop
+            RxJavaHooks.onError(ex);
+        }
+    }
+}
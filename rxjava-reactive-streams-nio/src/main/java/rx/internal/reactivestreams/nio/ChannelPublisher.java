@@ -0,0 +1,332 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.RxSocketChannel.FrameCodec;
+import rx.exceptions.Exceptions;
+import rx.internal.reactivestreams.*;
+
+/**
+ * Exposes the items a {@link ChannelWriter} serves over a SocketChannel as a Publisher that reads from
+ * the channel only while its Subscriber has outstanding demand.
+ * <p>
+ * Once the demand is met the channel is no longer selected for reading, so the socket buffers fill up
+ * and TCP flow control stops the writing side, which in turn stops requesting from its Publisher.
+ * Without a codec each read of up to {@code bufferSize} bytes is emitted as a ByteBuffer of its own;
+ * with one, the bytes are collected in a buffer of {@code bufferSize} bytes, grown for larger frames,
+ * and each complete frame is decoded and emitted. The end of the stream, noticed only while there is
+ * demand, completes the Subscriber; an error frame signals an IOException with the remote error's
+ * message. Reads and signals happen on the {@link ChannelLoop}; the channel is closed on termination
+ * and cancellation. Only one Subscriber is allowed.
+ *
+ * @param <T> the value type
+ */
+public final class ChannelPublisher<T> implements Publisher<T> {
+
+    final SocketChannel channel;
+
+    final FrameCodec<T> codec;
+
+    final int bufferSize;
+
+    final AtomicBoolean once;
+
+    public ChannelPublisher(SocketChannel channel, FrameCodec<T> codec, int bufferSize) {
+        this.channel = channel;
+        this.codec = codec;
+        this.bufferSize = bufferSize;
+        this.once = new AtomicBoolean();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (!once.compareAndSet(false, true)) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onError(new IllegalStateException("Only one Subscriber allowed"));
+            return;
+        }
+        ReadSubscription<T> parent = new ReadSubscription<T>(s, channel, codec, bufferSize);
+        s.onSubscribe(parent);
+        parent.start();
+    }
+
+    static final class ReadSubscription<T> implements Subscription, Runnable {
+
+        final Subscriber<? super T> actual;
+
+        final SocketChannel channel;
+
+        final FrameCodec<T> codec;
+
+        final int bufferSize;
+
+        final ChannelLoop loop;
+
+        final Runnable ready;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<ReadSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(ReadSubscription.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<ReadSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(ReadSubscription.class, "wip");
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        /** The number of items emitted, accessed on the loop only. */
+        long emitted;
+
+        /** The bytes read but not decoded yet when framing, in read mode; accessed on the loop only. */
+        ByteBuffer buffer;
+
+        /** Accessed on the loop only. */
+        SelectionKey key;
+
+        public ReadSubscription(Subscriber<? super T> actual, SocketChannel channel, FrameCodec<T> codec, int bufferSize) {
+            this.actual = actual;
+            this.channel = channel;
+            this.codec = codec;
+            this.bufferSize = bufferSize;
+            this.loop = ChannelLoop.instance();
+            // held until start() so nothing is signalled before onSubscribe returns
+            WIP.lazySet(this, 1);
+            this.ready = new Runnable() {
+                @Override
+                public void run() {
+                    schedule();
+                }
+            };
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                schedule();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                schedule();
+            }
+        }
+
+        void start() {
+            if (WIP.decrementAndGet(this) != 0) {
+                loop.execute(this);
+            }
+        }
+
+        void schedule() {
+            if (WIP.getAndIncrement(this) == 0) {
+                loop.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                if (!read()) {
+                    return;
+                }
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Emits what is buffered and reads while there is demand.
+         * @return false once terminated
+         */
+        boolean read() {
+            final Subscriber<? super T> a = actual;
+            long e = emitted;
+            try {
+                if (key == null && !cancelled) {
+                    channel.configureBlocking(false);
+                    key = loop.register(channel, ready);
+                    if (codec != null) {
+                        buffer = ByteBuffer.allocate(bufferSize);
+                        buffer.flip();
+                    }
+                }
+                for (;;) {
+                    if (cancelled) {
+                        close();
+                        Throwable ex = invalidRequest;
+                        if (ex != null) {
+                            invalidRequest = null;
+                            a.onError(ex);
+                        }
+                        return false;
+                    }
+                    long r = requested;
+                    if (codec != null && e != r) {
+                        T v = decode();
+                        if (v != null) {
+                            a.onNext(v);
+                            e++;
+                            continue;
+                        }
+                    }
+                    if (e == r) {
+                        // stop reading so the peer is held back by TCP flow control
+                        key.interestOps(0);
+                        emitted = e;
+                        return true;
+                    }
+                    ByteBuffer b;
+                    if (codec != null) {
+                        b = buffer;
+                        b.compact();
+                    } else {
+                        b = ByteBuffer.allocate(bufferSize);
+                    }
+                    int n = channel.read(b);
+                    b.flip();
+                    if (n < 0) {
+                        cancelled = true;
+                        close();
+                        if (codec != null && b.hasRemaining()) {
+                            a.onError(new EOFException("The stream ended within a frame"));
+                        } else {
+                            a.onComplete();
+                        }
+                        return false;
+                    }
+                    if (n == 0) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        emitted = e;
+                        return true;
+                    }
+                    if (codec == null) {
+                        a.onNext(ReadSubscription.<T>asItem(b));
+                        e++;
+                    }
+                }
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                cancelled = true;
+                close();
+                a.onError(ex);
+                return false;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> T asItem(ByteBuffer b) {
+            return (T)b;
+        }
+
+        /**
+         * Decodes the frame at the start of the buffer, growing the buffer if the frame doesn't fit.
+         * @return the item, or null if the frame isn't complete yet
+         * @throws IOException if the frame is invalid, is an error frame or can't be decoded
+         */
+        T decode() throws IOException {
+            ByteBuffer b = buffer;
+            int p = b.position();
+            int length = frameLength(b, p);
+            if (length < 0) {
+                return null;
+            }
+            ByteBuffer frame = b.duplicate();
+            frame.limit(p + 4 + length);
+            frame.position(p + 4);
+            b.position(p + 4 + length);
+            T v = codec.decode(frame.slice());
+            if (v == null) {
+                throw new NullPointerException("The codec returned null");
+            }
+            return v;
+        }
+
+        /**
+         * Returns the length of the complete frame at the position, throws the remote error of a complete
+         * error frame, otherwise makes room for the frame and returns -1.
+         */
+        int frameLength(ByteBuffer b, int p) throws IOException {
+            int available = b.limit() - p;
+            if (available < 4) {
+                return -1;
+            }
+            int length = b.getInt(p);
+            int start = p + 4;
+            int needed = 4 + length;
+            if (length == ChannelWriter.ERROR_FRAME) {
+                if (available < 8) {
+                    return -1;
+                }
+                int messageLength = b.getInt(start);
+                needed = 8 + messageLength;
+                if (available >= needed) {
+                    byte[] message = new byte[messageLength];
+                    ByteBuffer m = b.duplicate();
+                    m.position(start + 4);
+                    m.get(message);
+                    throw new IOException("The remote Publisher failed: " + new String(message, "UTF-8"));
+                }
+            } else if (length < 0) {
+                throw new IOException("Invalid frame length: " + length);
+            } else if (available >= needed) {
+                return length;
+            }
+            if (needed > b.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(needed);
+                grown.put(b);
+                grown.flip();
+                buffer = grown;
+            }
+            return -1;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // the stream is over either way
+            }
+        }
+    }
+}
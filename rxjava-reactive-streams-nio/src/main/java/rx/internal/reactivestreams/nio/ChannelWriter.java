@@ -0,0 +1,347 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.reactivestreams.*;
+
+import rx.Completable;
+import rx.CompletableSubscriber;
+import rx.RxSocketChannel.FrameCodec;
+import rx.exceptions.Exceptions;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+
+/**
+ * Serves a Publisher over a SocketChannel, as a Completable that subscribes to the Publisher when it
+ * is subscribed to.
+ * <p>
+ * The Publisher is requested {@code prefetch} items upfront and replenished with 75% of that amount
+ * whenever as many items have been written out completely, so a peer that doesn't read, once the socket
+ * buffers are full, stops the Publisher. Without a codec each ByteBuffer is written as it is; with one,
+ * each item is written as a frame: its length as an int followed by its encoding. The writes happen on
+ * the {@link ChannelLoop}, waiting for the channel to become writable whenever it takes no more bytes.
+ * Completion shuts the output down; an error is written as an error frame when framing, or resets the
+ * connection otherwise. The channel is closed once the Completable terminates or is unsubscribed.
+ *
+ * @param <T> the value type
+ */
+public final class ChannelWriter<T> implements Completable.OnSubscribe {
+
+    /** The length of an error frame, which is followed by the UTF-8 message as a regular frame. */
+    public static final int ERROR_FRAME = -1;
+
+    final Publisher<T> publisher;
+
+    final SocketChannel channel;
+
+    final FrameCodec<? super T> codec;
+
+    final int prefetch;
+
+    public ChannelWriter(Publisher<T> publisher, SocketChannel channel, FrameCodec<? super T> codec, int prefetch) {
+        this.publisher = publisher;
+        this.channel = channel;
+        this.codec = codec;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void call(CompletableSubscriber t) {
+        WriteSubscriber<T> parent = new WriteSubscriber<T>(t, channel, codec, prefetch);
+        t.onSubscribe(parent);
+        publisher.subscribe(parent);
+    }
+
+    /**
+     * Returns a frame header.
+     * @param length the length of the frame's content, or {@link #ERROR_FRAME}
+     * @return the header, ready to be written
+     */
+    static ByteBuffer header(int length) {
+        ByteBuffer b = ByteBuffer.allocate(4);
+        b.putInt(length);
+        b.flip();
+        return b;
+    }
+
+    static final class WriteSubscriber<T> implements Subscriber<T>, rx.Subscription, Runnable {
+
+        final CompletableSubscriber actual;
+
+        final SocketChannel channel;
+
+        final FrameCodec<? super T> codec;
+
+        final int prefetch;
+
+        final int limit;
+
+        final ChannelLoop loop;
+
+        /** The buffers of each item to write; one larger than prefetch to take an error frame. */
+        final Queue<ByteBuffer[]> queue;
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<WriteSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(WriteSubscriber.class, "wip");
+
+        volatile Subscription upstream;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean unsubscribed;
+
+        /** The item being written, accessed on the loop only. */
+        ByteBuffer[] current;
+
+        /** Items written since the last replenish, accessed on the loop only. */
+        int written;
+
+        /** Accessed on the loop only. */
+        SelectionKey key;
+
+        final Runnable ready;
+
+        public WriteSubscriber(CompletableSubscriber actual, SocketChannel channel, FrameCodec<? super T> codec, int prefetch) {
+            this.actual = actual;
+            this.channel = channel;
+            this.codec = codec;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.loop = ChannelLoop.instance();
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<ByteBuffer[]>(prefetch + 1);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<ByteBuffer[]>(prefetch + 1);
+            }
+            this.ready = new Runnable() {
+                @Override
+                public void run() {
+                    schedule();
+                }
+            };
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (s == null) {
+                throw new NullPointerException("onSubscribe(null)");
+            }
+            if (upstream != null) {
+                s.cancel();
+                return;
+            }
+            upstream = s;
+            if (unsubscribed) {
+                s.cancel();
+                return;
+            }
+            s.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (t == null) {
+                throw new NullPointerException("onNext(null)");
+            }
+            if (done) {
+                return;
+            }
+            ByteBuffer[] buffers;
+            if (codec == null) {
+                buffers = new ByteBuffer[] { ((ByteBuffer)t).duplicate() };
+            } else {
+                ByteBuffer payload;
+                try {
+                    payload = codec.encode(t);
+                    if (payload == null) {
+                        throw new NullPointerException("The codec returned null");
+                    }
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    upstream.cancel();
+                    onError(ex);
+                    return;
+                }
+                buffers = new ByteBuffer[] { header(payload.remaining()), payload };
+            }
+            queue.offer(buffers);
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (t == null) {
+                throw new NullPointerException("onError(null)");
+            }
+            if (done) {
+                return;
+            }
+            if (codec != null) {
+                byte[] message;
+                try {
+                    message = String.valueOf(t).getBytes("UTF-8");
+                } catch (UnsupportedEncodingException ex) {
+                    throw new AssertionError(ex);
+                }
+                queue.offer(new ByteBuffer[] { header(ERROR_FRAME), header(message.length), ByteBuffer.wrap(message) });
+            }
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (!unsubscribed) {
+                unsubscribed = true;
+                Subscription s = upstream;
+                if (s != null) {
+                    s.cancel();
+                }
+                schedule();
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+
+        void schedule() {
+            if (WIP.getAndIncrement(this) == 0) {
+                loop.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                if (!write()) {
+                    return;
+                }
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Writes as much as the channel takes.
+         * @return false once terminated
+         */
+        boolean write() {
+            for (;;) {
+                if (unsubscribed) {
+                    queue.clear();
+                    close();
+                    return false;
+                }
+                ByteBuffer[] b = current;
+                if (b == null) {
+                    boolean d = done;
+                    b = queue.poll();
+                    if (b == null) {
+                        if (d) {
+                            finish();
+                            return false;
+                        }
+                        return true;
+                    }
+                    current = b;
+                }
+                try {
+                    if (key == null) {
+                        channel.configureBlocking(false);
+                        key = loop.register(channel, ready);
+                    }
+                    channel.write(b);
+                } catch (IOException ex) {
+                    fail(ex);
+                    return false;
+                }
+                if (b[b.length - 1].hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return true;
+                }
+                current = null;
+                if (key.interestOps() != 0) {
+                    key.interestOps(0);
+                }
+                if (++written == limit) {
+                    written = 0;
+                    upstream.request(limit);
+                }
+            }
+        }
+
+        void finish() {
+            unsubscribed = true;
+            Throwable ex = error;
+            try {
+                if (ex != null && codec == null) {
+                    // nothing to frame the error with, reset the connection instead of ending it normally
+                    channel.socket().setSoLinger(true, 0);
+                } else {
+                    channel.socket().shutdownOutput();
+                }
+            } catch (IOException e) {
+                close();
+                actual.onError(e);
+                return;
+            }
+            close();
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onCompleted();
+            }
+        }
+
+        void fail(IOException ex) {
+            unsubscribed = true;
+            upstream.cancel();
+            queue.clear();
+            close();
+            actual.onError(ex);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // the stream is over either way
+            }
+        }
+    }
+}
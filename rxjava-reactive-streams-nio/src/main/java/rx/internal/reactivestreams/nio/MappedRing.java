@@ -0,0 +1,272 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+import rx.internal.util.unsafe.UnsafeAccess;
+
+/**
+ * A single-producer single-consumer ring of records in a memory-mapped file, shared between processes.
+ * <p>
+ * The file starts with a control region, each field on a cache line of its own: the capacity, the
+ * positions up to which the writer has written and the reader has read, the cumulative number of
+ * items the reader has requested, and whether it has cancelled. The ring of {@code capacity} bytes
+ * follows. Each record is its length as an int followed by its content, padded to a multiple of 8
+ * bytes; negative lengths mark the end of the stream, an error followed by its message, or padding
+ * up to the end of the ring when a record doesn't fit before it. The positions only ever grow, the
+ * writer publishes its position after the records and the reader its position after having consumed
+ * them, so a writer never overwrites what hasn't been read. The control fields are accessed with the
+ * ordered and volatile operations of {@code sun.misc.Unsafe}, which also order the accesses of the
+ * other process to the shared memory.
+ */
+public final class MappedRing {
+
+    /** Marks a file whose control region is initialized. */
+    static final int MAGIC = 0x52784d52;
+
+    static final int MAGIC_OFFSET = 0;
+
+    static final int CAPACITY_OFFSET = 4;
+
+    static final int WRITE_OFFSET = 64;
+
+    static final int READ_OFFSET = 128;
+
+    static final int REQUESTED_OFFSET = 192;
+
+    static final int CANCELLED_OFFSET = 256;
+
+    /** The size of the control region preceding the ring. */
+    static final int HEADER_SIZE = 320;
+
+    /** The length of the record ending the stream. */
+    public static final int COMPLETE_RECORD = -2;
+
+    /** The length of an error record, which is followed by the length and UTF-8 bytes of the message. */
+    public static final int ERROR_RECORD = ChannelWriter.ERROR_FRAME;
+
+    /** The length of the padding record that skips to the start of the ring. */
+    public static final int PADDING_RECORD = -3;
+
+    static final long ADDRESS = UnsafeAccess.addressOf(Buffer.class, "address");
+
+    final MappedByteBuffer buffer;
+
+    final long address;
+
+    final int capacity;
+
+    final int mask;
+
+    /** A view of the whole file for the records, its position and limit are free to change. */
+    final ByteBuffer records;
+
+    MappedRing(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.address = UnsafeAccess.UNSAFE.getLong(buffer, ADDRESS);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.records = buffer.duplicate();
+    }
+
+    /**
+     * Creates or truncates the file and maps a new, empty ring into it.
+     * @param file the file to hold the ring
+     * @param capacity the size of the ring in bytes, a power of 2
+     * @return the ring
+     * @throws IOException if the file can't be created or mapped
+     */
+    public static MappedRing create(File file, int capacity) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        MappedByteBuffer b;
+        try {
+            raf.setLength(0);
+            raf.setLength(HEADER_SIZE + capacity);
+            b = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+        } finally {
+            raf.close();
+        }
+        MappedRing ring = new MappedRing(b, capacity);
+        UnsafeAccess.UNSAFE.putInt(ring.address + CAPACITY_OFFSET, capacity);
+        UnsafeAccess.UNSAFE.putOrderedInt(null, ring.address + MAGIC_OFFSET, MAGIC);
+        return ring;
+    }
+
+    /**
+     * Maps the ring a writer has created in the file.
+     * @param file the file holding the ring
+     * @return the ring, or null if the file doesn't exist or isn't initialized yet
+     * @throws IOException if the file can't be mapped or doesn't hold a ring
+     */
+    public static MappedRing open(File file) throws IOException {
+        if (file.length() < HEADER_SIZE) {
+            return null;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        MappedByteBuffer b;
+        try {
+            long length = raf.length();
+            b = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            long address = UnsafeAccess.UNSAFE.getLong(b, ADDRESS);
+            if (UnsafeAccess.UNSAFE.getIntVolatile(null, address + MAGIC_OFFSET) != MAGIC) {
+                return null;
+            }
+            int capacity = UnsafeAccess.UNSAFE.getInt(address + CAPACITY_OFFSET);
+            if (capacity <= 0 || Integer.bitCount(capacity) != 1 || HEADER_SIZE + capacity != length) {
+                throw new IOException("Not a shared memory ring: " + file);
+            }
+            return new MappedRing(b, capacity);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the size of a record with the given content size, header and padding included.
+     * @param contentSize the size of the content in bytes
+     * @return the size of the record in bytes
+     */
+    public static int recordSize(int contentSize) {
+        return (4 + contentSize + 7) & ~7;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the size of the largest record, half the capacity, so that a record needing padding
+     * before it always fits once the reader has caught up, without overwriting the padding.
+     * @return the maximum size of a record in bytes
+     */
+    public int maxRecordSize() {
+        return capacity >> 1;
+    }
+
+    public long writePosition() {
+        return UnsafeAccess.UNSAFE.getLongVolatile(null, address + WRITE_OFFSET);
+    }
+
+    public void writePosition(long position) {
+        UnsafeAccess.UNSAFE.putOrderedLong(null, address + WRITE_OFFSET, position);
+    }
+
+    public long readPosition() {
+        return UnsafeAccess.UNSAFE.getLongVolatile(null, address + READ_OFFSET);
+    }
+
+    public void readPosition(long position) {
+        UnsafeAccess.UNSAFE.putOrderedLong(null, address + READ_OFFSET, position);
+    }
+
+    public long requested() {
+        return UnsafeAccess.UNSAFE.getLongVolatile(null, address + REQUESTED_OFFSET);
+    }
+
+    public void requested(long requested) {
+        UnsafeAccess.UNSAFE.putOrderedLong(null, address + REQUESTED_OFFSET, requested);
+    }
+
+    public boolean isCancelled() {
+        return UnsafeAccess.UNSAFE.getIntVolatile(null, address + CANCELLED_OFFSET) != 0;
+    }
+
+    public void cancel() {
+        UnsafeAccess.UNSAFE.putIntVolatile(null, address + CANCELLED_OFFSET, 1);
+    }
+
+    /**
+     * Writes a record at a position of the writer, without publishing it.
+     * @param position the position to write at, where the free space is at least the record's size
+     *                 plus, if it doesn't fit before the end of the ring, the padding up to there;
+     *                 see {@link #spaceNeeded(long, int)}
+     * @param length the length of the record, or a negative marker
+     * @param content the content of the record, written completely, may be null
+     * @return the position after the record
+     */
+    public long put(long position, int length, ByteBuffer content) {
+        int index = (int)position & mask;
+        int size = recordSize(content != null ? content.remaining() : 0);
+        ByteBuffer b = records;
+        b.clear();
+        if (index + size > capacity) {
+            b.putInt(HEADER_SIZE + index, PADDING_RECORD);
+            position += capacity - index;
+            index = 0;
+        }
+        b.position(HEADER_SIZE + index);
+        b.putInt(length);
+        if (content != null) {
+            b.put(content);
+        }
+        return position + size;
+    }
+
+    /**
+     * Returns the space a record needs at a position, including the padding it may need before it.
+     * @param position the position to write at
+     * @param contentSize the size of the content in bytes
+     * @return the space needed in bytes
+     */
+    public int spaceNeeded(long position, int contentSize) {
+        int index = (int)position & mask;
+        int size = recordSize(contentSize);
+        if (index + size > capacity) {
+            return size + capacity - index;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the length of the record at a position of the reader.
+     * @param position the position of the record, where the record has been published
+     * @return the length, or a negative marker
+     */
+    public int length(long position) {
+        ByteBuffer b = records;
+        b.clear();
+        return b.getInt(HEADER_SIZE + ((int)position & mask));
+    }
+
+    /**
+     * Returns the content of the record at a position of the reader as a view of the shared memory,
+     * valid until the reader moves past the record.
+     * @param position the position of the record
+     * @param offset the offset of the content after the length
+     * @param length the length of the content
+     * @return the content between its position and limit
+     */
+    public ByteBuffer content(long position, int offset, int length) {
+        int start = HEADER_SIZE + ((int)position & mask) + 4 + offset;
+        ByteBuffer b = records;
+        b.clear();
+        b.position(start);
+        b.limit(start + length);
+        return b.slice();
+    }
+
+    /**
+     * Returns the position after the padding at a position of the reader.
+     * @param position the position of the padding record
+     * @return the position at the start of the ring
+     */
+    public long skip(long position) {
+        return position + capacity - ((int)position & mask);
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.RxSocketChannel.FrameCodec;
+import rx.exceptions.Exceptions;
+import rx.internal.reactivestreams.*;
+
+/**
+ * Exposes the items a {@link RingWriter} serves through a {@link MappedRing} in a file as a Publisher.
+ * <p>
+ * The file is mapped once a writer has created the ring in it, which may happen after subscribing. The
+ * Subscriber's requests are passed on to the writer through the ring, and the records are decoded and
+ * emitted while there is demand, on the {@link SharedMemoryLoop}; the space of the records is handed
+ * back to the writer after each batch, or once a quarter of the ring has been read. The completion and
+ * error records terminate the Subscriber regardless of demand, an error as an IOException with the
+ * remote error's message. Cancellation is passed on to the writer. Only one Subscriber is allowed.
+ *
+ * @param <T> the value type
+ */
+public final class RingPublisher<T> implements Publisher<T> {
+
+    final File file;
+
+    final FrameCodec<T> codec;
+
+    final AtomicBoolean once;
+
+    public RingPublisher(File file, FrameCodec<T> codec) {
+        this.file = file;
+        this.codec = codec;
+        this.once = new AtomicBoolean();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (!once.compareAndSet(false, true)) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onError(new IllegalStateException("Only one Subscriber allowed"));
+            return;
+        }
+        ReadSubscription<T> parent = new ReadSubscription<T>(s, file, codec);
+        s.onSubscribe(parent);
+        // added only now so nothing is signalled before onSubscribe returns
+        parent.loop.add(parent);
+    }
+
+    static final class ReadSubscription<T> implements Subscription, SharedMemoryLoop.Poller {
+
+        final Subscriber<? super T> actual;
+
+        final File file;
+
+        final FrameCodec<T> codec;
+
+        final SharedMemoryLoop loop;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<ReadSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(ReadSubscription.class, "requested");
+
+        volatile boolean cancelled;
+
+        volatile Throwable invalidRequest;
+
+        /** Accessed on the loop only. */
+        MappedRing ring;
+
+        /** The number of items emitted, accessed on the loop only. */
+        long emitted;
+
+        /** The demand last passed on to the writer, accessed on the loop only. */
+        long passedOn;
+
+        /** The position of the next record, accessed on the loop only. */
+        long position;
+
+        public ReadSubscription(Subscriber<? super T> actual, File file, FrameCodec<T> codec) {
+            this.actual = actual;
+            this.file = file;
+            this.codec = codec;
+            this.loop = SharedMemoryLoop.instance();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                loop.wakeup();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            loop.wakeup();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            loop.wakeup();
+        }
+
+        @Override
+        public int poll() {
+            final Subscriber<? super T> a = actual;
+            MappedRing q = ring;
+            try {
+                if (cancelled) {
+                    return terminateCancelled();
+                }
+                if (q == null) {
+                    q = MappedRing.open(file);
+                    if (q == null) {
+                        return 0;
+                    }
+                    ring = q;
+                }
+                long r = requested;
+                if (passedOn != r) {
+                    passedOn = r;
+                    q.requested(r);
+                }
+                long e = emitted;
+                long p = position;
+                long released = p;
+                int quarter = q.capacity() >> 2;
+                long w = q.writePosition();
+                int work = 0;
+                while (p != w) {
+                    if (cancelled) {
+                        return terminateCancelled();
+                    }
+                    int length = q.length(p);
+                    if (length == MappedRing.PADDING_RECORD) {
+                        p = q.skip(p);
+                        continue;
+                    }
+                    if (length == MappedRing.COMPLETE_RECORD) {
+                        q.readPosition(p + MappedRing.recordSize(0));
+                        cancelled = true;
+                        a.onComplete();
+                        return -1;
+                    }
+                    if (length == MappedRing.ERROR_RECORD) {
+                        ByteBuffer m = q.content(p, 0, 4);
+                        byte[] message = new byte[m.getInt()];
+                        q.content(p, 4, message.length).get(message);
+                        q.readPosition(p + MappedRing.recordSize(4 + message.length));
+                        cancelled = true;
+                        a.onError(new IOException("The remote Publisher failed: " + new String(message, "UTF-8")));
+                        return -1;
+                    }
+                    if (length < 0) {
+                        throw new IOException("Invalid record length: " + length);
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    T v = codec.decode(q.content(p, 0, length));
+                    if (v == null) {
+                        throw new NullPointerException("The codec returned null");
+                    }
+                    p += MappedRing.recordSize(length);
+                    if (p - released >= quarter) {
+                        released = p;
+                        q.readPosition(p);
+                    }
+                    a.onNext(v);
+                    e++;
+                    work++;
+                }
+                if (p != position) {
+                    position = p;
+                    emitted = e;
+                    q.readPosition(p);
+                    work++;
+                }
+                return work;
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                if (q != null) {
+                    q.cancel();
+                }
+                cancelled = true;
+                a.onError(ex);
+                return -1;
+            }
+        }
+
+        int terminateCancelled() {
+            MappedRing q = ring;
+            if (q != null) {
+                q.cancel();
+            }
+            Throwable ex = invalidRequest;
+            if (ex != null) {
+                invalidRequest = null;
+                actual.onError(ex);
+            }
+            return -1;
+        }
+    }
+}
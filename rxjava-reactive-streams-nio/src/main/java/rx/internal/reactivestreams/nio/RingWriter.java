@@ -0,0 +1,312 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+import org.reactivestreams.*;
+
+import rx.Completable;
+import rx.CompletableSubscriber;
+import rx.RxSocketChannel.FrameCodec;
+import rx.exceptions.Exceptions;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Serves a Publisher through a {@link MappedRing} in a file, as a Completable that creates the ring and
+ * subscribes to the Publisher when it is subscribed to.
+ * <p>
+ * The Publisher is requested no more than the reader has requested through the ring, and no more than
+ * {@code prefetch} items beyond those written to the ring, in amounts of at least 75% of {@code prefetch}
+ * unless the reader's demand is smaller. Each item is encoded as it arrives and written as a record on
+ * the {@link SharedMemoryLoop} once the ring has room for it. Completion and errors are written as
+ * records as well and then signalled by the Completable; cancellation by the reader cancels the
+ * Publisher and completes the Completable.
+ *
+ * @param <T> the value type
+ */
+public final class RingWriter<T> implements Completable.OnSubscribe {
+
+    final Publisher<T> publisher;
+
+    final File file;
+
+    final FrameCodec<? super T> codec;
+
+    final int capacity;
+
+    final int prefetch;
+
+    public RingWriter(Publisher<T> publisher, File file, FrameCodec<? super T> codec, int capacity, int prefetch) {
+        this.publisher = publisher;
+        this.file = file;
+        this.codec = codec;
+        this.capacity = capacity;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void call(CompletableSubscriber t) {
+        MappedRing ring;
+        try {
+            ring = MappedRing.create(file, capacity);
+        } catch (IOException ex) {
+            t.onSubscribe(Subscriptions.unsubscribed());
+            t.onError(ex);
+            return;
+        }
+        WriteSubscriber<T> parent = new WriteSubscriber<T>(t, ring, codec, prefetch);
+        t.onSubscribe(parent);
+        publisher.subscribe(parent);
+        parent.loop.add(parent);
+    }
+
+    static final class WriteSubscriber<T> implements Subscriber<T>, rx.Subscription, SharedMemoryLoop.Poller {
+
+        final CompletableSubscriber actual;
+
+        final MappedRing ring;
+
+        final FrameCodec<? super T> codec;
+
+        final int prefetch;
+
+        final int limit;
+
+        final SharedMemoryLoop loop;
+
+        /** The encoded items not written to the ring yet. */
+        final Queue<ByteBuffer> queue;
+
+        volatile Subscription upstream;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean unsubscribed;
+
+        /** The number of items requested from upstream, accessed on the loop only. */
+        long requested;
+
+        /** The number of items written to the ring, accessed on the loop only. */
+        long written;
+
+        /** The position up to which the ring has been written, accessed on the loop only. */
+        long position;
+
+        /** The last read position of the reader, accessed on the loop only. */
+        long readPosition;
+
+        public WriteSubscriber(CompletableSubscriber actual, MappedRing ring, FrameCodec<? super T> codec, int prefetch) {
+            this.actual = actual;
+            this.ring = ring;
+            this.codec = codec;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.loop = SharedMemoryLoop.instance();
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<ByteBuffer>(prefetch);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<ByteBuffer>(prefetch);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (s == null) {
+                throw new NullPointerException("onSubscribe(null)");
+            }
+            if (upstream != null) {
+                s.cancel();
+                return;
+            }
+            upstream = s;
+            if (unsubscribed) {
+                s.cancel();
+                return;
+            }
+            loop.wakeup();
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (t == null) {
+                throw new NullPointerException("onNext(null)");
+            }
+            if (done) {
+                return;
+            }
+            ByteBuffer payload;
+            try {
+                payload = codec.encode(t);
+                if (payload == null) {
+                    throw new NullPointerException("The codec returned null");
+                }
+                int size = MappedRing.recordSize(payload.remaining());
+                if (size > ring.maxRecordSize()) {
+                    throw new IOException("A record of " + size + " bytes exceeds the maximum of " + ring.maxRecordSize() + " bytes");
+                }
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                upstream.cancel();
+                onError(ex);
+                return;
+            }
+            queue.offer(payload);
+            loop.wakeup();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (t == null) {
+                throw new NullPointerException("onError(null)");
+            }
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            loop.wakeup();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            loop.wakeup();
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (!unsubscribed) {
+                unsubscribed = true;
+                Subscription s = upstream;
+                if (s != null) {
+                    s.cancel();
+                }
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+
+        @Override
+        public int poll() {
+            if (unsubscribed) {
+                queue.clear();
+                return -1;
+            }
+            if (ring.isCancelled()) {
+                unsubscribe();
+                queue.clear();
+                actual.onCompleted();
+                return -1;
+            }
+            int work = 0;
+            long p = position;
+            for (;;) {
+                boolean d = done;
+                ByteBuffer b = queue.peek();
+                if (b == null) {
+                    if (d) {
+                        if (writeTerminal(p)) {
+                            return -1;
+                        }
+                    }
+                    break;
+                }
+                if (!hasRoom(p, b.remaining())) {
+                    break;
+                }
+                queue.poll();
+                p = ring.put(p, b.remaining(), b);
+                written++;
+                work++;
+            }
+            if (work != 0) {
+                position = p;
+                ring.writePosition(p);
+            }
+            Subscription s = upstream;
+            if (s != null) {
+                long r = requested;
+                long target = Math.min(ring.requested(), written + prefetch);
+                long n = target - r;
+                if (n > 0L && (n >= limit || target != written + prefetch)) {
+                    requested = target;
+                    work++;
+                    s.request(n);
+                }
+            }
+            return work;
+        }
+
+        boolean hasRoom(long p, int contentSize) {
+            int needed = ring.spaceNeeded(p, contentSize);
+            if (p + needed - readPosition > ring.capacity()) {
+                readPosition = ring.readPosition();
+                return p + needed - readPosition <= ring.capacity();
+            }
+            return true;
+        }
+
+        /**
+         * Writes the completion or the error record and signals the Completable.
+         * @return false if the ring has no room for the record yet
+         */
+        boolean writeTerminal(long p) {
+            Throwable ex = error;
+            if (ex == null) {
+                if (!hasRoom(p, 0)) {
+                    return false;
+                }
+                p = ring.put(p, MappedRing.COMPLETE_RECORD, null);
+            } else {
+                byte[] message;
+                try {
+                    message = String.valueOf(ex).getBytes("UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    throw new AssertionError(e);
+                }
+                int max = ring.maxRecordSize() - 8;
+                int length = Math.min(message.length, max);
+                if (!hasRoom(p, 4 + length)) {
+                    return false;
+                }
+                ByteBuffer content = ByteBuffer.allocate(4 + length);
+                content.putInt(length);
+                content.put(message, 0, length);
+                content.flip();
+                p = ring.put(p, MappedRing.ERROR_RECORD, content);
+            }
+            position = p;
+            ring.writePosition(p);
+            unsubscribed = true;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onCompleted();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.nio;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import rx.plugins.RxJavaHooks;
+
+/**
+ * A daemon thread polling the {@link MappedRing}s served or read.
+ * <p>
+ * A process can't be woken up by another one through a memory-mapped file, so each {@link Poller} is
+ * polled in turn for as long as any of them makes progress. Once none does, the loop backs off, first
+ * yielding and then parking for increasing periods of at most a millisecond, and returns to polling
+ * immediately when woken up by a local signal through {@link #wakeup()}.
+ */
+public final class SharedMemoryLoop implements Runnable {
+
+    /** Work done on the loop thread. */
+    public interface Poller {
+        /**
+         * Does the work available.
+         * @return the amount of work done, 0 if there was none, negative to be removed from the loop
+         */
+        int poll();
+    }
+
+    static final class Holder {
+        static final SharedMemoryLoop INSTANCE = new SharedMemoryLoop();
+    }
+
+    /** The number of idle rounds spent yielding before parking. */
+    static final int YIELDS = 100;
+
+    static final long MIN_PARK_NANOS = 1000L;
+
+    static final long MAX_PARK_NANOS = 1000L * 1000L;
+
+    final Queue<Poller> added;
+
+    final Thread thread;
+
+    volatile boolean parked;
+
+    /** Accessed on the loop only. */
+    final List<Poller> pollers;
+
+    private SharedMemoryLoop() {
+        this.added = new ConcurrentLinkedQueue<Poller>();
+        this.pollers = new ArrayList<Poller>();
+        this.thread = new Thread(this, "RxSharedMemoryLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the shared loop, starting it on first use.
+     * @return the shared loop
+     */
+    public static SharedMemoryLoop instance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Polls the poller on the loop thread until it asks to be removed.
+     * @param poller the poller to add
+     */
+    public void add(Poller poller) {
+        added.offer(poller);
+        wakeup();
+    }
+
+    /**
+     * Returns the loop to polling right away if it is parked.
+     */
+    public void wakeup() {
+        if (parked) {
+            parked = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<Poller> list = pollers;
+        int idle = 0;
+        for (;;) {
+            Poller p;
+            while ((p = added.poll()) != null) {
+                list.add(p);
+            }
+            int work = 0;
+            for (int i = 0; i < list.size(); i++) {
+                int n;
+                try {
+                    n = list.get(i).poll();
+                } catch (Throwable ex) {
+                    // the pollers signal their own failures, so this is a bug that must not stop the loop
+                    RxJavaHooks.onError(ex);
+                    n = -1;
+                }
+                if (n < 0) {
+                    list.remove(i--);
+                } else {
+                    work += n;
+                }
+            }
+            if (work != 0) {
+                idle = 0;
+            } else if (list.isEmpty()) {
+                parked = true;
+                if (added.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            } else if (++idle <= YIELDS) {
+                Thread.yield();
+            } else {
+                parked = true;
+                LockSupport.parkNanos(this, Math.min(MIN_PARK_NANOS << Math.min(idle - YIELDS, 10), MAX_PARK_NANOS));
+                if (parked) {
+                    parked = false;
+                } else {
+                    idle = 0;
+                }
+            }
+        }
+    }
+}
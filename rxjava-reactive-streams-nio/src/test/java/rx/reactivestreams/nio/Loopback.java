@@ -0,0 +1,98 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.nio;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+
+import rx.RxSocketChannel.FrameCodec;
+
+/**
+ * Connected pairs of SocketChannels over the loopback interface and codecs for the tests.
+ */
+public final class Loopback {
+
+    public static final FrameCodec<Integer> INT_CODEC = new FrameCodec<Integer>() {
+        @Override
+        public ByteBuffer encode(Integer value) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            b.putInt(value);
+            b.flip();
+            return b;
+        }
+
+        @Override
+        public Integer decode(ByteBuffer frame) {
+            return frame.getInt();
+        }
+    };
+
+    public static final FrameCodec<Long> LONG_CODEC = new FrameCodec<Long>() {
+        @Override
+        public ByteBuffer encode(Long value) {
+            ByteBuffer b = ByteBuffer.allocate(8);
+            b.putLong(value);
+            b.flip();
+            return b;
+        }
+
+        @Override
+        public Long decode(ByteBuffer frame) {
+            return frame.getLong();
+        }
+    };
+
+    /** The serving end of the connection. */
+    public final SocketChannel server;
+
+    /** The reading end of the connection. */
+    public final SocketChannel client;
+
+    private Loopback(SocketChannel server, SocketChannel client) {
+        this.server = server;
+        this.client = client;
+    }
+
+    /**
+     * Connects a pair of channels.
+     * @param bufferSize the socket buffer sizes to request, 0 for the defaults
+     * @return the connected pair
+     * @throws IOException if connecting fails
+     */
+    public static Loopback connect(int bufferSize) throws IOException {
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        try {
+            if (bufferSize != 0) {
+                ssc.socket().setReceiveBufferSize(bufferSize);
+            }
+            ssc.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+            SocketChannel client = SocketChannel.open();
+            if (bufferSize != 0) {
+                client.socket().setReceiveBufferSize(bufferSize);
+            }
+            client.connect(ssc.socket().getLocalSocketAddress());
+            SocketChannel server = ssc.accept();
+            if (bufferSize != 0) {
+                server.socket().setSendBufferSize(bufferSize);
+            }
+            return new Loopback(server, client);
+        } finally {
+            ssc.close();
+        }
+    }
+}
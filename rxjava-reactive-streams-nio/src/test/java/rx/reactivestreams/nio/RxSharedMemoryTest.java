@@ -0,0 +1,349 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.Observable;
+import rx.RxSocketChannel.FrameCodec;
+import rx.functions.*;
+import rx.observers.TestSubscriber;
+import rx.reactivestreams.nio.RxSocketChannelTest.Collector;
+
+public class RxSharedMemoryTest {
+
+    static final FrameCodec<byte[]> BYTES_CODEC = new FrameCodec<byte[]>() {
+        @Override
+        public ByteBuffer encode(byte[] value) {
+            return ByteBuffer.wrap(value);
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer frame) {
+            byte[] b = new byte[frame.remaining()];
+            frame.get(b);
+            return b;
+        }
+    };
+
+    static File ringFile() throws IOException {
+        File f = File.createTempFile("rxring", ".dat");
+        f.deleteOnExit();
+        return f;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void servePublisherNullCheck() throws IOException {
+        RxSharedMemory.serve(null, ringFile(), Loopback.INT_CODEC, 1024, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void serveFileNullCheck() {
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(1)), null, Loopback.INT_CODEC, 1024, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void serveCodecNullCheck() throws IOException {
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(1)), ringFile(), null, 1024, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void serveCapacityCheck() throws IOException {
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(1)), ringFile(), Loopback.INT_CODEC, 1000, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void serveMinimumCapacityCheck() throws IOException {
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(1)), ringFile(), Loopback.INT_CODEC, 32, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void servePrefetchCheck() throws IOException {
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(1)), ringFile(), Loopback.INT_CODEC, 1024, 0);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toPublisherFileNullCheck() {
+        RxSharedMemory.toPublisher(null, Loopback.INT_CODEC);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toPublisherCodecNullCheck() throws IOException {
+        RxSharedMemory.toPublisher(ringFile(), null);
+    }
+
+    @Test
+    public void itemsInOrderAcrossManyWraps() throws Exception {
+        File f = ringFile();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, 100000)), f, Loopback.INT_CODEC, 1024, 128)
+                .subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        Assert.assertEquals(c.received, Observable.range(0, 100000).toList().toBlocking().single());
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertCompleted();
+    }
+
+    @Test
+    public void readerSubscribesBeforeTheFileExists() throws Exception {
+        File f = ringFile();
+        Assert.assertTrue(f.delete());
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        Thread.sleep(50);
+
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, 100)), f, Loopback.INT_CODEC, 256, 16)
+                .subscribe();
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        Assert.assertEquals(c.received.size(), 100);
+    }
+
+    @Test
+    public void recordsOfVaryingSizesArePaddedAtTheEnd() throws Exception {
+        File f = ringFile();
+        Random random = new Random(3);
+        final List<byte[]> items = new ArrayList<byte[]>();
+        for (int i = 0; i < 5000; i++) {
+            byte[] b = new byte[random.nextInt(300)];
+            random.nextBytes(b);
+            items.add(b);
+        }
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.from(items)), f, BYTES_CODEC, 1024, 8).subscribe();
+
+        Collector<byte[]> c = new Collector<byte[]>();
+        RxSharedMemory.toPublisher(f, BYTES_CODEC).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        Assert.assertEquals(c.received.size(), items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Assert.assertTrue(Arrays.equals(c.received.get(i), items.get(i)), "Item " + i);
+        }
+    }
+
+    @Test
+    public void demandIsPassedOnToTheServedPublisher() throws Exception {
+        File f = ringFile();
+        final AtomicLong requested = new AtomicLong();
+        Observable<Integer> source = Observable.range(0, 1000).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requested.addAndGet(n);
+            }
+        });
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(source), f, Loopback.INT_CODEC, 1 << 16, 128).subscribe();
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        Thread.sleep(50);
+        Assert.assertEquals(requested.get(), 0L);
+
+        c.subscription.request(10);
+        c.awaitCount(10);
+        Thread.sleep(50);
+        Assert.assertEquals(c.received.size(), 10);
+        Assert.assertEquals(requested.get(), 10L);
+
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+        Assert.assertEquals(c.received.size(), 1000);
+    }
+
+    @Test
+    public void completesWithoutDemand() throws Exception {
+        File f = ringFile();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.<Integer>empty()), f, Loopback.INT_CODEC, 64, 1)
+                .subscribe();
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+    }
+
+    @Test
+    public void errorIsServedAsRecord() throws Exception {
+        File f = ringFile();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, 5)
+                .concatWith(Observable.<Integer>error(new IllegalStateException("Forced failure")))),
+                f, Loopback.INT_CODEC, 256, 16).subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertEquals(c.received, Arrays.asList(0, 1, 2, 3, 4));
+        Assert.assertTrue(c.error instanceof IOException);
+        Assert.assertTrue(c.error.getMessage().contains("Forced failure"), c.error.getMessage());
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void recordLargerThanTheRingFails() throws Exception {
+        File f = ringFile();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.just(new byte[10], new byte[100])), f, BYTES_CODEC, 64, 16)
+                .subscribe(served);
+
+        Collector<byte[]> c = new Collector<byte[]>();
+        RxSharedMemory.toPublisher(f, BYTES_CODEC).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertEquals(c.received.size(), 1);
+        Assert.assertTrue(c.error instanceof IOException);
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertError(IOException.class);
+    }
+
+    @Test
+    public void cancelStopsTheServedPublisher() throws Exception {
+        File f = ringFile();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, Integer.MAX_VALUE).doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                cancelled.set(true);
+            }
+        })), f, Loopback.INT_CODEC, 256, 16).subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, Loopback.INT_CODEC).subscribe(c);
+        c.subscription.request(5);
+        c.awaitCount(5);
+
+        c.subscription.cancel();
+
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertCompleted();
+        Assert.assertTrue(cancelled.get());
+        Assert.assertFalse(c.complete);
+        Assert.assertNull(c.error);
+    }
+
+    @Test
+    public void decodeFailureCancelsTheServer() throws Exception {
+        File f = ringFile();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, Integer.MAX_VALUE)), f, Loopback.INT_CODEC, 256, 16)
+                .subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSharedMemory.toPublisher(f, new FrameCodec<Integer>() {
+            @Override
+            public ByteBuffer encode(Integer value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer frame) throws IOException {
+                int v = frame.getInt();
+                if (v == 3) {
+                    throw new IOException("Forced failure");
+                }
+                return v;
+            }
+        }).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertEquals(c.received, Arrays.asList(0, 1, 2));
+        Assert.assertEquals(c.error.getMessage(), "Forced failure");
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertCompleted();
+    }
+
+    @Test
+    public void onlyOneSubscriber() throws Exception {
+        Publisher<Integer> p = RxSharedMemory.toPublisher(ringFile(), Loopback.INT_CODEC);
+        p.subscribe(new Collector<Integer>());
+
+        Collector<Integer> c = new Collector<Integer>();
+        p.subscribe(c);
+
+        Assert.assertTrue(c.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void observableToObservable() throws Exception {
+        File f = ringFile();
+        RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(1, 1000)), f, Loopback.INT_CODEC, 256, 64)
+                .subscribe();
+
+        int sum = RxReactiveStreams.toObservable(RxSharedMemory.toPublisher(f, Loopback.INT_CODEC))
+                .reduce(0, new Func2<Integer, Integer, Integer>() {
+                    @Override
+                    public Integer call(Integer a, Integer b) {
+                        return a + b;
+                    }
+                }).toBlocking().single();
+
+        Assert.assertEquals(sum, 500500);
+    }
+
+    @Test
+    public void acrossProcesses() throws Exception {
+        File f = ringFile();
+        Assert.assertTrue(f.delete());
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                RingServer.class.getName(), f.getPath(), "100000").redirectErrorStream(true).start();
+        try {
+            long count = RxReactiveStreams.toObservable(RxSharedMemory.toPublisher(f, Loopback.INT_CODEC))
+                    .toBlocking().last();
+
+            Assert.assertEquals(count, 99999L);
+            Assert.assertEquals(server.waitFor(), 0);
+        } finally {
+            server.destroy();
+        }
+    }
+
+    /**
+     * Serves a range of integers from another process.
+     */
+    public static final class RingServer {
+        public static void main(String[] args) {
+            RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, Integer.parseInt(args[1]))),
+                    new File(args[0]), Loopback.INT_CODEC, 4096, 256).await();
+        }
+    }
+}
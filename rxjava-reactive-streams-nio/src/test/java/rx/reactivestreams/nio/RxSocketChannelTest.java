@@ -0,0 +1,386 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.Observable;
+import rx.RxSocketChannel.FrameCodec;
+import rx.functions.*;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+public class RxSocketChannelTest {
+
+    /**
+     * Subscribes to the publisher, requesting as told, and collects its signals.
+     */
+    static final class Collector<T> implements Subscriber<T> {
+
+        // a CopyOnWriteArrayList would copy the whole list for every item received
+        final List<T> received = Collections.synchronizedList(new ArrayList<T>());
+
+        final CountDownLatch terminated = new CountDownLatch(1);
+
+        volatile Subscription subscription;
+
+        volatile Throwable error;
+
+        volatile boolean complete;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(T t) {
+            received.add(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+            terminated.countDown();
+        }
+
+        void await() throws InterruptedException {
+            await(5);
+        }
+
+        void await(int seconds) throws InterruptedException {
+            Assert.assertTrue(terminated.await(seconds, TimeUnit.SECONDS), "Timed out with " + received.size() + " items");
+        }
+
+        void awaitCount(int n) throws InterruptedException {
+            for (int i = 0; i < 500 && received.size() < n; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(received.size(), n);
+        }
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void servePublisherNullCheck() throws IOException {
+        RxSocketChannel.serve(null, Loopback.connect(0).server, Loopback.INT_CODEC, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void serveChannelNullCheck() {
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.just(1)), null, Loopback.INT_CODEC, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void serveCodecNullCheck() throws IOException {
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.just(1)), Loopback.connect(0).server, null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void servePrefetchCheck() throws IOException {
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.just(1)), Loopback.connect(0).server, Loopback.INT_CODEC, 0);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toPublisherCodecNullCheck() throws IOException {
+        RxSocketChannel.toPublisher(Loopback.connect(0).client, (FrameCodec<Integer>)null, 1024);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void toPublisherBufferSizeCheck() throws IOException {
+        RxSocketChannel.toPublisher(Loopback.connect(0).client, 0);
+    }
+
+    @Test
+    public void framedItemsInOrder() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(0, 100000)), lb.server, Loopback.INT_CODEC, 128)
+                .subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSocketChannel.toPublisher(lb.client, Loopback.INT_CODEC, 256).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        Assert.assertEquals(c.received, Observable.range(0, 100000).toList().toBlocking().single());
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertCompleted();
+        Assert.assertFalse(lb.client.isOpen());
+        Assert.assertFalse(lb.server.isOpen());
+    }
+
+    @Test
+    public void framesLargerThanTheBuffer() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        FrameCodec<byte[]> codec = new FrameCodec<byte[]>() {
+            @Override
+            public ByteBuffer encode(byte[] value) {
+                return ByteBuffer.wrap(value);
+            }
+
+            @Override
+            public byte[] decode(ByteBuffer frame) {
+                byte[] b = new byte[frame.remaining()];
+                frame.get(b);
+                return b;
+            }
+        };
+        byte[] big = new byte[100000];
+        new Random(1).nextBytes(big);
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.just(new byte[3], big, new byte[0])), lb.server, codec, 4)
+                .subscribe();
+
+        Collector<byte[]> c = new Collector<byte[]>();
+        RxSocketChannel.toPublisher(lb.client, codec, 16).subscribe(c);
+        c.subscription.request(4);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        Assert.assertEquals(c.received.size(), 3);
+        Assert.assertEquals(c.received.get(0).length, 3);
+        Assert.assertTrue(Arrays.equals(c.received.get(1), big));
+        Assert.assertEquals(c.received.get(2).length, 0);
+    }
+
+    @Test
+    public void rawBytesInOrder() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        final byte[] data = new byte[1000000];
+        new Random(2).nextBytes(data);
+        Observable<ByteBuffer> chunks = Observable.range(0, 1000).map(new Func1<Integer, ByteBuffer>() {
+            @Override
+            public ByteBuffer call(Integer i) {
+                return ByteBuffer.wrap(data, i * 1000, 1000);
+            }
+        });
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(chunks), lb.server, 16).subscribe();
+
+        Collector<ByteBuffer> c = new Collector<ByteBuffer>();
+        RxSocketChannel.toPublisher(lb.client, 4096).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertTrue(c.complete);
+        ByteBuffer all = ByteBuffer.allocate(data.length);
+        for (ByteBuffer b : c.received) {
+            Assert.assertTrue(b.remaining() <= 4096);
+            all.put(b);
+        }
+        Assert.assertTrue(Arrays.equals(all.array(), data));
+    }
+
+    @Test
+    public void demandIsBoundedByTcpFlowControl() throws Exception {
+        Loopback lb = Loopback.connect(16 * 1024);
+        final AtomicLong requested = new AtomicLong();
+        Observable<byte[]> source = Observable.range(0, 20000).map(new Func1<Integer, byte[]>() {
+            @Override
+            public byte[] call(Integer i) {
+                return new byte[1024];
+            }
+        }).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requested.addAndGet(n);
+            }
+        });
+        FrameCodec<byte[]> codec = new FrameCodec<byte[]>() {
+            @Override
+            public ByteBuffer encode(byte[] value) {
+                return ByteBuffer.wrap(value);
+            }
+
+            @Override
+            public byte[] decode(ByteBuffer frame) {
+                return new byte[frame.remaining()];
+            }
+        };
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(source), lb.server, codec, 16).subscribe();
+
+        Collector<byte[]> c = new Collector<byte[]>();
+        RxSocketChannel.toPublisher(lb.client, codec, 4096).subscribe(c);
+        c.subscription.request(10);
+        c.awaitCount(10);
+        Thread.sleep(200);
+
+        // the socket buffers hold a few hundred frames at most, far from the 20000 available
+        Assert.assertEquals(c.received.size(), 10);
+        Assert.assertTrue(requested.get() < 5000, "Requested " + requested.get());
+
+        c.subscription.request(Long.MAX_VALUE);
+        c.await(30);
+        Assert.assertEquals(c.received.size(), 20000);
+    }
+
+    @Test
+    public void errorIsServedAsErrorFrame() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(0, 5)
+                .concatWith(Observable.<Integer>error(new IllegalStateException("Forced failure")))),
+                lb.server, Loopback.INT_CODEC, 16).subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSocketChannel.toPublisher(lb.client, Loopback.INT_CODEC, 1024).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertEquals(c.received, Arrays.asList(0, 1, 2, 3, 4));
+        Assert.assertTrue(c.error instanceof IOException);
+        Assert.assertTrue(c.error.getMessage().contains("Forced failure"), c.error.getMessage());
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void rawErrorResetsTheConnection() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.just(ByteBuffer.allocate(10))
+                .concatWith(Observable.<ByteBuffer>error(new IllegalStateException("Forced failure")))), lb.server, 16)
+                .subscribe(new TestSubscriber<Object>());
+        Thread.sleep(100);
+
+        Collector<ByteBuffer> c = new Collector<ByteBuffer>();
+        RxSocketChannel.toPublisher(lb.client, 1024).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertTrue(c.error instanceof IOException, String.valueOf(c.error));
+    }
+
+    @Test
+    public void cancelClosesTheChannelAndStopsTheServer() throws Exception {
+        Loopback lb = Loopback.connect(16 * 1024);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(0, Integer.MAX_VALUE).doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                cancelled.set(true);
+            }
+        })), lb.server, Loopback.INT_CODEC, 16).subscribe(served);
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSocketChannel.toPublisher(lb.client, Loopback.INT_CODEC, 1024).subscribe(c);
+        c.subscription.request(5);
+        c.awaitCount(5);
+
+        c.subscription.cancel();
+
+        Thread.sleep(100);
+        Assert.assertFalse(lb.client.isOpen());
+        Assert.assertFalse(c.complete);
+        Assert.assertNull(c.error);
+
+        // the server finds out when writing once the peer is gone
+        served.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        served.assertError(IOException.class);
+        Assert.assertTrue(cancelled.get());
+    }
+
+    @Test
+    public void unsubscribingTheServerCancelsThePublisher() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        PublishSubject<Integer> ps = PublishSubject.create();
+        TestSubscriber<Object> served = new TestSubscriber<Object>();
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(ps), lb.server, Loopback.INT_CODEC, 16).subscribe(served);
+        Assert.assertTrue(ps.hasObservers());
+
+        served.unsubscribe();
+
+        Assert.assertFalse(ps.hasObservers());
+        for (int i = 0; i < 100 && lb.server.isOpen(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(lb.server.isOpen());
+    }
+
+    @Test
+    public void decodeFailureIsSignalled() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(0, 10)), lb.server, Loopback.INT_CODEC, 16)
+                .subscribe(new TestSubscriber<Object>());
+
+        Collector<Integer> c = new Collector<Integer>();
+        RxSocketChannel.toPublisher(lb.client, new FrameCodec<Integer>() {
+            @Override
+            public ByteBuffer encode(Integer value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer frame) throws IOException {
+                int v = frame.getInt();
+                if (v == 3) {
+                    throw new IOException("Forced failure");
+                }
+                return v;
+            }
+        }, 1024).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        c.await();
+
+        Assert.assertEquals(c.received, Arrays.asList(0, 1, 2));
+        Assert.assertEquals(c.error.getMessage(), "Forced failure");
+        Assert.assertFalse(lb.client.isOpen());
+    }
+
+    @Test
+    public void onlyOneSubscriber() throws Exception {
+        Publisher<Integer> p = RxSocketChannel.toPublisher(Loopback.connect(0).client, Loopback.INT_CODEC, 1024);
+        p.subscribe(new Collector<Integer>());
+
+        Collector<Integer> c = new Collector<Integer>();
+        p.subscribe(c);
+
+        Assert.assertTrue(c.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void consumedAsObservable() throws Exception {
+        Loopback lb = Loopback.connect(0);
+        RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(1, 1000)), lb.server, Loopback.INT_CODEC, 64)
+                .subscribe();
+
+        int sum = RxReactiveStreams.toObservable(RxSocketChannel.toPublisher(lb.client, Loopback.INT_CODEC, 1024))
+                .reduce(0, new Func2<Integer, Integer, Integer>() {
+                    @Override
+                    public Integer call(Integer a, Integer b) {
+                        return a + b;
+                    }
+                }).toBlocking().single();
+
+        Assert.assertEquals(sum, 500500);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.nio;
+
+import java.io.*;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.functions.Func1;
+
+@Test
+public class TckSharedMemoryPublisherTest extends PublisherVerification<Long> {
+
+    public TckSharedMemoryPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        try {
+            File f = File.createTempFile("rxring", ".dat");
+            f.deleteOnExit();
+            RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.range(0, (int)elements)
+                    .map(new Func1<Integer, Long>() {
+                        @Override
+                        public Long call(Integer v) {
+                            return (long)v;
+                        }
+                    })), f, Loopback.LONG_CODEC, 256, 16).subscribe();
+            return RxSharedMemory.toPublisher(f, Loopback.LONG_CODEC);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 1024L;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        try {
+            File f = File.createTempFile("rxring", ".dat");
+            f.deleteOnExit();
+            RxSharedMemory.serve(RxReactiveStreams.toPublisher(Observable.<Long>error(new RuntimeException("Forced failure"))),
+                    f, Loopback.LONG_CODEC, 256, 16).subscribe();
+            return RxSharedMemory.toPublisher(f, Loopback.LONG_CODEC);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.nio;
+
+import java.io.IOException;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+
+@Test
+public class TckSocketChannelPublisherTest extends PublisherVerification<Long> {
+
+    public TckSocketChannelPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        try {
+            Loopback lb = Loopback.connect(0);
+            RxSocketChannel.serve(RxReactiveStreams.toPublisher(Observable.range(0, (int)elements)
+                    .map(new rx.functions.Func1<Integer, Long>() {
+                        @Override
+                        public Long call(Integer v) {
+                            return (long)v;
+                        }
+                    })), lb.server, Loopback.LONG_CODEC, 16).subscribe();
+            return RxSocketChannel.toPublisher(lb.client, Loopback.LONG_CODEC, 64);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 1024L;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        // Null because the channel is only read on request,
+        // so a failure is not signalled to a Subscriber that doesn't request
+        return null;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toBatchedPublisher(Observable, int, long, TimeUnit, Scheduler)} against
+ * {@link RxReactiveStreams#toPublisher(Observable)}, both consumed one request unit at a time.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=BatchedPublisherPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class BatchedPublisherPerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    @Param({ "16", "256" })
+    public int maxSize;
+
+    Publisher<Integer> elements;
+
+    Publisher<List<Integer>> batches;
+
+    @Setup
+    public void setup() {
+        Observable<Integer> range = Observable.range(1, count);
+        elements = RxReactiveStreams.toPublisher(range);
+        batches = RxReactiveStreams.toBatchedPublisher(range, maxSize, 1, TimeUnit.SECONDS, Schedulers.computation());
+    }
+
+    @Benchmark
+    public void elements(Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, 1L);
+        elements.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void batches(Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, 1L);
+        batches.subscribe(s);
+        s.await();
+    }
+}
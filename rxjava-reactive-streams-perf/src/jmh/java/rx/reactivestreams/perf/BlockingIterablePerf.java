@@ -0,0 +1,80 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.RxReactiveStreams;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toBlockingIterable(Publisher, int)} against going through
+ * {@code toObservable(publisher).toBlocking().toIterable()}.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=BlockingIterablePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class BlockingIterablePerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    Publisher<Integer> range;
+
+    Publisher<Integer> rangeAsync;
+
+    @Setup
+    public void setup() {
+        range = new PerfRangePublisher(1, count, null);
+        rangeAsync = new PerfRangePublisher(1, count, Schedulers.computation());
+    }
+
+    void consume(Iterable<Integer> iterable, Blackhole bh) {
+        for (Integer v : iterable) {
+            bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public void iterable(Blackhole bh) {
+        consume(RxReactiveStreams.toBlockingIterable(range, 128), bh);
+    }
+
+    @Benchmark
+    public void toBlocking(Blackhole bh) {
+        consume(RxReactiveStreams.toObservable(range).toBlocking().toIterable(), bh);
+    }
+
+    @Benchmark
+    public void iterableAsync(Blackhole bh) {
+        consume(RxReactiveStreams.toBlockingIterable(rangeAsync, 128), bh);
+    }
+
+    @Benchmark
+    public void toBlockingAsync(Blackhole bh) {
+        consume(RxReactiveStreams.toObservable(rangeAsync).toBlocking().toIterable(), bh);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark the {@link Completable} conversions in both directions.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=CompletablePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class CompletablePerf {
+
+    /** The number of items the Publisher emits before completing, all of which the Completable ignores. */
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    Publisher<Object> toPublisher;
+
+    Publisher<Object> toPublisherAsync;
+
+    Completable toCompletable;
+
+    Completable toCompletableAsync;
+
+    Completable roundTrip;
+
+    @Setup
+    public void setup() {
+        toPublisher = RxReactiveStreams.toPublisher(Completable.complete());
+        toPublisherAsync = RxReactiveStreams.toPublisher(Completable.complete().subscribeOn(Schedulers.computation()));
+        toCompletable = RxReactiveStreams.toCompletable(new PerfRangePublisher(1, count, null));
+        toCompletableAsync = RxReactiveStreams.toCompletable(new PerfRangePublisher(1, count, Schedulers.computation()));
+        roundTrip = RxReactiveStreams.toCompletable(RxReactiveStreams.toPublisher(Completable.complete()));
+    }
+
+    void run(Publisher<Object> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        p.subscribe(s);
+        s.await();
+    }
+
+    void run(Completable completable, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, Long.MAX_VALUE);
+        completable.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void toPublisher(Blackhole bh) throws InterruptedException {
+        run(toPublisher, bh);
+    }
+
+    @Benchmark
+    public void toPublisherAsync(Blackhole bh) throws InterruptedException {
+        run(toPublisherAsync, bh);
+    }
+
+    @Benchmark
+    public void toCompletable(Blackhole bh) throws InterruptedException {
+        run(toCompletable, bh);
+    }
+
+    @Benchmark
+    public void toCompletableAsync(Blackhole bh) throws InterruptedException {
+        run(toCompletableAsync, bh);
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole bh) throws InterruptedException {
+        run(roundTrip, bh);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toObservableFlattened(Publisher)} against
+ * {@code toObservable(publisher, 4).concatMapIterable(...)} over a Publisher of lists.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=FlattenedObservablePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class FlattenedObservablePerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    @Param({ "16", "1024" })
+    public int chunkSize;
+
+    /** The request amount of the consumer; Long.MAX_VALUE means unbounded. */
+    @Param({ "128", "9223372036854775807" })
+    public long batch;
+
+    Observable<Integer> flattened;
+
+    Observable<Integer> concatMapIterable;
+
+    @Setup
+    public void setup() {
+        List<List<Integer>> chunks = new ArrayList<List<Integer>>();
+        for (int i = 0; i < count; i += chunkSize) {
+            List<Integer> chunk = new ArrayList<Integer>(chunkSize);
+            for (int j = i; j < Math.min(i + chunkSize, count); j++) {
+                chunk.add(j);
+            }
+            chunks.add(chunk);
+        }
+        Publisher<List<Integer>> p = RxReactiveStreams.toPublisher(Observable.from(chunks));
+
+        flattened = RxReactiveStreams.toObservableFlattened(p);
+        concatMapIterable = RxReactiveStreams.toObservable(p, 4).concatMapIterable(new Func1<List<Integer>, Iterable<Integer>>() {
+            @Override
+            public Iterable<Integer> call(List<Integer> v) {
+                return v;
+            }
+        });
+    }
+
+    void run(Observable<Integer> o, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, batch);
+        o.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void flattened(Blackhole bh) throws InterruptedException {
+        run(flattened, bh);
+    }
+
+    @Benchmark
+    public void concatMapIterable(Blackhole bh) throws InterruptedException {
+        run(concatMapIterable, bh);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.reactivestreams.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.RxReactiveStreams.Sequenced;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark a CPU-heavy transformation spread over {@link RxReactiveStreams#toParallelPublishers(Observable, int, Scheduler, int)}
+ * and rejoined by {@link RxReactiveStreams#mergeOrdered(List, int)} against running it on a single thread.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=ParallelRailsPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class ParallelRailsPerf {
+
+    @Param({ "10000" })
+    public int count;
+
+    /** The Blackhole.consumeCPU tokens spent per item. */
+    @Param({ "100", "1000" })
+    public int work;
+
+    @Param({ "2", "4" })
+    public int rails;
+
+    Observable<Integer> source;
+
+    @Setup
+    public void setup() {
+        source = Observable.range(1, count);
+    }
+
+    @Benchmark
+    public void sequential(Blackhole bh) throws InterruptedException {
+        final int w = work;
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(source.map(new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                Blackhole.consumeCPU(w);
+                return v;
+            }
+        }).subscribeOn(Schedulers.computation()));
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        p.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void parallel(Blackhole bh) throws InterruptedException {
+        final int w = work;
+        List<Publisher<Sequenced<Integer>>> split = RxReactiveStreams.toParallelPublishers(source, rails, Schedulers.computation(), 128);
+        List<Publisher<Sequenced<Integer>>> transformed = new ArrayList<Publisher<Sequenced<Integer>>>(rails);
+        for (Publisher<Sequenced<Integer>> rail : split) {
+            transformed.add(RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(rail).map(new Func1<Sequenced<Integer>, Sequenced<Integer>>() {
+                @Override
+                public Sequenced<Integer> call(Sequenced<Integer> t) {
+                    Blackhole.consumeCPU(w);
+                    return t;
+                }
+            })));
+        }
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        RxReactiveStreams.mergeOrdered(transformed, 128).subscribe(s);
+        s.await();
+    }
+}
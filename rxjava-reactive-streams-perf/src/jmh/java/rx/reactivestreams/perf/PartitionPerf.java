@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.reactivestreams.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.functions.*;
+import rx.observables.GroupedObservable;
+
+/**
+ * Benchmark {@link RxReactiveStreams#partition(Observable, Func1, int, int)} against splitting the Observable
+ * with {@code groupBy} and converting each group with {@link RxReactiveStreams#toPublisher(Observable)}.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=PartitionPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class PartitionPerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    @Param({ "1", "4" })
+    public int partitions;
+
+    /** The request amount of the consumers; Long.MAX_VALUE means unbounded. */
+    @Param({ "128", "9223372036854775807" })
+    public long batch;
+
+    Observable<Integer> source;
+
+    Func1<Integer, Integer> keySelector;
+
+    @Setup
+    public void setup() {
+        source = Observable.range(1, count);
+        final int n = partitions;
+        keySelector = new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                return v % n;
+            }
+        };
+    }
+
+    @Benchmark
+    public void partition(Blackhole bh) throws InterruptedException {
+        List<Publisher<Integer>> ps = RxReactiveStreams.partition(source, keySelector, partitions, 128);
+        PerfRsSubscriber[] a = new PerfRsSubscriber[partitions];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = new PerfRsSubscriber(bh, batch, true);
+            ps.get(i).subscribe(a[i]);
+        }
+        for (PerfRsSubscriber s : a) {
+            s.start();
+        }
+        for (PerfRsSubscriber s : a) {
+            s.await();
+        }
+    }
+
+    @Benchmark
+    public void groupBy(final Blackhole bh) throws InterruptedException {
+        final List<PerfRsSubscriber> a = new ArrayList<PerfRsSubscriber>();
+        source.groupBy(keySelector).subscribe(new Action1<GroupedObservable<Integer, Integer>>() {
+            @Override
+            public void call(GroupedObservable<Integer, Integer> g) {
+                PerfRsSubscriber s = new PerfRsSubscriber(bh, batch);
+                a.add(s);
+                RxReactiveStreams.toPublisher(g).subscribe(s);
+            }
+        });
+        for (PerfRsSubscriber s : a) {
+            s.await();
+        }
+    }
+}
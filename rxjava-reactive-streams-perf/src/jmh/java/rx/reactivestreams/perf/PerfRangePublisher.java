@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.internal.operators.BackpressureUtils;
+
+/**
+ * A plain Reactive Streams range source that doesn't involve any RxJava adapter, so benchmarks
+ * of the RS to Rx direction only measure the bridge itself. Emits on a worker of the given
+ * Scheduler or, if it is null, synchronously on the requesting thread.
+ */
+public final class PerfRangePublisher implements Publisher<Integer> {
+
+    final int start;
+
+    final int count;
+
+    final Scheduler scheduler;
+
+    public PerfRangePublisher(int start, int count, Scheduler scheduler) {
+        this.start = start;
+        this.count = count;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Integer> s) {
+        s.onSubscribe(new RangeSubscription(s, start, start + count,
+                scheduler != null ? scheduler.createWorker() : null));
+    }
+
+    static final class RangeSubscription extends AtomicLong implements Subscription, Action0 {
+        /** */
+        private static final long serialVersionUID = -2497880960405498185L;
+
+        final Subscriber<? super Integer> actual;
+
+        final int end;
+
+        final Scheduler.Worker worker;
+
+        int index;
+
+        volatile boolean cancelled;
+
+        public RangeSubscription(Subscriber<? super Integer> actual, int start, int end, Scheduler.Worker worker) {
+            this.actual = actual;
+            this.index = start;
+            this.end = end;
+            this.worker = worker;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                cancel();
+                actual.onError(new IllegalArgumentException("n > 0 required but it was " + n));
+                return;
+            }
+            if (BackpressureUtils.getAndAddRequest(this, n) == 0L) {
+                if (worker != null) {
+                    worker.schedule(this);
+                } else {
+                    call();
+                }
+            }
+        }
+
+        @Override
+        public void call() {
+            Subscriber<? super Integer> a = actual;
+            int i = index;
+            int f = end;
+            long e = 0L;
+            long r = get();
+
+            for (;;) {
+                while (e != r && i != f) {
+                    if (cancelled) {
+                        return;
+                    }
+                    a.onNext(i);
+                    i++;
+                    e++;
+                }
+
+                if (i == f) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    if (worker != null) {
+                        worker.unsubscribe();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (worker != null) {
+                worker.unsubscribe();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.*;
+
+/**
+ * Reactive Streams consumer that sinks the items into a Blackhole, requests in batches of
+ * the given size (Long.MAX_VALUE means unbounded) and allows waiting for the terminal event.
+ */
+public final class PerfRsSubscriber implements Subscriber<Object> {
+
+    final Blackhole bh;
+
+    final long batch;
+
+    final boolean deferred;
+
+    final CountDownLatch latch;
+
+    Subscription s;
+
+    long consumed;
+
+    volatile Throwable error;
+
+    public PerfRsSubscriber(Blackhole bh, long batch) {
+        this(bh, batch, false);
+    }
+
+    /**
+     * @param bh the Blackhole to sink the items into
+     * @param batch the request amount
+     * @param deferred if true, the first request is issued by {@link #start()} instead of onSubscribe
+     */
+    public PerfRsSubscriber(Blackhole bh, long batch, boolean deferred) {
+        this.bh = bh;
+        this.batch = batch;
+        this.deferred = deferred;
+        this.latch = new CountDownLatch(1);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.s = s;
+        if (!deferred) {
+            s.request(batch);
+        }
+    }
+
+    /**
+     * Issues the first request of a deferred subscriber.
+     */
+    public void start() {
+        s.request(batch);
+    }
+
+    @Override
+    public void onNext(Object t) {
+        bh.consume(t);
+        if (batch != Long.MAX_VALUE && ++consumed == batch) {
+            consumed = 0L;
+            s.request(batch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        latch.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        latch.countDown();
+    }
+
+    /**
+     * Waits for the terminal event and rethrows the error, if any, so a failing
+     * configuration doesn't silently report a high score.
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public void await() throws InterruptedException {
+        if (latch.getCount() != 0L) {
+            latch.await();
+        }
+        Throwable e = error;
+        if (e != null) {
+            throw new RuntimeException(e);
+        }
+    }
+}
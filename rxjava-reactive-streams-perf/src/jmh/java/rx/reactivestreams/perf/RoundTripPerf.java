@@ -0,0 +1,98 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark streams crossing the boundary and coming back: Observable to Publisher to Observable
+ * and Publisher to Observable to Publisher.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=RoundTripPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class RoundTripPerf {
+
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    /** The request amount of the consumer; Long.MAX_VALUE means unbounded. */
+    @Param({ "1", "128", "9223372036854775807" })
+    public long batch;
+
+    Observable<Integer> observable;
+
+    Observable<Integer> observableAsync;
+
+    Publisher<Integer> publisher;
+
+    Publisher<Integer> publisherAsync;
+
+    @Setup
+    public void setup() {
+        observable = RxReactiveStreams.toObservable(RxReactiveStreams.toPublisher(Observable.range(1, count)));
+        observableAsync = RxReactiveStreams.toObservable(RxReactiveStreams.toPublisher(
+                Observable.range(1, count).subscribeOn(Schedulers.computation())));
+        publisher = RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(
+                new PerfRangePublisher(1, count, null)));
+        publisherAsync = RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(
+                new PerfRangePublisher(1, count, Schedulers.computation())));
+    }
+
+    void run(Observable<Integer> o, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, batch);
+        o.subscribe(s);
+        s.await();
+    }
+
+    void run(Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, batch);
+        p.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void observable(Blackhole bh) throws InterruptedException {
+        run(observable, bh);
+    }
+
+    @Benchmark
+    public void observableAsync(Blackhole bh) throws InterruptedException {
+        run(observableAsync, bh);
+    }
+
+    @Benchmark
+    public void publisher(Blackhole bh) throws InterruptedException {
+        run(publisher, bh);
+    }
+
+    @Benchmark
+    public void publisherAsync(Blackhole bh) throws InterruptedException {
+        run(publisherAsync, bh);
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toSharedPublisher(Observable, int)} against subscribing each consumer
+ * to its own {@link RxReactiveStreams#toPublisher(Observable)}.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=SharedPublisherPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class SharedPublisherPerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    @Param({ "1", "4" })
+    public int subscribers;
+
+    /** The request amount of the consumers; Long.MAX_VALUE means unbounded. */
+    @Param({ "128", "9223372036854775807" })
+    public long batch;
+
+    Observable<Integer> source;
+
+    Publisher<Integer> separate;
+
+    @Setup
+    public void setup() {
+        source = Observable.range(1, count);
+        separate = RxReactiveStreams.toPublisher(source);
+    }
+
+    void run(Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber[] a = new PerfRsSubscriber[subscribers];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = new PerfRsSubscriber(bh, batch, true);
+            p.subscribe(a[i]);
+        }
+        for (PerfRsSubscriber s : a) {
+            s.start();
+        }
+        for (PerfRsSubscriber s : a) {
+            s.await();
+        }
+    }
+
+    @Benchmark
+    public void shared(Blackhole bh) throws InterruptedException {
+        run(RxReactiveStreams.toSharedPublisher(source, 128), bh);
+    }
+
+    @Benchmark
+    public void separate(Blackhole bh) throws InterruptedException {
+        run(separate, bh);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark the {@link Single} conversions in both directions.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=SinglePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class SinglePerf {
+
+    Publisher<Integer> toPublisher;
+
+    Publisher<Integer> toPublisherAsync;
+
+    Single<Integer> toSingle;
+
+    Single<Integer> toSingleAsync;
+
+    Single<Integer> roundTrip;
+
+    @Setup
+    public void setup() {
+        toPublisher = RxReactiveStreams.toPublisher(Single.just(1));
+        toPublisherAsync = RxReactiveStreams.toPublisher(Single.just(1).subscribeOn(Schedulers.computation()));
+        toSingle = RxReactiveStreams.toSingle(new PerfRangePublisher(1, 1, null));
+        toSingleAsync = RxReactiveStreams.toSingle(new PerfRangePublisher(1, 1, Schedulers.computation()));
+        roundTrip = RxReactiveStreams.toSingle(RxReactiveStreams.toPublisher(Single.just(1)));
+    }
+
+    void run(Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        p.subscribe(s);
+        s.await();
+    }
+
+    void run(Single<Integer> single, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, Long.MAX_VALUE);
+        single.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void toPublisher(Blackhole bh) throws InterruptedException {
+        run(toPublisher, bh);
+    }
+
+    @Benchmark
+    public void toPublisherAsync(Blackhole bh) throws InterruptedException {
+        run(toPublisherAsync, bh);
+    }
+
+    @Benchmark
+    public void toSingle(Blackhole bh) throws InterruptedException {
+        run(toSingle, bh);
+    }
+
+    @Benchmark
+    public void toSingleAsync(Blackhole bh) throws InterruptedException {
+        run(toSingleAsync, bh);
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole bh) throws InterruptedException {
+        run(roundTrip, bh);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+import rx.RxReactiveStreams.*;
+import rx.subjects.PublishSubject;
+
+/**
+ * Benchmark a burst that is emitted before anything is requested, buffered by
+ * {@link RxReactiveStreams#toSpillingPublisher(Observable, int, SpillSerializer, File, int)} mostly in files and by
+ * {@link RxReactiveStreams#toPublisher(Observable, OverflowStrategy, int)} entirely in memory.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=SpillingPublisherPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class SpillingPublisherPerf {
+
+    static final SpillSerializer<Integer> INT_SERIALIZER = new SpillSerializer<Integer>() {
+        @Override
+        public byte[] serialize(Integer value) {
+            return ByteBuffer.allocate(4).putInt(value).array();
+        }
+
+        @Override
+        public Integer deserialize(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    void burst(PublishSubject<Integer> subject, Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, 128, true);
+        p.subscribe(s);
+        for (int i = 0; i < count; i++) {
+            subject.onNext(i);
+        }
+        subject.onCompleted();
+        s.start();
+        s.await();
+    }
+
+    @Benchmark
+    public void spilling(Blackhole bh) throws InterruptedException {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        burst(subject, RxReactiveStreams.toSpillingPublisher(subject, 128, INT_SERIALIZER, null), bh);
+    }
+
+    @Benchmark
+    public void inMemory(Blackhole bh) throws InterruptedException {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        burst(subject, RxReactiveStreams.toPublisher(subject, OverflowStrategy.BUFFER, count), bh);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+
+/**
+ * Benchmark the cost of setting up a subscription through each adapter with synchronous
+ * two-element sources, so the subscription dominates the items.
+ * <p>
+ * The GC profiler's gc.alloc.rate.norm shows the bytes allocated per subscription, consumer included.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=SubscribePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class SubscribePerf {
+
+    Publisher<Integer> toPublisher;
+
+    Observable<Integer> toObservable;
+
+    Observable<Integer> toObservablePrefetch;
+
+    Publisher<Integer> singleToPublisher;
+
+    Single<Integer> toSingle;
+
+    Publisher<Integer> completableToPublisher;
+
+    Completable toCompletable;
+
+    @Setup
+    public void setup() {
+        toPublisher = RxReactiveStreams.toPublisher(Observable.range(1, 2));
+        toObservable = RxReactiveStreams.toObservable(new PerfRangePublisher(1, 2, null));
+        toObservablePrefetch = RxReactiveStreams.toObservable(new PerfRangePublisher(1, 2, null), 16);
+        singleToPublisher = RxReactiveStreams.toPublisher(Single.just(1));
+        toSingle = RxReactiveStreams.toSingle(new PerfRangePublisher(1, 1, null));
+        completableToPublisher = RxReactiveStreams.toPublisher(Completable.complete());
+        toCompletable = RxReactiveStreams.toCompletable(new PerfRangePublisher(1, 2, null));
+    }
+
+    void run(Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        p.subscribe(s);
+        s.await();
+    }
+
+    void run(Observable<Integer> o, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, Long.MAX_VALUE);
+        o.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void toPublisher(Blackhole bh) throws InterruptedException {
+        run(toPublisher, bh);
+    }
+
+    @Benchmark
+    public void toObservable(Blackhole bh) throws InterruptedException {
+        run(toObservable, bh);
+    }
+
+    @Benchmark
+    public void toObservablePrefetch(Blackhole bh) throws InterruptedException {
+        run(toObservablePrefetch, bh);
+    }
+
+    @Benchmark
+    public void singleToPublisher(Blackhole bh) throws InterruptedException {
+        run(singleToPublisher, bh);
+    }
+
+    @Benchmark
+    public void toSingle(Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, Long.MAX_VALUE);
+        toSingle.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void completableToPublisher(Blackhole bh) throws InterruptedException {
+        run(completableToPublisher, bh);
+    }
+
+    @Benchmark
+    public void toCompletable(Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, Long.MAX_VALUE);
+        toCompletable.subscribe(s);
+        s.await();
+    }
+}
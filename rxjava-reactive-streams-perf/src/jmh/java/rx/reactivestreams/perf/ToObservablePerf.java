@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rx.*;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toObservable(org.reactivestreams.Publisher)} with synchronous
+ * and asynchronous plain Reactive Streams sources.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=ToObservablePerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class ToObservablePerf {
+
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    /** The request amount of the consumer; Long.MAX_VALUE means unbounded. */
+    @Param({ "1", "128", "9223372036854775807" })
+    public long batch;
+
+    Observable<Integer> range;
+
+    Observable<Integer> rangeAsync;
+
+    Observable<Integer> rangePrefetch;
+
+    Observable<Integer> rangeAsyncPrefetch;
+
+    Observable<Integer> rangeObserveOn;
+
+    Observable<Integer> rangeScheduler;
+
+    @Setup
+    public void setup() {
+        range = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, null));
+        rangeAsync = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, Schedulers.computation()));
+        rangePrefetch = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, null), 128);
+        rangeAsyncPrefetch = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, Schedulers.computation()), 128);
+        rangeObserveOn = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, Schedulers.io())).observeOn(Schedulers.computation(), true, 128);
+        rangeScheduler = RxReactiveStreams.toObservable(new PerfRangePublisher(1, count, Schedulers.io()), Schedulers.computation(), 128);
+    }
+
+    void run(Observable<Integer> o, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, batch);
+        o.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void range(Blackhole bh) throws InterruptedException {
+        run(range, bh);
+    }
+
+    @Benchmark
+    public void rangeAsync(Blackhole bh) throws InterruptedException {
+        run(rangeAsync, bh);
+    }
+
+    @Benchmark
+    public void rangePrefetch(Blackhole bh) throws InterruptedException {
+        run(rangePrefetch, bh);
+    }
+
+    @Benchmark
+    public void rangeAsyncPrefetch(Blackhole bh) throws InterruptedException {
+        run(rangeAsyncPrefetch, bh);
+    }
+
+    @Benchmark
+    public void rangeObserveOn(Blackhole bh) throws InterruptedException {
+        run(rangeObserveOn, bh);
+    }
+
+    @Benchmark
+    public void rangeScheduler(Blackhole bh) throws InterruptedException {
+        run(rangeScheduler, bh);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.*;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toPublisher(Observable)} with just, empty and error sources
+ * where the cost of setting up the subscription dominates.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=ToPublisherScalarPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class ToPublisherScalarPerf {
+
+    Publisher<Integer> just;
+
+    Publisher<Integer> empty;
+
+    Publisher<Integer> error;
+
+    @Setup
+    public void setup() {
+        just = RxReactiveStreams.toPublisher(Observable.just(1));
+        empty = RxReactiveStreams.toPublisher(Observable.<Integer>empty());
+        error = RxReactiveStreams.toPublisher(Observable.<Integer>error(new RuntimeException()));
+    }
+
+    @Benchmark
+    public void just(Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        just.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void empty(Blackhole bh) throws InterruptedException {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        empty.subscribe(s);
+        s.await();
+    }
+
+    @Benchmark
+    public void error(Blackhole bh) {
+        PerfRsSubscriber s = new PerfRsSubscriber(bh, Long.MAX_VALUE);
+        error.subscribe(s);
+        bh.consume(s.error);
+    }
+}
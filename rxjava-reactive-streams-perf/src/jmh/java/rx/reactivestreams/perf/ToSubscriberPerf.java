@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import rx.RxReactiveStreams;
+import rx.schedulers.Schedulers;
+
+/**
+ * Benchmark {@link RxReactiveStreams#toSubscriber(rx.Subscriber)} subscribed directly to
+ * synchronous and asynchronous plain Reactive Streams sources.
+ * <p>
+ * gradlew :rxjava-reactive-streams-perf:jmh -Pjmh=ToSubscriberPerf
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class ToSubscriberPerf {
+
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    /** The request amount of the consumer; Long.MAX_VALUE means unbounded. */
+    @Param({ "1", "128", "9223372036854775807" })
+    public long batch;
+
+    Publisher<Integer> range;
+
+    Publisher<Integer> rangeAsync;
+
+    @Setup
+    public void setup() {
+        range = new PerfRangePublisher(1, count, null);
+        rangeAsync = new PerfRangePublisher(1, count, Schedulers.computation());
+    }
+
+    void run(Publisher<Integer> p, Blackhole bh) throws InterruptedException {
+        PerfRxSubscriber s = new PerfRxSubscriber(bh, batch);
+        s.onStart(); // Observable.subscribe() would call this
+        p.subscribe(RxReactiveStreams.toSubscriber(s));
+        s.await();
+    }
+
+    @Benchmark
+    public void range(Blackhole bh) throws InterruptedException {
+        run(range, bh);
+    }
+
+    @Benchmark
+    public void rangeAsync(Blackhole bh) throws InterruptedException {
+        run(rangeAsync, bh);
+    }
+}
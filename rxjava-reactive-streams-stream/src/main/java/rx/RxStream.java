@@ -0,0 +1,62 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx;
+
+import java.util.stream.*;
+
+import org.reactivestreams.Publisher;
+
+import rx.internal.reactivestreams.stream.PublisherSpliterator;
+
+/**
+ * This type provides static factory methods for consuming Reactive Streams types with the
+ * {@link java.util.stream} API of Java 8.
+ */
+public abstract class RxStream {
+
+    private RxStream() {
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} into a sequential {@link Stream} that pulls its items in batches.
+     * <p/>
+     * The publisher is subscribed to when the terminal operation of the stream starts, requested {@code batchSize}
+     * items upfront and replenished with 75% of that amount whenever as many items have been consumed; the consuming
+     * thread blocks while no item is available. When the stream is made {@link Stream#parallel() parallel}, its
+     * {@link java.util.Spliterator} splits off chunks of up to {@code batchSize} items copied into arrays, which the
+     * ForkJoin pool processes while the remaining items are still being received. {@link Stream#close()} cancels the
+     * subscription and ends the stream, also for a thread blocked waiting for items. An onError of the publisher is
+     * thrown by the terminal operation after the items received before it, wrapped into a {@link RuntimeException}
+     * if it is a checked exception.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to convert
+     * @param batchSize the number of items requested upfront and split off at a time, positive
+     * @return the {@link Stream} of the publisher's items
+     * @throws NullPointerException if publisher is null
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public static <T> Stream<T> toStream(Publisher<? extends T> publisher, int batchSize) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize > 0 required but it was " + batchSize);
+        }
+        PublisherSpliterator<T> spliterator = new PublisherSpliterator<T>(publisher, batchSize);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams.stream;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
+
+import rx.internal.reactivestreams.BlockingPublisherIterator;
+
+/**
+ * A Spliterator over the items of a Publisher, received through a {@link BlockingPublisherIterator}.
+ * <p>
+ * The Publisher is subscribed to on the first traversal or split. {@link #trySplit()} copies up to
+ * {@code batchSize} items into an array and hands them out as a Spliterator of their own, so a parallel
+ * Stream processes the chunks while this one keeps receiving. The size is unknown, so splitting goes
+ * on until the Publisher completes. {@link #close()} may be called from any thread: the iterator
+ * serializes its cancellation with the replenishing done by the traversal (rule §2.7), and an item
+ * already reported by hasNext is still handed to the action.
+ *
+ * @param <T> the value type
+ */
+public final class PublisherSpliterator<T> implements Spliterator<T> {
+
+    final Publisher<? extends T> publisher;
+
+    final int batchSize;
+
+    volatile BlockingPublisherIterator<T> iterator;
+
+    volatile boolean closed;
+
+    public PublisherSpliterator(Publisher<? extends T> publisher, int batchSize) {
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+    }
+
+    BlockingPublisherIterator<T> iterator() {
+        BlockingPublisherIterator<T> it = iterator;
+        if (it == null) {
+            it = new BlockingPublisherIterator<T>(batchSize);
+            iterator = it;
+            // close() reads iterator after setting closed, so one of the two sides cancels
+            if (closed) {
+                it.cancel();
+            } else {
+                publisher.subscribe(it);
+            }
+        }
+        return it;
+    }
+
+    /**
+     * Cancels the subscription, ending the traversal.
+     */
+    public void close() {
+        closed = true;
+        BlockingPublisherIterator<T> it = iterator;
+        if (it != null) {
+            it.cancel();
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (action == null) {
+            throw new NullPointerException("action");
+        }
+        BlockingPublisherIterator<T> it = iterator();
+        if (it.hasNext()) {
+            action.accept(it.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (action == null) {
+            throw new NullPointerException("action");
+        }
+        BlockingPublisherIterator<T> it = iterator();
+        while (it.hasNext()) {
+            action.accept(it.next());
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        BlockingPublisherIterator<T> it = iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Object[] chunk = new Object[batchSize];
+        int n = 0;
+        do {
+            chunk[n++] = it.next();
+        } while (n < chunk.length && it.hasNext());
+        return Spliterators.spliterator(chunk, 0, n, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
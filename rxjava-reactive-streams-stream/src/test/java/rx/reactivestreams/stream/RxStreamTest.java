@@ -0,0 +1,234 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.stream;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import org.reactivestreams.*;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+public class RxStreamTest {
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void toStreamNullCheck() {
+        RxStream.toStream(null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void toStreamBatchSizeCheck() {
+        RxStream.toStream(RxReactiveStreams.toPublisher(Observable.just(1)), 0);
+    }
+
+    @Test
+    public void itemsInOrder() {
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 1000));
+
+        List<Integer> list = RxStream.toStream(p, 16).collect(Collectors.toList());
+
+        Assert.assertEquals(list, Observable.range(1, 1000).toList().toBlocking().single());
+    }
+
+    @Test
+    public void subscribesOnTerminalOperation() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 5)
+                .doOnSubscribe(subscriptions::incrementAndGet));
+
+        Stream<Integer> stream = RxStream.toStream(p, 16).map(v -> v + 1);
+
+        Assert.assertEquals(subscriptions.get(), 0);
+        Assert.assertEquals(stream.mapToInt(v -> v).sum(), 20);
+        Assert.assertEquals(subscriptions.get(), 1);
+    }
+
+    @Test
+    public void requestsInBatches() {
+        List<Long> requests = new CopyOnWriteArrayList<Long>();
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 100)
+                .doOnRequest(requests::add));
+
+        Assert.assertEquals(RxStream.toStream(p, 16).count(), 100L);
+
+        Assert.assertEquals((long)requests.get(0), 16L);
+        for (Long n : requests.subList(1, requests.size())) {
+            Assert.assertEquals((long)n, 12L);
+        }
+    }
+
+    @Test
+    public void parallelSum() {
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 100000)
+                .subscribeOn(Schedulers.computation()));
+
+        long sum = RxStream.toStream(p, 128).parallel().mapToLong(v -> v).sum();
+
+        Assert.assertEquals(sum, 100000L * 100001L / 2);
+    }
+
+    @Test
+    public void parallelKeepsEncounterOrder() {
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 10000));
+
+        List<Integer> list = RxStream.toStream(p, 64).parallel().map(v -> v * 2).collect(Collectors.toList());
+
+        Assert.assertEquals(list, Observable.range(1, 10000).map(v -> v * 2).toList().toBlocking().single());
+    }
+
+    @Test
+    public void limitThenCloseCancels() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Publisher<Long> p = RxReactiveStreams.toPublisher(Observable.interval(1, TimeUnit.MILLISECONDS)
+                .doOnUnsubscribe(() -> cancelled.set(true)));
+
+        try (Stream<Long> stream = RxStream.toStream(p, 4)) {
+            Assert.assertEquals(stream.limit(3).count(), 3L);
+        }
+
+        Assert.assertTrue(cancelled.get());
+    }
+
+    @Test(timeOut = 5000)
+    public void closeFromAnotherThreadEndsBlockedStream() throws Exception {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.<Integer>never()
+                .doOnUnsubscribe(() -> cancelled.set(true)));
+        Stream<Integer> stream = RxStream.toStream(p, 4);
+
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> count = exec.submit(stream::count);
+            Thread.sleep(100);
+
+            stream.close();
+
+            Assert.assertEquals((long)count.get(), 0L);
+            Assert.assertTrue(cancelled.get());
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void closeBeforeTerminalOperationDoesNotSubscribe() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 5)
+                .doOnSubscribe(subscriptions::incrementAndGet));
+        Stream<Integer> stream = RxStream.toStream(p, 16);
+
+        stream.onClose(() -> { }).close();
+
+        Assert.assertEquals(subscriptions.get(), 0);
+    }
+
+    @Test
+    public void errorThrownAfterItems() {
+        List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 3)
+                .concatWith(Observable.<Integer>error(new IllegalStateException("boom"))));
+
+        try {
+            RxStream.toStream(p, 16).forEach(received::add);
+            Assert.fail("No exception thrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals(ex.getMessage(), "boom");
+        }
+
+        Assert.assertEquals(received.size(), 3);
+    }
+
+    @Test
+    public void closeRacingTraversalDoesNotOverlapCalls() throws Exception {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 2000; round++) {
+                AtomicReference<OverlapDetectingSubscription> subscription = new AtomicReference<>();
+                Publisher<Integer> p = s -> {
+                    OverlapDetectingSubscription ods = new OverlapDetectingSubscription(s);
+                    subscription.set(ods);
+                    s.onSubscribe(ods);
+                };
+                Stream<Integer> stream = RxStream.toStream(p, 4);
+
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> f = exec.submit(() -> {
+                    barrier.await();
+                    stream.close();
+                    return null;
+                });
+                barrier.await();
+                try {
+                    stream.count();
+                } catch (IllegalStateException closedFirst) {
+                    // the Stream itself refuses a terminal operation after close()
+                }
+                f.get(5, TimeUnit.SECONDS);
+
+                OverlapDetectingSubscription ods = subscription.get();
+                if (ods != null) {
+                    Assert.assertFalse(ods.overlapped, "round " + round);
+                    Assert.assertEquals(ods.cancelCalls.get(), 1, "round " + round);
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    /** Emits the requested items synchronously and records whether two of its calls ran at the same time. */
+    static final class OverlapDetectingSubscription implements Subscription {
+        final Subscriber<? super Integer> subscriber;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger cancelCalls = new AtomicInteger();
+        volatile boolean overlapped;
+        volatile boolean cancelled;
+        int index;
+
+        OverlapDetectingSubscription(Subscriber<? super Integer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            for (long i = 0; i < n && !cancelled; i++) {
+                subscriber.onNext(index++);
+            }
+            active.decrementAndGet();
+        }
+
+        @Override
+        public void cancel() {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            cancelled = true;
+            cancelCalls.incrementAndGet();
+            active.decrementAndGet();
+        }
+    }
+}
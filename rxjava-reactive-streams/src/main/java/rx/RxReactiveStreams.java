@@ -15,9 +15,17 @@
  */
 package rx;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.reactivestreams.Publisher;
 
+import rx.functions.*;
+import rx.internal.operators.*;
 import rx.internal.reactivestreams.*;
+import rx.internal.util.ScalarSynchronousObservable;
 
 /**
  * This type provides static factory methods for converting to and from RxJava types and Reactive Streams types.
@@ -35,31 +43,555 @@ public abstract class RxReactiveStreams {
      * Convert a Rx {@link Observable} into a Reactive Streams {@link Publisher}.
      * <p/>
      * Use this method when you have an RxJava observable, that you want to be consumed by another library.
+     * If the observable was created by {@link #toObservable(Publisher)}, the original {@link Publisher} is returned;
+     * {@code Observable.just(value)}, {@code Observable.empty()}, {@code Observable.error(e)},
+     * {@code Observable.range(start, count)} and {@code Observable.from(...)} over an array or an {@link Iterable}
+     * are converted into dedicated, lightweight Publishers.
      *
      * @param <T> the value type
      * @param observable the {@link Observable} to convert
      * @return the converted {@link Publisher}
+     * @throws NullPointerException if observable is null
      */
     public static <T> Publisher<T> toPublisher(Observable<T> observable) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        Publisher<T> known = knownPublisher(observable);
+        if (known != null) {
+            return known;
+        }
         return new PublisherAdapter<T>(observable);
     }
 
+    /**
+     * Returns the original Publisher of an Observable created by {@link #toObservable(Publisher)} or a dedicated
+     * Publisher for a known source, null otherwise.
+     */
+    private static <T> Publisher<T> knownPublisher(Observable<T> observable) {
+        if (observable instanceof ScalarSynchronousObservable) {
+            T value = ((ScalarSynchronousObservable<T>)observable).get();
+            if (value != null) {
+                return new ScalarPublisher<T>(value);
+            }
+        }
+        if (observable == Observable.empty()) {
+            return EmptyPublisher.instance();
+        }
+        Observable.OnSubscribe<T> onSubscribe = observable.onSubscribe;
+        if (onSubscribe instanceof PublisherAsObservable) {
+            PublisherAsObservable<T> pao = (PublisherAsObservable<T>)onSubscribe;
+            // unwrapping would drop the Scheduler boundary or the batching of the requests
+            if (pao.isPassThrough()) {
+                return pao.publisher();
+            }
+        }
+        // the sources below are read reflectively, null means the generic adapter is used
+        if (onSubscribe instanceof OnSubscribeFromArray) {
+            T[] array = ArrayAsPublisher.arrayOf((OnSubscribeFromArray<T>)onSubscribe);
+            if (array != null) {
+                return new ArrayAsPublisher<T>(array);
+            }
+        }
+        if (onSubscribe instanceof OnSubscribeFromIterable) {
+            Iterable<? extends T> iterable = IterableAsPublisher.iterableOf((OnSubscribeFromIterable<T>)onSubscribe);
+            if (iterable != null) {
+                return new IterableAsPublisher<T>(iterable);
+            }
+        }
+        if (onSubscribe instanceof OnSubscribeRange) {
+            @SuppressWarnings("unchecked")
+            Publisher<T> range = (Publisher<T>)RangeAsPublisher.of((OnSubscribeRange)onSubscribe);
+            if (range != null) {
+                return range;
+            }
+        }
+        if (onSubscribe instanceof OnSubscribeThrow) {
+            Throwable error = ErrorPublisher.errorOf((OnSubscribeThrow<T>)onSubscribe);
+            if (error != null) {
+                return new ErrorPublisher<T>(error);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convert a Rx {@link Observable} that may not honor backpressure, such as a hot {@code Subject}, into a
+     * Reactive Streams {@link Publisher} that buffers up to {@code capacity} items per subscriber.
+     * <p/>
+     * Use this method instead of {@link #toPublisher(Observable)} when the observable may emit more than requested.
+     * The observable is requested unbounded and what the subscriber hasn't requested yet is buffered; what happens
+     * when the buffer is full is determined by the {@link OverflowStrategy}. An onError of the observable is
+     * signalled after the buffered items. The number of items dropped so far is available from
+     * {@link DroppingPublisher#droppedCount()}.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param strategy what to do when the buffer is full
+     * @param capacity the maximum number of items buffered per subscriber, positive
+     * @return the converted {@link Publisher}
+     * @throws NullPointerException if observable or strategy is null
+     * @throws IllegalArgumentException if capacity is not positive
+     * @see #toPublisher(Observable, OverflowStrategy, int, Action1)
+     */
+    public static <T> DroppingPublisher<T> toPublisher(Observable<T> observable, OverflowStrategy strategy, int capacity) {
+        return toPublisher(observable, strategy, capacity, null);
+    }
+
+    /**
+     * Convert a Rx {@link Observable} that may not honor backpressure, such as a hot {@code Subject}, into a
+     * Reactive Streams {@link Publisher} that buffers up to {@code capacity} items per subscriber and hands the
+     * items dropped due to overflow to a callback, e.g. to count them.
+     * <p/>
+     * The callback is invoked on the emitting thread of the observable; if it throws, the subscriber is
+     * signalled the exception after the buffered items. Dropped items are also reported to the
+     * {@link BridgeListener}, if any.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param strategy what to do when the buffer is full
+     * @param capacity the maximum number of items buffered per subscriber, positive
+     * @param onDrop called with each item dropped, null if not needed
+     * @return the converted {@link Publisher}
+     * @throws NullPointerException if observable or strategy is null
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public static <T> DroppingPublisher<T> toPublisher(Observable<T> observable, OverflowStrategy strategy, int capacity, Action1<? super T> onDrop) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (strategy == null) {
+            throw new NullPointerException("strategy");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity > 0 required but it was " + capacity);
+        }
+        return new OverflowPublisher<T>(observable, strategy, capacity, onDrop);
+    }
+
+    /**
+     * Convert a Rx {@link Observable} that may not honor backpressure into a Reactive Streams {@link Publisher}
+     * that buffers up to {@code capacity} items per subscriber in memory and the rest in files, never dropping any.
+     * <p/>
+     * This is {@link #toSpillingPublisher(Observable, int, SpillSerializer, File, int)} with segments of 64 MiB.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param capacity the maximum number of items buffered in memory per subscriber, positive
+     * @param serializer converts the items spilled to files to bytes and back
+     * @param directory the directory to create the files in, null for the default temporary-file directory
+     * @return the converted {@link Publisher}
+     * @throws NullPointerException if observable or serializer is null
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public static <T> Publisher<T> toSpillingPublisher(Observable<T> observable, int capacity, SpillSerializer<T> serializer,
+            File directory) {
+        return toSpillingPublisher(observable, capacity, serializer, directory, 64 * 1024 * 1024);
+    }
+
+    /**
+     * Convert a Rx {@link Observable} that may not honor backpressure into a Reactive Streams {@link Publisher}
+     * that buffers up to {@code capacity} items per subscriber in memory and the rest in files, never dropping any.
+     * <p/>
+     * Use this method instead of {@link #toPublisher(Observable, OverflowStrategy, int)} when bursts of the observable
+     * may exceed what fits into memory but no item may be lost. The observable is requested unbounded; what the
+     * subscriber hasn't requested yet goes into an in-memory buffer and, once that is full, is serialized and
+     * appended to memory-mapped segment files of {@code segmentSize} bytes (larger for a single bigger item) in the
+     * directory. The spilled items are read back in order as the subscriber requests them, and every file is deleted
+     * once read through, when the subscriber is terminated and when it cancels. An onError of the observable is
+     * signalled after the buffered items; an {@link IOException} while spilling or reading back terminates the
+     * subscriber with it, unsubscribing the observable.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param capacity the maximum number of items buffered in memory per subscriber, positive
+     * @param serializer converts the items spilled to files to bytes and back
+     * @param directory the directory to create the files in, null for the default temporary-file directory
+     * @param segmentSize the size of each file in bytes, positive
+     * @return the converted {@link Publisher}
+     * @throws NullPointerException if observable or serializer is null
+     * @throws IllegalArgumentException if capacity or segmentSize is not positive
+     */
+    public static <T> Publisher<T> toSpillingPublisher(Observable<T> observable, int capacity, SpillSerializer<T> serializer,
+            File directory, int segmentSize) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (serializer == null) {
+            throw new NullPointerException("serializer");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity > 0 required but it was " + capacity);
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize > 0 required but it was " + segmentSize);
+        }
+        return new SpillingPublisher<T>(observable, capacity, serializer, directory, segmentSize);
+    }
+
+    /**
+     * Convert a Rx {@link Observable} into a Reactive Streams {@link Publisher} of lists of its items, each emitted
+     * once it holds {@code maxSize} items or {@code maxDelay} after its first item arrived, whichever comes first.
+     * <p/>
+     * Use this method for streams of small items, where signalling and requesting each item costs more than the
+     * item itself: every request unit of the subscriber then moves a whole list. The observable is requested
+     * {@code maxSize} items upfront and, as each list is emitted, as many items as it held, so at most
+     * {@code maxSize} items are buffered. Without demand a full list pauses the observable and a list whose delay
+     * has expired keeps filling until it is requested. Completion emits the last, partial list first; an error is
+     * signalled right away, dropping the items not emitted yet. Each list is a new, mutable one.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param maxSize the maximum number of items per list, positive
+     * @param maxDelay the maximum time the first item of a list waits for the list to fill, positive
+     * @param unit the unit of maxDelay
+     * @param scheduler the {@link Scheduler} timing the delay
+     * @return the batched {@link Publisher}
+     * @throws NullPointerException if observable, unit or scheduler is null
+     * @throws IllegalArgumentException if maxSize or maxDelay is not positive
+     */
+    public static <T> Publisher<List<T>> toBatchedPublisher(Observable<T> observable, int maxSize, long maxDelay,
+            TimeUnit unit, Scheduler scheduler) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (scheduler == null) {
+            throw new NullPointerException("scheduler");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize > 0 required but it was " + maxSize);
+        }
+        if (maxDelay <= 0L) {
+            throw new IllegalArgumentException("maxDelay > 0 required but it was " + maxDelay);
+        }
+        return new PublisherAdapter<List<T>>(
+                Observable.create(new Batcher<T>(observable, maxSize, maxDelay, unit, scheduler)));
+    }
+
+    /**
+     * Convert a Rx {@link Observable} into a Reactive Streams {@link Publisher} that subscribes to the
+     * observable only once and shares its items between all of its subscribers; subscribers arriving after
+     * the first item was emitted receive the items from then on.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param bufferSize the number of items buffered per subscriber, positive
+     * @return the shared {@link Publisher}
+     * @throws NullPointerException if observable is null
+     * @throws IllegalArgumentException if bufferSize is not positive
+     * @see #toSharedPublisher(Observable, int, LateSubscriberPolicy)
+     */
+    public static <T> Publisher<T> toSharedPublisher(Observable<T> observable, int bufferSize) {
+        return toSharedPublisher(observable, bufferSize, LateSubscriberPolicy.JOIN);
+    }
+
+    /**
+     * Convert a Rx {@link Observable} into a Reactive Streams {@link Publisher} that subscribes to the
+     * observable only once and shares its items between all of its subscribers.
+     * <p/>
+     * Use this method instead of {@link #toPublisher(Observable)} when the observable is expensive to subscribe to
+     * and the publisher is consumed by several subscribers. The observable is subscribed to on the first request
+     * of any subscriber, so subscribers that subscribe before anything was requested receive every item. Each
+     * subscriber has a buffer of {@code bufferSize} items and the observable is requested only as much as the
+     * fullest buffer can take: the slowest subscriber paces the others, which may run ahead of it by at most
+     * {@code bufferSize} items. Once every subscriber has cancelled, the observable is unsubscribed; a subscriber
+     * arriving after that subscribes to it anew, like {@code publish().refCount()} does.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to convert
+     * @param bufferSize the number of items buffered per subscriber, positive
+     * @param policy what to do with subscribers arriving after the first item was emitted
+     * @return the shared {@link Publisher}
+     * @throws NullPointerException if observable or policy is null
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> Publisher<T> toSharedPublisher(Observable<T> observable, int bufferSize, LateSubscriberPolicy policy) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (policy == null) {
+            throw new NullPointerException("policy");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new SharedPublisher<T>(observable, bufferSize, policy == LateSubscriberPolicy.REJECT);
+    }
+
+    /**
+     * Split a Rx {@link Observable} into {@code partitions} Reactive Streams {@link Publisher}s by the hash of a key
+     * of each item, keeping the order of the items of each key.
+     * <p/>
+     * Use this method to shard a single source across several consumers, e.g. one per core. The observable is
+     * subscribed to once, on the first request of any partition's subscriber. Each partition accepts a single
+     * subscriber and has a buffer of {@code bufferSize} items; as any item requested may be routed to any partition,
+     * the observable is requested only as much as the fullest buffer can take. A partition whose subscriber is slow,
+     * or that has no subscriber yet, thus paces the others. Cancelled partitions drop their items and stop pacing
+     * the others; once every partition is cancelled, the observable is unsubscribed. The terminal event of the
+     * observable, or an exception thrown by the key selector, is signalled to every partition after its buffered items.
+     *
+     * @param <T> the value type
+     * @param <K> the key type
+     * @param observable the {@link Observable} to split
+     * @param keySelector returns the key of an item; items with equal keys, including null ones, go to the same partition
+     * @param partitions the number of partitions, positive
+     * @param bufferSize the number of items buffered per partition, positive
+     * @return the unmodifiable list of the partitions
+     * @throws NullPointerException if observable or keySelector is null
+     * @throws IllegalArgumentException if partitions or bufferSize is not positive
+     */
+    public static <T, K> List<Publisher<T>> partition(Observable<T> observable, Func1<? super T, ? extends K> keySelector,
+            int partitions, int bufferSize) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (keySelector == null) {
+            throw new NullPointerException("keySelector");
+        }
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions > 0 required but it was " + partitions);
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new Partitioner<T, K>(observable, keySelector, partitions, bufferSize).partitions();
+    }
+
+    /**
+     * Split a Rx {@link Observable} into {@code rails} Reactive Streams {@link Publisher}s that each signal on a
+     * {@link Scheduler.Worker} of their own, numbering the items so {@link #mergeOrdered(List, int)} can restore
+     * their order after they were processed in parallel.
+     * <p/>
+     * The items are dealt out round-robin and buffered up to {@code bufferSize} items per rail; the observable is
+     * subscribed to once, on the first request of any rail's subscriber, and requested only as much as the fullest
+     * rail buffer can take, so a slow rail paces the others. Transformations on a rail should keep the sequence
+     * number of the item they derive from, e.g. via {@link Sequenced#withValue(Object)}. To drop an item, a rail
+     * emits {@link Sequenced#skip()} in its place instead of filtering it out: {@link #mergeOrdered(List, int)} waits
+     * for an item of every rail, so a rail filtering out more items in a row than the buffers of the other rails
+     * hold stalls both the merge and the split. A rail converted with {@link #toObservable(Publisher)} is
+     * processed in RxJava without another conversion.
+     *
+     * @param <T> the value type
+     * @param observable the {@link Observable} to split
+     * @param rails the number of rails, positive
+     * @param scheduler the {@link Scheduler} each rail signals on a worker of
+     * @param bufferSize the number of items buffered per rail, positive
+     * @return the unmodifiable list of the rails
+     * @throws NullPointerException if observable or scheduler is null
+     * @throws IllegalArgumentException if rails or bufferSize is not positive
+     */
+    public static <T> List<Publisher<Sequenced<T>>> toParallelPublishers(Observable<T> observable, int rails,
+            Scheduler scheduler, int bufferSize) {
+        if (observable == null) {
+            throw new NullPointerException("observable");
+        }
+        if (scheduler == null) {
+            throw new NullPointerException("scheduler");
+        }
+        if (rails <= 0) {
+            throw new IllegalArgumentException("rails > 0 required but it was " + rails);
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return ParallelRails.split(observable, rails, scheduler, bufferSize);
+    }
+
+    /**
+     * Merge rails of {@link Sequenced} items, such as those of {@link #toParallelPublishers(Observable, int, Scheduler, int)}
+     * after processing, into a Reactive Streams {@link Publisher} of their values in sequence order.
+     * <p/>
+     * Each rail must signal its items in increasing sequence order. Up to {@code bufferSize} items are prefetched
+     * per rail; an item is emitted once every rail that hasn't completed has an item buffered, the one with the
+     * lowest sequence number first, so the reorder buffer is bounded by {@code rails.size() * bufferSize} items.
+     * Items created by {@link Sequenced#skip()} are consumed in that order but not emitted. A rail must not
+     * filter items out without such a marker, as the merge can't tell a dropped item from one still on its way.
+     * An error of any rail cancels the others and is signalled without waiting for the buffered items.
+     *
+     * @param <T> the value type
+     * @param rails the rails to merge
+     * @param bufferSize the number of items prefetched per rail, positive
+     * @return the merged {@link Publisher}
+     * @throws NullPointerException if rails or any of them is null
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> Publisher<T> mergeOrdered(List<? extends Publisher<Sequenced<T>>> rails, int bufferSize) {
+        if (rails == null) {
+            throw new NullPointerException("rails");
+        }
+        for (Publisher<Sequenced<T>> rail : rails) {
+            if (rail == null) {
+                throw new NullPointerException("rail");
+            }
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return ParallelRails.merge(rails, bufferSize);
+    }
+
     /**
      * Convert a Reactive Streams {@link Publisher} into a Rx {@link Observable}.
      * <p/>
      * Use this method when you have a stream from another library, that you want to be consume as an RxJava observable.
+     * If the publisher was created by {@link #toPublisher(Observable)}, the original {@link Observable} is returned.
      *
      * @param <T> the value type
      * @param publisher the {@link Publisher} to convert.
      * @return the converted {@link Observable}
+     * @throws NullPointerException if publisher is null
      */
     public static <T> Observable<T> toObservable(final Publisher<T> publisher) {
-        return Observable.create(new Observable.OnSubscribe<T>() {
-            @Override
-            public void call(final rx.Subscriber<? super T> rxSubscriber) {
-                publisher.subscribe(toSubscriber(rxSubscriber));
-            }
-        });
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (publisher instanceof PublisherAdapter) {
+            return ((PublisherAdapter<T>)publisher).observable();
+        }
+        return Observable.create(new PublisherAsObservable<T>(publisher));
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} into a Rx {@link Observable} that requests from the
+     * Publisher in batches instead of relaying each request of the Rx consumer.
+     * <p/>
+     * The returned Observable requests {@code prefetch} items upfront and replenishes with 75% of that
+     * amount whenever as many items have been consumed, no matter how small the amounts the Rx consumer
+     * requests are. Items are buffered until the consumer requests them; an onError of the Publisher is
+     * signalled after the items received before it. A prefetch amount above 65536 buffers the items in a
+     * queue that grows with the items actually received instead of one allocated upfront. If the publisher
+     * was created by {@link #toPublisher(Observable)}, the original {@link Observable} is returned.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to convert.
+     * @param prefetch the number of items to request from the Publisher upfront, positive
+     * @return the converted {@link Observable}
+     * @throws NullPointerException if publisher is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     */
+    public static <T> Observable<T> toObservable(final Publisher<T> publisher, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        if (publisher instanceof PublisherAdapter) {
+            return ((PublisherAdapter<T>)publisher).observable();
+        }
+        return Observable.create(new PublisherAsObservable<T>(publisher, prefetch));
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} into a Rx {@link Observable} that signals on the given
+     * {@link Scheduler}, requesting from the Publisher in batches.
+     * <p/>
+     * This is equivalent to {@code toObservable(publisher, prefetch).observeOn(scheduler, true, prefetch)} but
+     * uses a single queue: the items of the Publisher are drained from it straight onto a worker of the scheduler.
+     * The Publisher is requested {@code prefetch} items upfront and replenished with 75% of that amount whenever
+     * as many items have been consumed. An onError of the Publisher is signalled after the items received before it.
+     * If the publisher was created by {@link #toPublisher(Observable)}, the original {@link Observable} is observed
+     * on the scheduler.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to convert.
+     * @param scheduler the {@link Scheduler} to signal the items and terminal events on
+     * @param prefetch the number of items to request from the Publisher upfront, positive
+     * @return the converted {@link Observable}
+     * @throws NullPointerException if publisher or scheduler is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     */
+    public static <T> Observable<T> toObservable(final Publisher<T> publisher, Scheduler scheduler, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (scheduler == null) {
+            throw new NullPointerException("scheduler");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        if (publisher instanceof PublisherAdapter) {
+            return ((PublisherAdapter<T>)publisher).observable().observeOn(scheduler, true, prefetch);
+        }
+        return Observable.create(new PublisherAsObservable<T>(publisher, prefetch, scheduler));
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} of chunks, such as lists or pages of records, into a Rx
+     * {@link Observable} of their elements.
+     * <p/>
+     * This is equivalent to {@code toObservable(publisher, 4).concatMapIterable(...)} but keeps only the queue of chunks:
+     * the elements are emitted straight from the chunk as the Rx consumer requests them, read by index from
+     * {@link java.util.RandomAccess} lists (wrap arrays with {@link java.util.Arrays#asList(Object[])}) and through
+     * the iterator of other chunks. The publisher is requested 4 chunks upfront, then 3 whenever as many have been
+     * emitted. An onError of the publisher is signalled after the elements of the chunks received before it.
+     *
+     * @param <T> the element type
+     * @param publisher the {@link Publisher} of chunks to convert
+     * @return the {@link Observable} of the elements
+     * @throws NullPointerException if publisher is null
+     * @see #toObservableFlattened(Publisher, int)
+     */
+    public static <T> Observable<T> toObservableFlattened(Publisher<? extends Iterable<? extends T>> publisher) {
+        return toObservableFlattened(publisher, 4);
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} of chunks, such as lists or pages of records, into a Rx
+     * {@link Observable} of their elements, requesting the chunks in batches of the given size.
+     * <p/>
+     * The publisher is requested {@code prefetch} chunks upfront and replenished with 75% of that amount whenever
+     * as many chunks have been emitted, independent of the number of elements the Rx consumer requests.
+     *
+     * @param <T> the element type
+     * @param publisher the {@link Publisher} of chunks to convert
+     * @param prefetch the number of chunks to request from the publisher upfront, positive
+     * @return the {@link Observable} of the elements
+     * @throws NullPointerException if publisher is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     * @see #toObservableFlattened(Publisher)
+     */
+    public static <T> Observable<T> toObservableFlattened(Publisher<? extends Iterable<? extends T>> publisher, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return Observable.create(new PublisherAsFlattenedObservable<T>(publisher, prefetch));
+    }
+
+    /**
+     * Convert a Reactive Streams {@link Publisher} into an {@link Iterable} whose {@link java.util.Iterator}s each
+     * subscribe to the publisher and block until its items arrive.
+     * <p/>
+     * Use this method instead of {@code toObservable(publisher).toBlocking().toIterable()} to consume a publisher from
+     * blocking code: the iterator subscribes to the publisher directly, buffers its items in a single-producer
+     * single-consumer queue and requests {@code prefetch} items upfront, then 75% of that amount whenever as many
+     * items have been consumed. An onError of the publisher is thrown by {@code hasNext()} after the items received
+     * before it, wrapped into a {@link RuntimeException} if it is a checked exception. If the consuming thread is
+     * interrupted while waiting, the subscription is cancelled and the {@link InterruptedException} is thrown wrapped.
+     * The iterators don't support {@code remove()}.
+     *
+     * @param <T> the value type
+     * @param publisher the {@link Publisher} to convert
+     * @param prefetch the number of items to request from the publisher upfront, positive
+     * @return the blocking {@link Iterable}
+     * @throws NullPointerException if publisher is null
+     * @throws IllegalArgumentException if prefetch is not positive
+     */
+    public static <T> Iterable<T> toBlockingIterable(Publisher<? extends T> publisher, int prefetch) {
+        if (publisher == null) {
+            throw new NullPointerException("publisher");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new PublisherAsIterable<T>(publisher, prefetch);
     }
 
     /**
@@ -90,7 +622,8 @@ public abstract class RxReactiveStreams {
     
     /**
      * Converst a Publisher into a Completable by ignoring all onNext values and emitting
-     * onError or onComplete only.
+     * onError or onComplete only. If the Publisher was created by {@link #toPublisher(Completable)},
+     * the original Completable is returned.
      * @param publisher the Publisher instance to convert
      * @return the Completable instance
      * @since 1.1
@@ -100,6 +633,9 @@ public abstract class RxReactiveStreams {
         if (publisher == null) {
             throw new NullPointerException("publisher");
         }
+        if (publisher instanceof CompletableAsPublisher) {
+            return ((CompletableAsPublisher<?>)publisher).completable();
+        }
         return Completable.create(new PublisherAsCompletable(publisher));
     }
     
@@ -125,6 +661,7 @@ public abstract class RxReactiveStreams {
      * Publisher signals an onNext+onComplete; or onError if the publisher signals an
      * onError, the source Publisher is empty (NoSuchElementException) or the
      * source Publisher signals more than one onNext (IndexOutOfBoundsException).
+     * If the Publisher was created by {@link #toPublisher(Single)}, the original Single is returned.
      * @param <T> the value type
      * @param publisher the Publisher instance to convert
      * @return the Single instance
@@ -135,6 +672,514 @@ public abstract class RxReactiveStreams {
         if (publisher == null) {
             throw new NullPointerException("publisher");
         }
+        if (publisher instanceof SingleAsPublisher) {
+            return ((SingleAsPublisher<T>)publisher).single();
+        }
         return Single.create(new PublisherAsSingle<T>(publisher));
     }
+
+    /**
+     * Returns the conversions that skip the defensive Reactive Streams rule checks and the RxJava hooks,
+     * for use between libraries known to comply with the specification and the Observable contract,
+     * such as those passing the Reactive Streams TCK.
+     * <p/>
+     * The conversions of this class remain the default: a non-compliant source or consumer connected
+     * through the trusted ones may misbehave instead of being signalled an error.
+     *
+     * @return the trusted conversions
+     * @see Trusted
+     */
+    public static Trusted trusted() {
+        return Trusted.INSTANCE;
+    }
+
+    /**
+     * Returns the conversions whose subscriptions are reported to the {@link BridgeListener} under the given
+     * name, so that conversions of the same kind can be told apart.
+     * <p/>
+     * The listener is asked for the listener of the name via {@link BridgeListener#forName(String)} once
+     * per subscription.
+     *
+     * @param name the name of the conversions
+     * @return the named conversions
+     * @throws NullPointerException if name is null
+     * @see Named
+     */
+    public static Named named(String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        return new Named(name);
+    }
+
+    /**
+     * Registers a listener that is notified of the signals crossing the conversion adapters of this class,
+     * replacing the previous one.
+     * <p/>
+     * The listener is picked up by subscriptions made after this call and is invoked synchronously on the
+     * threads emitting and requesting, so it should be fast and thread-safe, e.g. incrementing counters.
+     * Non-fatal exceptions thrown by the listener are reported to {@code RxJavaHooks.onError} and don't
+     * affect the stream.
+     * <p/>
+     * The Publishers of {@link #toPublisher(Observable, OverflowStrategy, int)},
+     * {@link #toSpillingPublisher(Observable, int, SpillSerializer, File)},
+     * {@link #toBatchedPublisher(Observable, int, long, TimeUnit, Scheduler)} and
+     * {@link #toParallelPublishers(Observable, int, Scheduler, int)} report as
+     * {@link Bridge#OBSERVABLE_TO_PUBLISHER}; the rails additionally report the {@link Bridge#PUBLISHER_TO_OBSERVABLE}
+     * subscriptions they make to the partitions of the source, and {@link #mergeOrdered(List, int)} reports one
+     * {@link Bridge#PUBLISHER_TO_OBSERVABLE} subscription per rail besides its own.
+     * The dedicated Publishers {@link #toPublisher(Observable)} returns for {@code just}, {@code empty},
+     * {@code error}, {@code range} and {@code from}, the Publishers of {@link #toSharedPublisher(Observable, int)}
+     * and {@link #partition(Observable, Func1, int, int)} and the conversions of {@link #trusted()} are not
+     * instrumented. Use {@link #named(String)} to tell conversions of the same kind apart.
+     *
+     * @param listener the listener, null to remove the current one
+     */
+    public static void setBridgeListener(BridgeListener listener) {
+        BridgeHooks.setListener(listener);
+    }
+
+    /**
+     * Returns the listener registered via {@link #setBridgeListener(BridgeListener)}.
+     *
+     * @return the current listener, null if none is registered
+     */
+    public static BridgeListener getBridgeListener() {
+        return BridgeHooks.registered();
+    }
+
+    /**
+     * Conversions between RxJava and Reactive Streams types that trust both sides to comply with their
+     * contracts, obtained via {@link RxReactiveStreams#trusted()}.
+     * <p/>
+     * Compared to the conversions of {@link RxReactiveStreams}, they don't null-check the signals, don't
+     * validate the request amounts (rule §3.9), don't check that the Observable honors backpressure,
+     * bypass the subscribe and create hooks of {@code RxJavaHooks} and the {@code SafeSubscriber} wrapping,
+     * and are not reported to the {@link BridgeListener}. Requests and cancellation are still serialized
+     * towards the Publisher's Subscription, as rule §2.7 requires. Round trips through either kind of
+     * conversion return the original object.
+     */
+    public static final class Trusted {
+
+        static final Trusted INSTANCE = new Trusted();
+
+        private Trusted() {
+        }
+
+        /**
+         * Convert a Rx {@link Observable} that honors backpressure into a Reactive Streams {@link Publisher}
+         * whose subscribers request positive amounts only.
+         * If the observable was created by {@link #toObservable(Publisher)}, the original {@link Publisher} is returned;
+         * the sources having dedicated Publishers in {@link RxReactiveStreams#toPublisher(Observable)} get them here too.
+         *
+         * @param <T> the value type
+         * @param observable the {@link Observable} to convert
+         * @return the converted {@link Publisher}
+         * @throws NullPointerException if observable is null
+         */
+        public <T> Publisher<T> toPublisher(Observable<T> observable) {
+            if (observable == null) {
+                throw new NullPointerException("observable");
+            }
+            Publisher<T> known = knownPublisher(observable);
+            if (known != null) {
+                return known;
+            }
+            return new TrustedPublisherAdapter<T>(observable, observable.onSubscribe);
+        }
+
+        /**
+         * Convert a Reactive Streams {@link Publisher} that complies with the specification into a Rx {@link Observable}.
+         * If the publisher was created by {@link #toPublisher(Observable)}, the original {@link Observable} is returned.
+         *
+         * @param <T> the value type
+         * @param publisher the {@link Publisher} to convert
+         * @return the converted {@link Observable}
+         * @throws NullPointerException if publisher is null
+         */
+        public <T> Observable<T> toObservable(Publisher<T> publisher) {
+            if (publisher == null) {
+                throw new NullPointerException("publisher");
+            }
+            if (publisher instanceof PublisherAdapter) {
+                return ((PublisherAdapter<T>)publisher).observable();
+            }
+            return new Observable<T>(new PublisherAsObservable<T>(publisher, true));
+        }
+
+        /**
+         * Convert an RxJava {@link rx.Subscriber} into a Reactive Streams {@link org.reactivestreams.Subscriber}
+         * to be subscribed to a Publisher that complies with the specification.
+         *
+         * @param <T> the value type
+         * @param rxSubscriber an RxJava subscriber
+         * @return a Reactive Streams subscriber
+         */
+        public <T> org.reactivestreams.Subscriber<T> toSubscriber(rx.Subscriber<T> rxSubscriber) {
+            return new TrustedSubscriberAdapter<T>(rxSubscriber);
+        }
+    }
+
+    /**
+     * Conversions between RxJava and Reactive Streams types reported to the {@link BridgeListener} under a name,
+     * obtained via {@link RxReactiveStreams#named(String)}.
+     * <p/>
+     * They validate the signals as the conversions of {@link RxReactiveStreams} do but always wrap their source,
+     * without the dedicated Publishers and the unwrapping of round trips, so that every subscription through them
+     * crosses an instrumented adapter. Publishers are requested as the Rx Subscriber requests.
+     */
+    public static final class Named {
+
+        final String name;
+
+        Named(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name the conversions report under.
+         * @return the name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Convert a Rx {@link Observable} into a Reactive Streams {@link Publisher}.
+         *
+         * @param <T> the value type
+         * @param observable the {@link Observable} to convert
+         * @return the converted {@link Publisher}
+         * @throws NullPointerException if observable is null
+         */
+        public <T> Publisher<T> toPublisher(Observable<T> observable) {
+            if (observable == null) {
+                throw new NullPointerException("observable");
+            }
+            return new PublisherAdapter<T>(observable, name);
+        }
+
+        /**
+         * Convert a Reactive Streams {@link Publisher} into a Rx {@link Observable}.
+         *
+         * @param <T> the value type
+         * @param publisher the {@link Publisher} to convert
+         * @return the converted {@link Observable}
+         * @throws NullPointerException if publisher is null
+         */
+        public <T> Observable<T> toObservable(Publisher<T> publisher) {
+            if (publisher == null) {
+                throw new NullPointerException("publisher");
+            }
+            return Observable.create(new PublisherAsObservable<T>(publisher, name));
+        }
+
+        /**
+         * Converts a Single into a Publisher which emits an onNext+onComplete if
+         * the source Single signals a non-null onSuccess; or emits an onError if the source signals
+         * onError(Throwable) or the onSuccess value is null.
+         *
+         * @param <T> the value type
+         * @param single the Single instance to convert
+         * @return the Publisher instance
+         * @throws NullPointerException if single is null
+         */
+        public <T> Publisher<T> toPublisher(Single<T> single) {
+            if (single == null) {
+                throw new NullPointerException("single");
+            }
+            return new SingleAsPublisher<T>(single, name);
+        }
+
+        /**
+         * Converts a Publisher into a Single which emits onSuccess if the
+         * Publisher signals an onNext+onComplete; or emits an onError if the Publisher is empty,
+         * signals more than one onNext or signals onError.
+         *
+         * @param <T> the value type
+         * @param publisher the Publisher instance to convert
+         * @return the Single instance
+         * @throws NullPointerException if publisher is null
+         */
+        public <T> Single<T> toSingle(Publisher<T> publisher) {
+            if (publisher == null) {
+                throw new NullPointerException("publisher");
+            }
+            return Single.create(new PublisherAsSingle<T>(publisher, name));
+        }
+
+        /**
+         * Converts a Completable into a Publisher which emits onComplete or onError
+         * depending on the Completable's signal.
+         *
+         * @param <T> the value type
+         * @param completable the Completable instance to convert
+         * @return the Publisher instance
+         * @throws NullPointerException if completable is null
+         */
+        public <T> Publisher<T> toPublisher(Completable completable) {
+            if (completable == null) {
+                throw new NullPointerException("completable");
+            }
+            return new CompletableAsPublisher<T>(completable, name);
+        }
+
+        /**
+         * Converts a Publisher into a Completable which ignores the onNext values and emits
+         * onCompleted or onError depending on the Publisher's terminal signal.
+         *
+         * @param publisher the Publisher instance to convert
+         * @return the Completable instance
+         * @throws NullPointerException if publisher is null
+         */
+        public Completable toCompletable(Publisher<?> publisher) {
+            if (publisher == null) {
+                throw new NullPointerException("publisher");
+            }
+            return Completable.create(new PublisherAsCompletable(publisher, name));
+        }
+    }
+
+    /**
+     * Determines what a Publisher created by {@link #toSharedPublisher(Observable, int, LateSubscriberPolicy)}
+     * does with subscribers arriving after it has emitted its first item.
+     */
+    public enum LateSubscriberPolicy {
+        /** Late subscribers receive the items emitted after they subscribed, and the terminal event. */
+        JOIN,
+        /** Late subscribers are signalled an {@link IllegalStateException}. */
+        REJECT
+    }
+
+    /**
+     * Determines what a Publisher created by {@link #toPublisher(Observable, OverflowStrategy, int)} does when
+     * the observable emits while the buffer of a subscriber is full.
+     */
+    public enum OverflowStrategy {
+        /** Drop the incoming item and terminate the subscriber with a {@link rx.exceptions.MissingBackpressureException}. */
+        BUFFER,
+        /** Drop the incoming item. */
+        DROP_LATEST,
+        /** Drop the oldest buffered item to make room for the incoming one. */
+        DROP_OLDEST,
+        /**
+         * Keep the incoming item aside, dropping the one kept before, and emit it after the buffered items,
+         * so the subscriber always ends up with the most recent item.
+         */
+        LATEST
+    }
+
+    /**
+     * A Publisher created by {@link #toPublisher(Observable, OverflowStrategy, int)} that counts the items its
+     * {@link OverflowStrategy} dropped.
+     *
+     * @param <T> the value type
+     */
+    public interface DroppingPublisher<T> extends Publisher<T> {
+
+        /**
+         * Returns the number of items dropped so far, summed over all subscribers, including the item
+         * {@link OverflowStrategy#BUFFER} failed with.
+         * @return the number of items dropped
+         */
+        long droppedCount();
+    }
+
+    /**
+     * Converts the items a Publisher created by {@link #toSpillingPublisher(Observable, int, SpillSerializer, File, int)}
+     * spills to files to bytes and back. {@link #serialize(Object)} is called on the thread of the observable and
+     * {@link #deserialize(byte[])} on the thread emitting to the subscriber, so the two may run concurrently.
+     *
+     * @param <T> the value type
+     */
+    public interface SpillSerializer<T> {
+
+        /**
+         * Converts an item to bytes.
+         * @param value the item to spill
+         * @return the bytes of the item, not null
+         * @throws IOException if the item can't be converted
+         */
+        byte[] serialize(T value) throws IOException;
+
+        /**
+         * Converts the bytes of an item back.
+         * @param bytes the bytes returned by {@link #serialize(Object)} for the item
+         * @return the item, not null
+         * @throws IOException if the bytes can't be converted
+         */
+        T deserialize(byte[] bytes) throws IOException;
+    }
+
+    /**
+     * An item of a rail created by {@link RxReactiveStreams#toParallelPublishers(Observable, int, Scheduler, int)}
+     * together with its position in the source, which {@link RxReactiveStreams#mergeOrdered(List, int)} restores
+     * the order by.
+     *
+     * @param <T> the value type
+     */
+    public static final class Sequenced<T> {
+
+        private final long sequence;
+
+        private final T value;
+
+        private final boolean skipped;
+
+        /**
+         * Constructs a Sequenced item.
+         * @param sequence the position in the source
+         * @param value the value
+         */
+        public Sequenced(long sequence, T value) {
+            this(sequence, value, false);
+        }
+
+        private Sequenced(long sequence, T value, boolean skipped) {
+            this.sequence = sequence;
+            this.value = value;
+            this.skipped = skipped;
+        }
+
+        /**
+         * Returns the position of the item in the source.
+         * @return the sequence number
+         */
+        public long sequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the value.
+         * @return the value
+         */
+        public T value() {
+            return value;
+        }
+
+        /**
+         * Returns an item with the same sequence number and another value, e.g. the result of transforming this one.
+         * @param <R> the new value type
+         * @param newValue the new value
+         * @return the new item
+         */
+        public <R> Sequenced<R> withValue(R newValue) {
+            return new Sequenced<R>(sequence, newValue);
+        }
+
+        /**
+         * Returns an item with the same sequence number and no value, which {@link RxReactiveStreams#mergeOrdered(List, int)}
+         * consumes without emitting; a rail drops an item by emitting this in its place.
+         * @param <R> the value type of the rail
+         * @return the marker item
+         */
+        public <R> Sequenced<R> skip() {
+            return new Sequenced<R>(sequence, null, true);
+        }
+
+        /**
+         * Returns true if this item was created by {@link #skip()}.
+         * @return true if the item is a marker of a dropped item
+         */
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            if (skipped) {
+                return "Sequenced[" + sequence + ", skipped]";
+            }
+            return "Sequenced[" + sequence + ", " + value + "]";
+        }
+    }
+
+    /**
+     * Identifies the conversion adapter reporting to a {@link BridgeListener}.
+     */
+    public enum Bridge {
+        /** {@link RxReactiveStreams#toPublisher(Observable)}. */
+        OBSERVABLE_TO_PUBLISHER,
+        /** {@link RxReactiveStreams#toObservable(Publisher)} and {@link RxReactiveStreams#toSubscriber(rx.Subscriber)}. */
+        PUBLISHER_TO_OBSERVABLE,
+        /** {@link RxReactiveStreams#toPublisher(Single)}. */
+        SINGLE_TO_PUBLISHER,
+        /** {@link RxReactiveStreams#toSingle(Publisher)}. */
+        PUBLISHER_TO_SINGLE,
+        /** {@link RxReactiveStreams#toPublisher(Completable)}. */
+        COMPLETABLE_TO_PUBLISHER,
+        /** {@link RxReactiveStreams#toCompletable(Publisher)}. */
+        PUBLISHER_TO_COMPLETABLE
+    }
+
+    /**
+     * Receives the Reactive Streams side of every subscription through a conversion adapter: the requests
+     * and cancellation of the {@link org.reactivestreams.Subscription} and the signals of the
+     * {@link org.reactivestreams.Subscriber}. The methods do nothing by default.
+     *
+     * @see RxReactiveStreams#setBridgeListener(BridgeListener)
+     */
+    public abstract static class BridgeListener {
+
+        /**
+         * Returns the listener of the subscriptions through the conversions of {@link RxReactiveStreams#named(String)}
+         * with the given name. Called once per such subscription; returns this listener by default.
+         * @param name the name of the conversion
+         * @return the listener notified of the subscription, null to leave it unobserved
+         */
+        public BridgeListener forName(String name) {
+            return this;
+        }
+
+        /**
+         * Called when a subscription through the bridge starts.
+         * @param bridge the adapter
+         */
+        public void onSubscribe(Bridge bridge) {
+        }
+
+        /**
+         * Called when {@code n} items are requested through the bridge.
+         * @param bridge the adapter
+         * @param n the amount requested
+         */
+        public void onRequest(Bridge bridge, long n) {
+        }
+
+        /**
+         * Called for each item passing the bridge.
+         * @param bridge the adapter
+         */
+        public void onNext(Bridge bridge) {
+        }
+
+        /**
+         * Called for each item dropped by an {@link OverflowStrategy}.
+         * @param bridge the adapter
+         */
+        public void onDrop(Bridge bridge) {
+        }
+
+        /**
+         * Called when a subscription through the bridge is cancelled.
+         * @param bridge the adapter
+         */
+        public void onCancel(Bridge bridge) {
+        }
+
+        /**
+         * Called when an error passes the bridge.
+         * @param bridge the adapter
+         * @param e the error
+         */
+        public void onError(Bridge bridge, Throwable e) {
+        }
+
+        /**
+         * Called when a completion passes the bridge.
+         * @param bridge the adapter
+         */
+        public void onComplete(Bridge bridge) {
+        }
+    }
 }
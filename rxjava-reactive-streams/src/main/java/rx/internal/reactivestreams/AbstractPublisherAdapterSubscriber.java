@@ -0,0 +1,292 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.concurrent.atomic.*;
+
+import rx.RxReactiveStreams.*;
+import rx.internal.operators.BackpressureUtils;
+
+/**
+ * Relays the signals of an Observable to a downstream Subscriber under its backpressure, the state
+ * machine of {@link PublisherAdapter}; subclasses deliver the signals to the Subscriber type they serve
+ * and hand it a Subscription calling {@link #requestMore(long)} and {@link #cancel()}.
+ * <p>
+ * The upstream claims the outstanding request amount in one go and emits from that local
+ * window; requested is only visited again once the window is exhausted. The wip counter is 1
+ * while a signal is being delivered to the Subscriber. An invalid request (rule §3.9)
+ * unsubscribes the upstream right away and signals onError itself if no signal is in
+ * progress; otherwise the signal in progress finds the counter incremented when it ends and
+ * delivers the error, so the error never waits for the upstream to signal again.
+ * <p>
+ * Requests are relayed upstream through a trampoline. A request made from within onNext while the
+ * same thread is relaying one, i.e. by a source emitting from within its producer, is passed
+ * straight through once, which a reentrant-safe producer merely adds to its amount; should the
+ * producer emit again from that nested call, the request is accumulated and relayed by the
+ * outer frame after its call returned. This keeps the stack depth bounded even if the producer
+ * isn't reentrant-safe; requests from other threads meanwhile don't nest and go straight upstream.
+ *
+ * @param <T> the value type
+ */
+public abstract class AbstractPublisherAdapterSubscriber<T> extends rx.Subscriber<T> {
+
+    final BridgeListener listener;
+
+    volatile long requested;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<AbstractPublisherAdapterSubscriber> REQUESTED =
+            AtomicLongFieldUpdater.newUpdater(AbstractPublisherAdapterSubscriber.class, "requested");
+
+    volatile int wip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<AbstractPublisherAdapterSubscriber> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(AbstractPublisherAdapterSubscriber.class, "wip");
+
+    /** The thread relaying a request upstream, null if none. */
+    volatile Thread requestingThread;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<AbstractPublisherAdapterSubscriber, Thread> REQUESTING_THREAD =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractPublisherAdapterSubscriber.class, Thread.class, "requestingThread");
+
+    /** Set while the relaying thread passes a reentrant request straight through, accessed by that thread only. */
+    boolean passing;
+
+    /** Reentrant requests left for the outer frame to relay, accessed by the relaying thread only. */
+    long missedRequested;
+
+    /** Set once the outstanding demand reaches Long.MAX_VALUE, after which requests are no-ops and the window is never used up. */
+    volatile boolean unbounded;
+
+    /** Accessed by the upstream only. */
+    long window;
+
+    /** Set while the upstream delivers a signal, which a reentrant signal then shares; accessed by the upstream only. */
+    boolean emitting;
+
+    volatile boolean done;
+
+    volatile Throwable error;
+
+    protected AbstractPublisherAdapterSubscriber(BridgeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Hands the Subscription to the Subscriber.
+     */
+    protected abstract void deliverSubscription();
+
+    /**
+     * Delivers an item to the Subscriber.
+     * @param t the item
+     */
+    protected abstract void deliverNext(T t);
+
+    /**
+     * Delivers the error to the Subscriber.
+     * @param e the error
+     */
+    protected abstract void deliverError(Throwable e);
+
+    /**
+     * Delivers the completion to the Subscriber.
+     */
+    protected abstract void deliverComplete();
+
+    @Override
+    public final void onStart() {
+        // don't let the upstream run unbounded until the Subscriber requests
+        request(0L);
+        deliverSubscription();
+    }
+
+    /**
+     * Handles a request of the Subscriber; may be called from any thread.
+     * @param n the amount requested, a non-positive amount is signalled as onError (rule §3.9)
+     */
+    public final void requestMore(long n) {
+        if (listener != null) {
+            listener.onRequest(Bridge.OBSERVABLE_TO_PUBLISHER, n);
+        }
+        if (n < 1L) {
+            if (!done) {
+                Throwable ex = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                error = ex;
+                done = true;
+                unsubscribe();
+                if (WIP.getAndIncrement(this) == 0) {
+                    error = null;
+                    signalError(ex);
+                }
+            }
+            return;
+        }
+        if (!done && !unbounded) {
+            if (BackpressureUtils.addCap(BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n), n) == Long.MAX_VALUE) {
+                unbounded = true;
+            }
+            relayRequest(n);
+        }
+    }
+
+    void relayRequest(long n) {
+        Thread current = Thread.currentThread();
+        if (REQUESTING_THREAD.compareAndSet(this, null, current)) {
+            request(n);
+            for (;;) {
+                long r = missedRequested;
+                if (r == 0L) {
+                    break;
+                }
+                missedRequested = 0L;
+                request(r);
+            }
+            REQUESTING_THREAD.lazySet(this, null);
+        } else if (requestingThread == current) {
+            // called from within request(): a reentrant-safe producer only adds the amount
+            // and returns, a naive one emits and gets here again, where the recursion stops
+            if (passing) {
+                missedRequested = BackpressureUtils.addCap(missedRequested, n);
+            } else {
+                passing = true;
+                request(n);
+                passing = false;
+            }
+        } else {
+            // rx.Subscriber.request is thread-safe and a call from another thread doesn't nest
+            request(n);
+        }
+    }
+
+    /**
+     * Handles the cancellation of the Subscriber; may be called from any thread.
+     */
+    public final void cancel() {
+        if (listener != null && !done) {
+            listener.onCancel(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        done = true;
+        unsubscribe();
+    }
+
+    void signalError(Throwable ex) {
+        if (listener != null) {
+            listener.onError(Bridge.OBSERVABLE_TO_PUBLISHER, ex);
+        }
+        deliverError(ex);
+    }
+
+    /**
+     * Delivers the error of an invalid request that arrived while a signal was in progress;
+     * call only with the wip counter held.
+     */
+    void drainError() {
+        Throwable ex = error;
+        if (ex != null) {
+            error = null;
+            signalError(ex);
+        }
+    }
+
+    /**
+     * Takes the wip counter for a signal unless an enclosing signal of the upstream holds it already.
+     * @return true if this call took it, false if it is shared or held by an invalid request
+     */
+    boolean enter() {
+        if (WIP.compareAndSet(this, 0, 1)) {
+            emitting = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases the wip counter taken by {@link #enter()}, delivering a pending error instead if an
+     * invalid request came in meanwhile; stays in possession once terminated.
+     */
+    void exit() {
+        emitting = false;
+        if (done || !WIP.compareAndSet(this, 1, 0)) {
+            drainError();
+        }
+    }
+
+    @Override
+    public final void onNext(T t) {
+        if (done) {
+            return;
+        }
+        boolean outer = false;
+        if (!emitting) {
+            if (!enter()) {
+                // an invalid request is delivering its error
+                return;
+            }
+            outer = true;
+        }
+        long w = window;
+        if (w == 0L) {
+            w = REQUESTED.getAndSet(this, 0L);
+            if (w == 0L) {
+                done = true;
+                unsubscribe();
+                signalError(new IllegalStateException("1.1 source doesn't respect backpressure"));
+                return;
+            }
+        }
+        // an unbounded window is never used up, so it is not counted down
+        if (w != Long.MAX_VALUE) {
+            w--;
+        }
+        window = w;
+
+        if (listener != null) {
+            listener.onNext(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        deliverNext(t);
+
+        if (outer) {
+            exit();
+        }
+    }
+
+    @Override
+    public final void onError(Throwable e) {
+        if (emitting || enter()) {
+            if (done) {
+                drainError();
+                return;
+            }
+            done = true;
+            signalError(e);
+        }
+    }
+
+    @Override
+    public final void onCompleted() {
+        if (emitting || enter()) {
+            if (done) {
+                drainError();
+                return;
+            }
+            done = true;
+            if (listener != null) {
+                listener.onComplete(Bridge.OBSERVABLE_TO_PUBLISHER);
+            }
+            deliverComplete();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import rx.internal.operators.*;
+
+/**
+ * Emits the elements of an array to each Subscriber with a request loop and completes;
+ * used for {@code Observable.from(T[])}. A null element is signalled as NullPointerException.
+ *
+ * @param <T> the value type
+ */
+public final class ArrayAsPublisher<T> implements Publisher<T> {
+
+    static final Field ARRAY = SourceFields.find(OnSubscribeFromArray.class, "array");
+
+    final T[] array;
+
+    public ArrayAsPublisher(T[] array) {
+        this.array = array;
+    }
+
+    /**
+     * Returns the array the given OnSubscribeFromArray emits.
+     * @param <T> the value type
+     * @param source the OnSubscribe of an {@code Observable.from(T[])}
+     * @return the array, not to be modified, null if it can't be read
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T[] arrayOf(OnSubscribeFromArray<T> source) {
+        Object array = SourceFields.read(ARRAY, source);
+        return array instanceof Object[] ? (T[])array : null;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (array.length == 0) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onComplete();
+            return;
+        }
+        s.onSubscribe(new ArraySubscription<T>(s, array));
+    }
+
+    /**
+     * The requested amount doubles as the emission lock: only the caller that moved it away from
+     * zero emits. An invalid request is turned into a cancellation plus a request of one so the
+     * current emitter, or the caller itself, signals the IllegalArgumentException.
+     */
+    static final class ArraySubscription<T> extends AtomicLong implements Subscription {
+        /** */
+        private static final long serialVersionUID = 2340483099434463154L;
+
+        final Subscriber<? super T> actual;
+
+        final T[] array;
+
+        int index;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public ArraySubscription(Subscriber<? super T> actual, T[] array) {
+            this.actual = actual;
+            this.array = array;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                n = 1L;
+            }
+            if (BackpressureUtils.getAndAddRequest(this, n) == 0L) {
+                if (n == Long.MAX_VALUE) {
+                    fastPath();
+                } else {
+                    slowPath(n);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        boolean checkCancelled() {
+            if (cancelled) {
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    actual.onError(ex);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void fastPath() {
+            final Subscriber<? super T> a = actual;
+            final T[] arr = array;
+            final int f = arr.length;
+
+            for (int i = index; i != f; i++) {
+                if (checkCancelled()) {
+                    return;
+                }
+                T v = arr[i];
+                if (v == null) {
+                    a.onError(new NullPointerException("The element at index " + i + " is null"));
+                    return;
+                }
+                a.onNext(v);
+            }
+            if (!checkCancelled()) {
+                a.onComplete();
+            }
+        }
+
+        void slowPath(long r) {
+            final Subscriber<? super T> a = actual;
+            final T[] arr = array;
+            final int f = arr.length;
+            int i = index;
+            long e = 0L;
+
+            for (;;) {
+                while (e != r && i != f) {
+                    if (checkCancelled()) {
+                        return;
+                    }
+                    T v = arr[i];
+                    if (v == null) {
+                        a.onError(new NullPointerException("The element at index " + i + " is null"));
+                        return;
+                    }
+                    a.onNext(v);
+                    i++;
+                    e++;
+                }
+
+                if (i == f) {
+                    if (!checkCancelled()) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    if (checkCancelled()) {
+                        return;
+                    }
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+}
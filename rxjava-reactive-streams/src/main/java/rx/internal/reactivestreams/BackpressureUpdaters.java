@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import rx.internal.operators.BackpressureUtils;
+
+/**
+ * Request accounting for adapters that keep their requested amount in a volatile field updated
+ * through an {@link AtomicLongFieldUpdater} instead of a separate AtomicLong; the field
+ * counterpart of the AtomicLong-based methods of {@link BackpressureUtils}.
+ */
+public final class BackpressureUpdaters {
+
+    private BackpressureUpdaters() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Atomically adds n to the requested field of instance, capping at Long.MAX_VALUE.
+     * @param <T> the type holding the field
+     * @param updater the updater of the requested field
+     * @param instance the instance to update
+     * @param n the amount to add, positive
+     * @return the value before the addition
+     */
+    public static <T> long getAndAddRequest(AtomicLongFieldUpdater<T> updater, T instance, long n) {
+        for (;;) {
+            long r = updater.get(instance);
+            long u = BackpressureUtils.addCap(r, n);
+            if (updater.compareAndSet(instance, r, u)) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Atomically subtracts the number of items produced from the requested field of instance,
+     * unless it is Long.MAX_VALUE, which stands for unbounded demand.
+     * @param <T> the type holding the field
+     * @param updater the updater of the requested field
+     * @param instance the instance to update
+     * @param n the number of items produced, not more than requested
+     * @return the value after the subtraction
+     */
+    public static <T> long produced(AtomicLongFieldUpdater<T> updater, T instance, long n) {
+        for (;;) {
+            long r = updater.get(instance);
+            if (r == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long u = r - n;
+            if (u < 0L) {
+                throw new IllegalStateException("More produced than requested: " + u);
+            }
+            if (updater.compareAndSet(instance, r, u)) {
+                return u;
+            }
+        }
+    }
+}
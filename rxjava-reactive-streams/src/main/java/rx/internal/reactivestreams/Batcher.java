@@ -0,0 +1,255 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.subscriptions.SerialSubscription;
+
+/**
+ * Coalesces the items of an Observable into lists of up to {@code maxSize} items, emitting a list once it is
+ * full or {@code maxDelay} after its first item arrived, whichever comes first.
+ * <p>
+ * Unlike {@code Observable.buffer(timespan, unit, count)}, the lists are emitted only as requested: the source
+ * is requested one list's worth of items upfront and, whenever a list is emitted, as many items as it held, so
+ * the items buffered and outstanding never exceed {@code maxSize}. Without downstream demand a full list stops
+ * the source and a list whose delay expired keeps filling until it is requested. The current list is guarded by
+ * the subscriber's monitor and emitted by a drain loop, as it is filled by the source, flushed by the timer and
+ * requested by the downstream on different threads.
+ *
+ * @param <T> the value type
+ */
+public final class Batcher<T> implements Observable.OnSubscribe<List<T>> {
+
+    final Observable<T> source;
+
+    final int maxSize;
+
+    final long maxDelay;
+
+    final TimeUnit unit;
+
+    final Scheduler scheduler;
+
+    public Batcher(Observable<T> source, int maxSize, long maxDelay, TimeUnit unit, Scheduler scheduler) {
+        this.source = source;
+        this.maxSize = maxSize;
+        this.maxDelay = maxDelay;
+        this.unit = unit;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void call(rx.Subscriber<? super List<T>> child) {
+        Scheduler.Worker worker = scheduler.createWorker();
+        final BatchSubscriber<T> parent = new BatchSubscriber<T>(child, maxSize, maxDelay, unit, worker);
+        child.add(parent);
+        child.add(worker);
+        child.setProducer(new Producer() {
+            @Override
+            public void request(long n) {
+                parent.requestBatches(n);
+            }
+        });
+        source.unsafeSubscribe(parent);
+    }
+
+    static final class BatchSubscriber<T> extends rx.Subscriber<T> {
+
+        final rx.Subscriber<? super List<T>> child;
+
+        final int maxSize;
+
+        final long maxDelay;
+
+        final TimeUnit unit;
+
+        final Scheduler.Worker worker;
+
+        final SerialSubscription timer;
+
+        /** The list being filled, guarded by this. */
+        List<T> buffer;
+
+        /** Incremented whenever the list is emitted, so the timer of an earlier list is ignored; guarded by this. */
+        long index;
+
+        /** Set by the timer of the current list, guarded by this. */
+        boolean flushPending;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<BatchSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(BatchSubscriber.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<BatchSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(BatchSubscriber.class, "wip");
+
+        Throwable error;
+
+        volatile boolean done;
+
+        public BatchSubscriber(rx.Subscriber<? super List<T>> child, int maxSize, long maxDelay, TimeUnit unit,
+                Scheduler.Worker worker) {
+            this.child = child;
+            this.maxSize = maxSize;
+            this.maxDelay = maxDelay;
+            this.unit = unit;
+            this.worker = worker;
+            this.timer = new SerialSubscription();
+            this.buffer = newBuffer();
+            request(maxSize);
+        }
+
+        List<T> newBuffer() {
+            return new ArrayList<T>(Math.min(maxSize, 1024));
+        }
+
+        @Override
+        public void onNext(T t) {
+            final long idx;
+            boolean first;
+            boolean full;
+            synchronized (this) {
+                List<T> b = buffer;
+                b.add(t);
+                int s = b.size();
+                first = s == 1;
+                full = s == maxSize;
+                idx = index;
+            }
+            if (full) {
+                drain();
+            } else if (first) {
+                timer.set(worker.schedule(new Action0() {
+                    @Override
+                    public void call() {
+                        flush(idx);
+                    }
+                }, maxDelay, unit));
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        void flush(long idx) {
+            synchronized (this) {
+                if (index != idx || buffer.isEmpty()) {
+                    return;
+                }
+                flushPending = true;
+            }
+            drain();
+        }
+
+        void requestBatches(long n) {
+            if (n > 0L) {
+                BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        void drainLoop() {
+            int missed = 1;
+            final rx.Subscriber<? super List<T>> a = child;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                for (;;) {
+                    if (a.isUnsubscribed()) {
+                        return;
+                    }
+                    // done is read before the list, so the list of a done source is final
+                    boolean d = done;
+                    if (d) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            synchronized (this) {
+                                buffer.clear();
+                            }
+                            worker.unsubscribe();
+                            a.onError(ex);
+                            return;
+                        }
+                    }
+
+                    List<T> batch = null;
+                    boolean empty;
+                    synchronized (this) {
+                        List<T> b = buffer;
+                        int s = b.size();
+                        empty = s == 0;
+                        if (e != r && (s == maxSize || (!empty && (flushPending || d)))) {
+                            batch = b;
+                            buffer = newBuffer();
+                            flushPending = false;
+                            index++;
+                        }
+                    }
+
+                    if (batch == null) {
+                        if (d && empty) {
+                            worker.unsubscribe();
+                            a.onCompleted();
+                            return;
+                        }
+                        break;
+                    }
+
+                    a.onNext(batch);
+                    e++;
+                    request(batch.size());
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+import org.reactivestreams.*;
+
+import rx.exceptions.*;
+
+/**
+ * An Iterator that is the Subscriber of a Publisher and blocks until its items arrive.
+ * <p>
+ * The Publisher's items go into a single-producer single-consumer queue of {@code prefetch} items, the
+ * consuming thread parks while it is empty and the Publisher is replenished with 75% of the prefetch
+ * whenever as many items have been consumed. An onError of the Publisher is thrown by hasNext after the
+ * items received before it. {@link #cancel()} ends the iteration from any thread.
+ * <p>
+ * The producer publishes each item with a volatile write of {@code produced} before reading
+ * {@code waiter}, while the consumer writes {@code waiter} before reading {@code produced} and
+ * {@code done}, so either the producer sees the parked thread or the consumer sees the item.
+ * <p>
+ * The replenishing of the consumer, the overflow cancellation of the producer and {@link #cancel()} may
+ * run on different threads, so they all reach the Subscription through a {@link RxJavaSynchronizedProducer}
+ * (rule §2.7).
+ *
+ * @param <T> the value type
+ */
+public final class BlockingPublisherIterator<T> implements Iterator<T>, Subscriber<T> {
+
+    final Queue<T> queue;
+
+    final int prefetch;
+
+    final int limit;
+
+    volatile RxJavaSynchronizedProducer upstream;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<BlockingPublisherIterator, RxJavaSynchronizedProducer> UPSTREAM =
+            AtomicReferenceFieldUpdater.newUpdater(BlockingPublisherIterator.class, RxJavaSynchronizedProducer.class, "upstream");
+
+    /** The thread parked in hasNext, null if none. */
+    volatile Thread waiter;
+
+    /** Number of items received, written by the producer only. */
+    volatile long produced;
+
+    /** Number of items taken, accessed by the consumer only. */
+    long taken;
+
+    /** Items taken since the last replenish, accessed by the consumer only. */
+    int consumed;
+
+    volatile boolean done;
+
+    Throwable error;
+
+    volatile int cancelled;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<BlockingPublisherIterator> CANCELLED =
+            AtomicIntegerFieldUpdater.newUpdater(BlockingPublisherIterator.class, "cancelled");
+
+    public BlockingPublisherIterator(int prefetch) {
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.queue = PrefetchQueues.create(prefetch);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (s == null) {
+            throw new NullPointerException("onSubscribe(null)");
+        }
+        if (upstream != null) {
+            s.cancel();
+            return;
+        }
+        RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(s);
+        if (!UPSTREAM.compareAndSet(this, null, sp)) {
+            s.cancel();
+            return;
+        }
+        // cancel() reads upstream after setting cancelled, so one of the two sides unsubscribes
+        if (cancelled != 0) {
+            sp.unsubscribe();
+            return;
+        }
+        sp.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (t == null) {
+            throw new NullPointerException("onNext(null)");
+        }
+        if (!queue.offer(t)) {
+            upstream.unsubscribe();
+            onError(new MissingBackpressureException("Queue is full: the Publisher emitted more than requested"));
+            return;
+        }
+        produced = produced + 1;
+        wakeUp();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (t == null) {
+            throw new NullPointerException("onError(null)");
+        }
+        if (done) {
+            return;
+        }
+        error = t;
+        done = true;
+        wakeUp();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        wakeUp();
+    }
+
+    /**
+     * Cancels the subscription and ends the iteration: hasNext returns false from then on, also in a
+     * thread waiting in it, and the items buffered are dropped. An item a preceding hasNext reported is
+     * still returned by next.
+     */
+    public void cancel() {
+        if (CANCELLED.compareAndSet(this, 0, 1)) {
+            RxJavaSynchronizedProducer sp = upstream;
+            if (sp != null) {
+                sp.unsubscribe();
+            }
+            wakeUp();
+        }
+    }
+
+    void wakeUp() {
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        for (;;) {
+            if (cancelled != 0) {
+                queue.clear();
+                return false;
+            }
+            boolean d = done;
+            boolean empty = queue.isEmpty();
+            if (d && empty) {
+                Throwable ex = error;
+                if (ex != null) {
+                    throw Exceptions.propagate(ex);
+                }
+                return false;
+            }
+            if (!empty) {
+                return true;
+            }
+            waiter = Thread.currentThread();
+            if (!done && cancelled == 0 && produced == taken) {
+                LockSupport.park(this);
+            }
+            waiter = null;
+            if (Thread.interrupted()) {
+                cancel();
+                throw Exceptions.propagate(new InterruptedException());
+            }
+        }
+    }
+
+    @Override
+    public T next() {
+        // an item hasNext has seen is handed out even if cancel() ran in between
+        T v = queue.poll();
+        if (v == null) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            v = queue.poll();
+        }
+        taken++;
+        if (++consumed == limit) {
+            consumed = 0;
+            upstream.request(limit);
+        }
+        return v;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import rx.RxReactiveStreams.Bridge;
+import rx.RxReactiveStreams.BridgeListener;
+import rx.exceptions.Exceptions;
+import rx.plugins.RxJavaHooks;
+
+/**
+ * Holds the {@link BridgeListener} registered via {@code RxReactiveStreams.setBridgeListener}.
+ * <p>
+ * The adapters read it once per subscription and keep it in a field, so an unregistered listener
+ * costs a null check per signal. They are handed a wrapper that routes the non-fatal exceptions of the
+ * listener to {@link RxJavaHooks#onError(Throwable)} so a faulty listener can't break the stream it observes.
+ */
+public final class BridgeHooks {
+
+    private static volatile BridgeListener listener;
+
+    private static volatile BridgeListener guarded;
+
+    private BridgeHooks() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Returns the current listener wrapped for use by the adapters.
+     * @return the guarded current listener, null if none is registered
+     */
+    public static BridgeListener listener() {
+        return guarded;
+    }
+
+    /**
+     * Returns the listener for a subscription of a conversion named via {@code RxReactiveStreams.named},
+     * as given by {@link BridgeListener#forName(String)} of the current listener and wrapped for use by
+     * the adapters.
+     * @param name the name of the conversion, null for an unnamed one
+     * @return the guarded listener, null if none is registered or it doesn't observe the conversion
+     */
+    public static BridgeListener listener(String name) {
+        BridgeListener g = guarded;
+        if (name == null || g == null) {
+            return g;
+        }
+        BridgeListener l = ((GuardedListener)g).actual;
+        BridgeListener forName;
+        try {
+            forName = l.forName(name);
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            RxJavaHooks.onError(ex);
+            return g;
+        }
+        if (forName == l) {
+            return g;
+        }
+        return forName != null ? new GuardedListener(forName) : null;
+    }
+
+    /**
+     * Returns the current listener as registered.
+     * @return the current listener, null if none is registered
+     */
+    public static BridgeListener registered() {
+        return listener;
+    }
+
+    /**
+     * Replaces the current listener.
+     * @param newListener the new listener, null to unregister
+     */
+    public static void setListener(BridgeListener newListener) {
+        guarded = newListener != null ? new GuardedListener(newListener) : null;
+        listener = newListener;
+    }
+
+    /**
+     * Forwards to a listener and reports its non-fatal exceptions to {@link RxJavaHooks#onError(Throwable)}.
+     */
+    static final class GuardedListener extends BridgeListener {
+        final BridgeListener actual;
+
+        GuardedListener(BridgeListener actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Bridge bridge) {
+            try {
+                actual.onSubscribe(bridge);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onRequest(Bridge bridge, long n) {
+            try {
+                actual.onRequest(bridge, n);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onNext(Bridge bridge) {
+            try {
+                actual.onNext(bridge);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onDrop(Bridge bridge) {
+            try {
+                actual.onDrop(bridge);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onCancel(Bridge bridge) {
+            try {
+                actual.onCancel(bridge);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onError(Bridge bridge, Throwable e) {
+            try {
+                actual.onError(bridge, e);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+
+        @Override
+        public void onComplete(Bridge bridge) {
+            try {
+                actual.onComplete(bridge);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                RxJavaHooks.onError(ex);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import rx.*;
+import rx.RxReactiveStreams.*;
 
 /**
  * Wraps a Completable and exposes it as a Publisher.
@@ -31,16 +32,35 @@ public final class CompletableAsPublisher<T> implements Publisher<T> {
     
     final Completable completable;
 
+    final String name;
+
     public CompletableAsPublisher(Completable completable) {
+        this(completable, null);
+    }
+
+    public CompletableAsPublisher(Completable completable, String name) {
         this.completable = completable;
+        this.name = name;
     }
     
+    /**
+     * Returns the wrapped Completable.
+     * @return the wrapped Completable
+     */
+    public Completable completable() {
+        return completable;
+    }
+
     @Override
     public void subscribe(Subscriber<? super T> s) {
         if (s == null) {
             throw new NullPointerException();
         }
-        completable.subscribe(new CompletableAsPublisherSubscriber<T>(s));
+        BridgeListener listener = BridgeHooks.listener(name);
+        if (listener != null) {
+            listener.onSubscribe(Bridge.COMPLETABLE_TO_PUBLISHER);
+        }
+        completable.subscribe(new CompletableAsPublisherSubscriber<T>(s, listener));
     }
     
     static final class CompletableAsPublisherSubscriber<T>
@@ -48,10 +68,13 @@ public final class CompletableAsPublisher<T> implements Publisher<T> {
 
         final Subscriber<? super T> actual;
 
+        final BridgeListener listener;
+
         rx.Subscription d;
         
-        public CompletableAsPublisherSubscriber(Subscriber<? super T> actual) {
+        public CompletableAsPublisherSubscriber(Subscriber<? super T> actual, BridgeListener listener) {
             this.actual = actual;
+            this.listener = listener;
         }
         
         @Override
@@ -62,21 +85,33 @@ public final class CompletableAsPublisher<T> implements Publisher<T> {
         
         @Override
         public void onError(Throwable e) {
+            if (listener != null) {
+                listener.onError(Bridge.COMPLETABLE_TO_PUBLISHER, e);
+            }
             actual.onError(e);
         }
         
         @Override
         public void onCompleted() {
+            if (listener != null) {
+                listener.onComplete(Bridge.COMPLETABLE_TO_PUBLISHER);
+            }
             actual.onComplete();
         }
         
         @Override
         public void request(long n) {
             // No values will be emitted
+            if (listener != null) {
+                listener.onRequest(Bridge.COMPLETABLE_TO_PUBLISHER, n);
+            }
         }
         
         @Override
         public void cancel() {
+            if (listener != null) {
+                listener.onCancel(Bridge.COMPLETABLE_TO_PUBLISHER);
+            }
             d.unsubscribe();
         }
     }
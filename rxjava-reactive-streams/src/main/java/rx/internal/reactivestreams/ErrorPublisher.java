@@ -0,0 +1,72 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import org.reactivestreams.*;
+
+import rx.internal.operators.OnSubscribeThrow;
+
+/**
+ * A Publisher that signals the same Throwable to each Subscriber right after subscription;
+ * used for {@code Observable.error()}.
+ *
+ * @param <T> the value type
+ */
+public final class ErrorPublisher<T> implements Publisher<T> {
+
+    final Throwable error;
+
+    public ErrorPublisher(Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * Returns the Throwable the given OnSubscribeThrow signals, by subscribing to it once; it has no side effects.
+     * @param source the OnSubscribe of an {@code Observable.error()}
+     * @return the Throwable, may be null
+     */
+    public static Throwable errorOf(OnSubscribeThrow<?> source) {
+        ErrorCaptureSubscriber capture = new ErrorCaptureSubscriber();
+        source.call(capture);
+        return capture.error;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        s.onSubscribe(EmptySubscription.INSTANCE);
+        s.onError(error);
+    }
+
+    static final class ErrorCaptureSubscriber extends rx.Subscriber<Object> {
+        Throwable error;
+
+        @Override
+        public void onNext(Object t) {
+            // OnSubscribeThrow never calls it
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onCompleted() {
+            // OnSubscribeThrow never calls it
+        }
+    }
+}
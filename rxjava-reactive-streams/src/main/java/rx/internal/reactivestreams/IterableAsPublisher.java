@@ -0,0 +1,213 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.lang.reflect.Field;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import rx.exceptions.Exceptions;
+import rx.internal.operators.*;
+
+/**
+ * Emits the elements of an Iterable to each Subscriber with a request loop and completes as soon
+ * as the Iterator runs out; used for {@code Observable.from(Iterable)}. Failures of the Iterator
+ * and null elements are signalled as onError.
+ *
+ * @param <T> the value type
+ */
+public final class IterableAsPublisher<T> implements Publisher<T> {
+
+    static final Field ITERABLE = SourceFields.find(OnSubscribeFromIterable.class, "is");
+
+    final Iterable<? extends T> iterable;
+
+    public IterableAsPublisher(Iterable<? extends T> iterable) {
+        this.iterable = iterable;
+    }
+
+    /**
+     * Returns the Iterable the given OnSubscribeFromIterable emits.
+     * @param <T> the value type
+     * @param source the OnSubscribe of an {@code Observable.from(Iterable)}
+     * @return the Iterable, null if it can't be read
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Iterable<? extends T> iterableOf(OnSubscribeFromIterable<T> source) {
+        Object iterable = SourceFields.read(ITERABLE, source);
+        return iterable instanceof Iterable ? (Iterable<? extends T>)iterable : null;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        Iterator<? extends T> it;
+        boolean hasNext;
+        try {
+            it = iterable.iterator();
+            hasNext = it.hasNext();
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onError(ex);
+            return;
+        }
+        if (!hasNext) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onComplete();
+            return;
+        }
+        s.onSubscribe(new IterableSubscription<T>(s, it));
+    }
+
+    /**
+     * Same request accounting as the array variant: the requested amount
+     * is the emission lock and an invalid request cancels and wakes up the emitter.
+     */
+    static final class IterableSubscription<T> extends AtomicLong implements Subscription {
+        /** */
+        private static final long serialVersionUID = -3616196433567008767L;
+
+        final Subscriber<? super T> actual;
+
+        final Iterator<? extends T> it;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public IterableSubscription(Subscriber<? super T> actual, Iterator<? extends T> it) {
+            this.actual = actual;
+            this.it = it;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                n = 1L;
+            }
+            if (BackpressureUtils.getAndAddRequest(this, n) == 0L) {
+                if (n == Long.MAX_VALUE) {
+                    fastPath();
+                } else {
+                    slowPath(n);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        boolean checkCancelled() {
+            if (cancelled) {
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    actual.onError(ex);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Emits the next element and reports whether more follow; signals the terminal event
+         * itself and returns false if the Iterator fails, yields null or runs out.
+         */
+        boolean emitNext() {
+            final Subscriber<? super T> a = actual;
+            final Iterator<? extends T> iterator = it;
+
+            T v;
+            try {
+                v = iterator.next();
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                a.onError(ex);
+                return false;
+            }
+            if (v == null) {
+                a.onError(new NullPointerException("The iterator returned a null element"));
+                return false;
+            }
+
+            a.onNext(v);
+
+            if (checkCancelled()) {
+                return false;
+            }
+
+            boolean hasNext;
+            try {
+                hasNext = iterator.hasNext();
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                a.onError(ex);
+                return false;
+            }
+            if (!hasNext) {
+                a.onComplete();
+                return false;
+            }
+            return true;
+        }
+
+        void fastPath() {
+            for (;;) {
+                if (checkCancelled()) {
+                    return;
+                }
+                if (!emitNext()) {
+                    return;
+                }
+            }
+        }
+
+        void slowPath(long r) {
+            long e = 0L;
+
+            for (;;) {
+                while (e != r) {
+                    if (checkCancelled()) {
+                        return;
+                    }
+                    if (!emitNext()) {
+                        return;
+                    }
+                    e++;
+                }
+
+                r = get();
+                if (e == r) {
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+}
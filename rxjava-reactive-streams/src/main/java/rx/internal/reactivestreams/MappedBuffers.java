@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.lang.reflect.*;
+import java.nio.*;
+
+/**
+ * Releases the mapping of a MappedByteBuffer right away instead of when the buffer is garbage collected.
+ * <p>
+ * Java 9 and later unmap through {@code sun.misc.Unsafe.invokeCleaner}, earlier versions through the
+ * buffer's {@code sun.misc.Cleaner}; both are looked up reflectively and where neither is available the
+ * mapping is left to the garbage collector. The buffer, and every duplicate of it, must not be accessed
+ * after it has been unmapped.
+ */
+public final class MappedBuffers {
+
+    /** The {@code sun.misc.Unsafe} instance, null if INVOKE_CLEANER is. */
+    static final Object UNSAFE;
+
+    /** {@code Unsafe.invokeCleaner(ByteBuffer)}, null before Java 9 or without Unsafe. */
+    static final Method INVOKE_CLEANER;
+
+    /** {@code DirectBuffer.cleaner()} and {@code Cleaner.clean()}, null if INVOKE_CLEANER is used or unavailable. */
+    static final Method CLEANER;
+
+    static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field f = type.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            Method m = type.getMethod("invokeCleaner", ByteBuffer.class);
+            unsafe = f.get(null);
+            invokeCleaner = m;
+        } catch (Exception ex) {
+            // NoSuchMethodException before Java 9, or Unsafe isn't available
+        }
+        Method cleaner = null;
+        Method clean = null;
+        if (invokeCleaner == null) {
+            try {
+                Method m = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                cleaner = m;
+            } catch (Exception ex) {
+                clean = null;
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        CLEANER = cleaner;
+        CLEAN = clean;
+    }
+
+    private MappedBuffers() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Unmaps the buffer if the JVM allows it.
+     * @param buffer the buffer returned by {@code FileChannel.map}, not a duplicate or slice of it
+     * @return true if the mapping was released, false if it is left to the garbage collector
+     */
+    public static boolean unmap(MappedByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            }
+            if (CLEANER != null) {
+                Object c = CLEANER.invoke(buffer);
+                if (c != null) {
+                    CLEAN.invoke(c);
+                    return true;
+                }
+            }
+        } catch (Exception ex) {
+            // left to the garbage collector
+        }
+        return false;
+    }
+}
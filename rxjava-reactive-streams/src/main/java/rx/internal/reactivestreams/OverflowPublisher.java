@@ -0,0 +1,429 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.RxReactiveStreams.*;
+import rx.exceptions.*;
+import rx.functions.Action1;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+
+/**
+ * Exposes an Observable that may not honor backpressure, such as a hot Subject, as a Publisher by
+ * requesting it unbounded and absorbing the excess in a bounded buffer per Subscriber.
+ * <p>
+ * When the buffer is full, {@link OverflowStrategy#BUFFER} terminates the stream with a
+ * MissingBackpressureException, {@link OverflowStrategy#DROP_LATEST} drops the incoming item,
+ * {@link OverflowStrategy#DROP_OLDEST} evicts the oldest buffered item and
+ * {@link OverflowStrategy#LATEST} keeps the incoming item aside, replacing the one kept before, and
+ * emits it once the buffer is drained. Dropped items are counted, handed to the callback and reported to the
+ * {@link BridgeListener}. An onError of the Observable is signalled after the buffered items.
+ *
+ * @param <T> the value type
+ */
+public final class OverflowPublisher<T> implements DroppingPublisher<T> {
+
+    final Observable<T> observable;
+
+    final OverflowStrategy strategy;
+
+    final int capacity;
+
+    final Action1<? super T> onDrop;
+
+    volatile long dropped;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<OverflowPublisher> DROPPED =
+            AtomicLongFieldUpdater.newUpdater(OverflowPublisher.class, "dropped");
+
+    public OverflowPublisher(Observable<T> observable, OverflowStrategy strategy, int capacity, Action1<? super T> onDrop) {
+        this.observable = observable;
+        this.strategy = strategy;
+        this.capacity = capacity;
+        this.onDrop = onDrop;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        BridgeListener listener = BridgeHooks.listener();
+        if (listener != null) {
+            listener.onSubscribe(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        OverflowSubscription<T> parent = new OverflowSubscription<T>(s, this, listener);
+        s.onSubscribe(parent);
+        observable.subscribe(parent.upstream);
+    }
+
+    @Override
+    public long droppedCount() {
+        return dropped;
+    }
+
+    static final class OverflowSubscription<T> implements Subscription {
+
+        final Subscriber<? super T> actual;
+
+        final OverflowPublisher<T> parent;
+
+        final OverflowStrategy strategy;
+
+        final int capacity;
+
+        final Action1<? super T> onDrop;
+
+        final BridgeListener listener;
+
+        final UpstreamSubscriber<T> upstream;
+
+        /** Single-producer single-consumer for all strategies but DROP_OLDEST, which also polls from the producer side. */
+        final Queue<T> queue;
+
+        /**
+         * The number of items in the queue not yet claimed by a poll, maintained for DROP_OLDEST only;
+         * incremented after an offer and decremented before the poll it claims.
+         */
+        volatile int size;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<OverflowSubscription> SIZE =
+                AtomicIntegerFieldUpdater.newUpdater(OverflowSubscription.class, "size");
+
+        /** The item kept aside by LATEST while the buffer is full. */
+        volatile T latest;
+        @SuppressWarnings("rawtypes")
+        static final AtomicReferenceFieldUpdater<OverflowSubscription, Object> LATEST =
+                AtomicReferenceFieldUpdater.newUpdater(OverflowSubscription.class, Object.class, "latest");
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<OverflowSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(OverflowSubscription.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<OverflowSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(OverflowSubscription.class, "wip");
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public OverflowSubscription(Subscriber<? super T> actual, OverflowPublisher<T> parent, BridgeListener listener) {
+            this.actual = actual;
+            this.parent = parent;
+            this.strategy = parent.strategy;
+            this.capacity = parent.capacity;
+            this.onDrop = parent.onDrop;
+            this.listener = listener;
+            if (strategy == OverflowStrategy.DROP_OLDEST) {
+                // room for the incoming item before the oldest is evicted
+                if (UnsafeAccess.isUnsafeAvailable()) {
+                    this.queue = new SpmcArrayQueue<T>(capacity + 1);
+                } else {
+                    this.queue = new ArrayBlockingQueue<T>(capacity + 1);
+                }
+            } else {
+                if (UnsafeAccess.isUnsafeAvailable()) {
+                    this.queue = new SpscArrayQueue<T>(capacity);
+                } else {
+                    this.queue = new SpscAtomicArrayQueue<T>(capacity);
+                }
+            }
+            this.upstream = new UpstreamSubscriber<T>(this);
+        }
+
+        void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (t == null) {
+                upstream.unsubscribe();
+                onError(new NullPointerException("The Observable emitted a null value"));
+                return;
+            }
+            switch (strategy) {
+            case DROP_OLDEST:
+                offerEvictingOldest(t);
+                break;
+            case LATEST:
+                offerOrKeepLatest(t);
+                break;
+            default:
+                // the array queues round the capacity up to a power of 2
+                if (queue.size() >= capacity || !queue.offer(t)) {
+                    dropped(t);
+                    if (strategy == OverflowStrategy.BUFFER) {
+                        upstream.unsubscribe();
+                        onError(new MissingBackpressureException("Buffer of " + capacity + " items is full"));
+                        return;
+                    }
+                }
+            }
+            drain();
+        }
+
+        void offerEvictingOldest(T t) {
+            queue.offer(t);
+            SIZE.getAndIncrement(this);
+            // evict only while more than capacity items are unclaimed, so a concurrent poll of the
+            // Subscriber never makes an eviction superfluous
+            for (;;) {
+                int s = size;
+                if (s <= capacity) {
+                    break;
+                }
+                if (SIZE.compareAndSet(this, s, s - 1)) {
+                    T old = queue.poll();
+                    if (old != null) {
+                        dropped(old);
+                    }
+                }
+            }
+        }
+
+        T pollClaimed() {
+            for (;;) {
+                int s = size;
+                if (s == 0) {
+                    return null;
+                }
+                if (SIZE.compareAndSet(this, s, s - 1)) {
+                    return queue.poll();
+                }
+            }
+        }
+
+        void offerOrKeepLatest(T t) {
+            // once an item is kept aside, newer ones replace it until the Subscriber takes it, so the
+            // queue never receives an item newer than the kept one
+            if (latest == null && queue.size() < capacity && queue.offer(t)) {
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            T old = (T)LATEST.getAndSet(this, t);
+            if (old != null) {
+                dropped(old);
+            }
+        }
+
+        void dropped(T t) {
+            OverflowPublisher.DROPPED.getAndIncrement(parent);
+            if (listener != null) {
+                listener.onDrop(Bridge.OBSERVABLE_TO_PUBLISHER);
+            }
+            if (onDrop != null) {
+                try {
+                    onDrop.call(t);
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    upstream.unsubscribe();
+                    onError(ex);
+                }
+            }
+        }
+
+        void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            error = e;
+            done = true;
+            drain();
+        }
+
+        void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (listener != null) {
+                listener.onRequest(Bridge.OBSERVABLE_TO_PUBLISHER, n);
+            }
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                upstream.unsubscribe();
+                drain();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                if (listener != null) {
+                    listener.onCancel(Bridge.OBSERVABLE_TO_PUBLISHER);
+                }
+                cancelled = true;
+                upstream.unsubscribe();
+                drain();
+            }
+        }
+
+        T poll() {
+            if (strategy == OverflowStrategy.DROP_OLDEST) {
+                return pollClaimed();
+            }
+            T v = queue.poll();
+            if (v != null) {
+                return v;
+            }
+            if (strategy == OverflowStrategy.LATEST) {
+                @SuppressWarnings("unchecked")
+                T latestItem = (T)LATEST.getAndSet(this, null);
+                return latestItem;
+            }
+            return null;
+        }
+
+        boolean isEmpty() {
+            if (strategy == OverflowStrategy.DROP_OLDEST) {
+                return size == 0;
+            }
+            return queue.isEmpty() && latest == null;
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v = poll();
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    if (listener != null) {
+                        listener.onNext(Bridge.OBSERVABLE_TO_PUBLISHER);
+                    }
+                    a.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(done, isEmpty(), a)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+            if (cancelled) {
+                queue.clear();
+                if (strategy == OverflowStrategy.LATEST) {
+                    LATEST.lazySet(this, null);
+                }
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    if (listener != null) {
+                        listener.onError(Bridge.OBSERVABLE_TO_PUBLISHER, ex);
+                    }
+                    a.onError(ex);
+                }
+                return true;
+            }
+            if (d && empty) {
+                cancelled = true;
+                Throwable ex = error;
+                if (ex != null) {
+                    if (listener != null) {
+                        listener.onError(Bridge.OBSERVABLE_TO_PUBLISHER, ex);
+                    }
+                    a.onError(ex);
+                } else {
+                    if (listener != null) {
+                        listener.onComplete(Bridge.OBSERVABLE_TO_PUBLISHER);
+                    }
+                    a.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Requests the Observable unbounded and forwards its signals; a separate object because
+     * {@code rx.Subscriber.request(long)} is final and clashes with {@code Subscription.request(long)}.
+     */
+    static final class UpstreamSubscriber<T> extends rx.Subscriber<T> {
+
+        final OverflowSubscription<T> parent;
+
+        public UpstreamSubscriber(OverflowSubscription<T> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onNext(T t) {
+            parent.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            parent.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Subscribes to an Observable on behalf of several bounded buffers, such as the Subscribers of a shared
+ * Publisher or the partitions of a {@link Partitioner}, and requests from it only as much as the fullest
+ * of the buffers pacing it can still take, minus what is already on its way.
+ * <p>
+ * The subclass counts each item it offers to a buffer before calling {@link #countEmitted()}, and each buffer
+ * reports the items taken via {@link #consumed(int, int, Queue)}; {@link #replenish()} reads the emitted count
+ * before the per-buffer counts, so a concurrent onNext can only make the estimate of the buffered items too
+ * high, never too low.
+ *
+ * @param <T> the value type
+ */
+abstract class PacingSubscriber<T> extends rx.Subscriber<T> {
+
+    final int bufferSize;
+
+    /** The least amount worth a request while some is still outstanding. */
+    final int limit;
+
+    volatile int wip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<PacingSubscriber> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(PacingSubscriber.class, "wip");
+
+    /** Total amount requested from the Observable, written from within replenish only. */
+    volatile long requested;
+
+    /** Number of items received from the Observable, written by the emitting thread only. */
+    volatile long emitted;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<PacingSubscriber> EMITTED =
+            AtomicLongFieldUpdater.newUpdater(PacingSubscriber.class, "emitted");
+
+    /** Set once the Observable is subscribed to; replenish does nothing before. */
+    volatile boolean subscribed;
+
+    PacingSubscriber(int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.limit = Math.max(1, bufferSize >> 2);
+    }
+
+    @Override
+    public void onStart() {
+        request(0L);
+    }
+
+    /**
+     * Returns the number of items in the fullest buffer still pacing the Observable.
+     * @return the number of items buffered, -1 if no buffer paces the Observable
+     */
+    abstract long maxBuffered();
+
+    /**
+     * Called from within replenish when no buffer paces the Observable; does nothing by default.
+     */
+    void unpaced() {
+    }
+
+    /**
+     * Counts an item received from the Observable, called by onNext after offering it to its buffers.
+     * @return the number of items received so far
+     */
+    final long countEmitted() {
+        long e = emitted + 1;
+        EMITTED.lazySet(this, e);
+        return e;
+    }
+
+    /**
+     * Replenishes if the item just counted was the last one requested, called by onNext after draining the
+     * buffers; the buffers replenish only now and then, and possibly before the emitted count was updated.
+     * @param e the count returned by {@link #countEmitted()}
+     */
+    final void replenishIfExhausted(long e) {
+        if (e == requested) {
+            replenish();
+        }
+    }
+
+    /**
+     * Reports items taken from a buffer, replenishing once enough were taken since the last time or when
+     * the buffer ran empty with nothing outstanding. Replenishing after every item would cost two atomics
+     * each; onNext covers the case where nothing is outstanding while the buffer isn't empty.
+     * @param sinceReplenish the items the buffer had taken since it last replenished
+     * @param n the items just taken
+     * @param q the buffer
+     * @return the items taken since the last replenish, to be passed in the next time
+     */
+    final int consumed(int sinceReplenish, int n, Queue<?> q) {
+        int since = sinceReplenish + n;
+        if (since >= limit || (q.isEmpty() && emitted == requested)) {
+            replenish();
+            return 0;
+        }
+        return since;
+    }
+
+    /**
+     * Requests from the Observable what the fullest buffer pacing it can still take, minus what is already
+     * on its way.
+     */
+    final void replenish() {
+        if (!subscribed || WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+
+        for (;;) {
+            long e = emitted;
+            long buffered = maxBuffered();
+            if (buffered < 0L) {
+                unpaced();
+            } else {
+                long outstanding = requested - e;
+                long toRequest = bufferSize - buffered - outstanding;
+                if (toRequest >= limit || (toRequest > 0L && outstanding == 0L)) {
+                    requested += toRequest;
+                    request(toRequest);
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+}
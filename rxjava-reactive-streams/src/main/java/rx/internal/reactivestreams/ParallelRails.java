@@ -0,0 +1,318 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.Publisher;
+
+import rx.Observable;
+import rx.Producer;
+import rx.RxReactiveStreams.Sequenced;
+import rx.Scheduler;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.*;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+import rx.plugins.RxJavaHooks;
+
+/**
+ * Splits an Observable into rails running on Scheduler workers and merges such rails back in order.
+ * <p>
+ * The split numbers the items and deals them out round-robin via a {@link Partitioner}; each rail is
+ * drained onto a worker of its own by a {@link PublisherAsObservable} and exposed through a
+ * {@link PublisherAdapter}, so converting a rail back with {@code toObservable} stays in RxJava. The
+ * merge subscribes to each rail through a {@link SubscriberAdapter} and, as the items of a rail come in
+ * sequence order, emits the lowest head once every rail still running has one: a k-way merge whose
+ * reorder buffer is bounded by the rails' prefetch. A rail can't be told apart from one whose item is
+ * still on its way once it filters an item out, so rails drop items by emitting a skip marker in their
+ * place, which the merge consumes without emitting.
+ */
+public final class ParallelRails {
+
+    private ParallelRails() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Splits the Observable into rails.
+     * @param <T> the value type
+     * @param observable the source, subscribed to once, on the first request of any rail's Subscriber
+     * @param rails the number of rails
+     * @param scheduler the Scheduler each rail gets a worker of
+     * @param bufferSize the number of items buffered per rail
+     * @return the unmodifiable list of the rails
+     */
+    public static <T> List<Publisher<Sequenced<T>>> split(final Observable<T> observable, final int rails,
+            Scheduler scheduler, int bufferSize) {
+        Observable<Sequenced<T>> sequenced = Observable.defer(new Func0<Observable<Sequenced<T>>>() {
+            @Override
+            public Observable<Sequenced<T>> call() {
+                return observable.map(new Func1<T, Sequenced<T>>() {
+                    long sequence;
+
+                    @Override
+                    public Sequenced<T> call(T t) {
+                        return new Sequenced<T>(sequence++, t);
+                    }
+                });
+            }
+        });
+        List<Publisher<Sequenced<T>>> partitions = new Partitioner<Sequenced<T>, Integer>(sequenced, new Func1<Sequenced<T>, Integer>() {
+            @Override
+            public Integer call(Sequenced<T> t) {
+                return (int)(t.sequence() % rails);
+            }
+        }, rails, bufferSize).partitions();
+
+        List<Publisher<Sequenced<T>>> result = new ArrayList<Publisher<Sequenced<T>>>(rails);
+        for (Publisher<Sequenced<T>> p : partitions) {
+            result.add(new PublisherAdapter<Sequenced<T>>(
+                    Observable.create(new PublisherAsObservable<Sequenced<T>>(p, bufferSize, scheduler))));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Merges the rails in sequence order.
+     * @param <T> the value type
+     * @param rails the rails, each emitting in increasing sequence order
+     * @param bufferSize the number of items prefetched per rail
+     * @return the merged Publisher
+     */
+    public static <T> Publisher<T> merge(List<? extends Publisher<Sequenced<T>>> rails, int bufferSize) {
+        return new PublisherAdapter<T>(Observable.create(new OrderedMerge<T>(rails, bufferSize)));
+    }
+
+    static final class OrderedMerge<T> implements Observable.OnSubscribe<T> {
+
+        final List<Publisher<Sequenced<T>>> rails;
+
+        final int bufferSize;
+
+        public OrderedMerge(List<? extends Publisher<Sequenced<T>>> rails, int bufferSize) {
+            this.rails = new ArrayList<Publisher<Sequenced<T>>>(rails);
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void call(rx.Subscriber<? super T> child) {
+            OrderedMergeProducer<T> parent = new OrderedMergeProducer<T>(child, rails.size(), bufferSize);
+            child.setProducer(parent);
+            RailSubscriber<T>[] subscribers = parent.subscribers;
+            for (int i = 0; i < subscribers.length; i++) {
+                if (child.isUnsubscribed()) {
+                    return;
+                }
+                rails.get(i).subscribe(new SubscriberAdapter<Sequenced<T>>(subscribers[i]));
+            }
+        }
+    }
+
+    static final class OrderedMergeProducer<T> implements Producer {
+
+        final rx.Subscriber<? super T> child;
+
+        final RailSubscriber<T>[] subscribers;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<OrderedMergeProducer> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(OrderedMergeProducer.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<OrderedMergeProducer> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(OrderedMergeProducer.class, "wip");
+
+        volatile Throwable error;
+        @SuppressWarnings("rawtypes")
+        static final AtomicReferenceFieldUpdater<OrderedMergeProducer, Throwable> ERROR =
+                AtomicReferenceFieldUpdater.newUpdater(OrderedMergeProducer.class, Throwable.class, "error");
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        public OrderedMergeProducer(rx.Subscriber<? super T> child, int rails, int bufferSize) {
+            this.child = child;
+            this.subscribers = new RailSubscriber[rails];
+            for (int i = 0; i < rails; i++) {
+                RailSubscriber<T> inner = new RailSubscriber<T>(this, bufferSize);
+                subscribers[i] = inner;
+                child.add(inner);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n > 0L) {
+                BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        void onError(Throwable e) {
+            if (ERROR.compareAndSet(this, null, e)) {
+                drain();
+            } else {
+                RxJavaHooks.onError(e);
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        void drainLoop() {
+            int missed = 1;
+            final rx.Subscriber<? super T> a = child;
+            final RailSubscriber<T>[] rails = subscribers;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                for (;;) {
+                    if (a.isUnsubscribed()) {
+                        clear();
+                        return;
+                    }
+                    Throwable ex = error;
+                    if (ex != null) {
+                        cancelAndClear();
+                        a.onError(ex);
+                        return;
+                    }
+
+                    RailSubscriber<T> min = null;
+                    Sequenced<T> minHead = null;
+                    boolean waiting = false;
+                    for (RailSubscriber<T> rail : rails) {
+                        // done is read before peeking, so an empty queue of a done rail is final
+                        boolean d = rail.done;
+                        Sequenced<T> head = rail.queue.peek();
+                        if (head == null) {
+                            if (!d) {
+                                waiting = true;
+                                break;
+                            }
+                        } else if (minHead == null || head.sequence() < minHead.sequence()) {
+                            min = rail;
+                            minHead = head;
+                        }
+                    }
+                    if (waiting) {
+                        break;
+                    }
+                    if (min == null) {
+                        a.onCompleted();
+                        return;
+                    }
+                    if (minHead.isSkipped()) {
+                        min.queue.poll();
+                        min.consumedOne();
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+
+                    min.queue.poll();
+                    a.onNext(minHead.value());
+                    e++;
+                    min.consumedOne();
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void clear() {
+            for (RailSubscriber<T> rail : subscribers) {
+                rail.queue.clear();
+            }
+        }
+
+        void cancelAndClear() {
+            for (RailSubscriber<T> rail : subscribers) {
+                rail.unsubscribe();
+                rail.queue.clear();
+            }
+        }
+    }
+
+    static final class RailSubscriber<T> extends rx.Subscriber<Sequenced<T>> {
+
+        final OrderedMergeProducer<T> parent;
+
+        final Queue<Sequenced<T>> queue;
+
+        final int limit;
+
+        /** Items taken since the last replenish, accessed from within the drain loop only. */
+        int consumed;
+
+        volatile boolean done;
+
+        public RailSubscriber(OrderedMergeProducer<T> parent, int bufferSize) {
+            this.parent = parent;
+            this.limit = bufferSize - (bufferSize >> 2);
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<Sequenced<T>>(bufferSize);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<Sequenced<T>>(bufferSize);
+            }
+            request(bufferSize);
+        }
+
+        @Override
+        public void onNext(Sequenced<T> t) {
+            if (!queue.offer(t)) {
+                unsubscribe();
+                onError(new MissingBackpressureException("The rail emitted more than requested"));
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            done = true;
+            parent.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            parent.drain();
+        }
+
+        void consumedOne() {
+            if (++consumed == limit) {
+                consumed = 0;
+                request(limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.exceptions.*;
+import rx.functions.Func1;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+
+/**
+ * Subscribes to the Observable once, on the first request of any partition's Subscriber, and routes
+ * each item to the partition its key hashes to, so the items of a key stay in order.
+ * <p>
+ * Each partition is a single-Subscriber Publisher with a ring buffer of {@code bufferSize} items. As
+ * any of the items requested may end up in any partition, the Observable is requested only as much
+ * as the fullest buffer can take; a slow partition, or one nobody subscribed to yet, therefore paces
+ * the others. A cancelled partition drops its items and no longer paces the others; once every
+ * partition is cancelled, the Observable is unsubscribed. The terminal event of the Observable, or an
+ * exception thrown by the key selector, reaches every partition after its buffered items.
+ *
+ * @param <T> the value type
+ * @param <K> the key type
+ */
+public final class Partitioner<T, K> extends PacingSubscriber<T> {
+
+    final Observable<T> observable;
+
+    final Func1<? super T, ? extends K> keySelector;
+
+    final Partition<T>[] partitions;
+
+    volatile int connected;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<Partitioner> CONNECTED =
+            AtomicIntegerFieldUpdater.newUpdater(Partitioner.class, "connected");
+
+    volatile boolean done;
+
+    Throwable error;
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public Partitioner(Observable<T> observable, Func1<? super T, ? extends K> keySelector, int partitions, int bufferSize) {
+        super(bufferSize);
+        this.observable = observable;
+        this.keySelector = keySelector;
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition<T>(this);
+        }
+    }
+
+    /**
+     * Returns the partitions, indexed by the hash of their keys.
+     * @return the unmodifiable list of the partitions
+     */
+    public List<Publisher<T>> partitions() {
+        return Collections.unmodifiableList(Arrays.<Publisher<T>>asList(partitions));
+    }
+
+    void connect() {
+        if (connected == 0 && CONNECTED.compareAndSet(this, 0, 1)) {
+            observable.subscribe(this);
+            subscribed = true;
+            replenish();
+        }
+    }
+
+    int partitionOf(K key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % partitions.length;
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (done) {
+            return;
+        }
+        Partition<T> p;
+        try {
+            p = partitions[partitionOf(keySelector.call(t))];
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            unsubscribe();
+            onError(ex);
+            return;
+        }
+        if (!p.cancelled) {
+            if (!p.queue.offer(t)) {
+                unsubscribe();
+                onError(new MissingBackpressureException("The Observable emitted more than requested"));
+                return;
+            }
+            Partition.PRODUCED.lazySet(p, p.produced + 1);
+        }
+        long e = countEmitted();
+        p.drain();
+        replenishIfExhausted(e);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        if (done) {
+            return;
+        }
+        error = e;
+        done = true;
+        terminate();
+    }
+
+    @Override
+    public void onCompleted() {
+        if (done) {
+            return;
+        }
+        done = true;
+        terminate();
+    }
+
+    void terminate() {
+        for (Partition<T> p : partitions) {
+            p.drain();
+        }
+    }
+
+    /**
+     * Only the partitions not cancelled pace the Observable.
+     */
+    @Override
+    long maxBuffered() {
+        long buffered = -1L;
+        for (Partition<T> p : partitions) {
+            if (!p.cancelled) {
+                buffered = Math.max(buffered, p.produced - p.consumed);
+            }
+        }
+        return buffered;
+    }
+
+    /**
+     * Every partition is cancelled.
+     */
+    @Override
+    void unpaced() {
+        unsubscribe();
+    }
+
+    /**
+     * A partition's ring buffer, drained according to the requests of its single Subscriber. The drain
+     * is held until a Subscriber's onSubscribe returns, so the items buffered meanwhile wait for it.
+     */
+    static final class Partition<T> implements Publisher<T>, Subscription {
+
+        final Partitioner<T, ?> parent;
+
+        final Queue<T> queue;
+
+        /** Set before the drain is first released, then accessed from within the drain loop only. */
+        Subscriber<? super T> actual;
+
+        volatile int once;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<Partition> ONCE =
+                AtomicIntegerFieldUpdater.newUpdater(Partition.class, "once");
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<Partition> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(Partition.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<Partition> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(Partition.class, "wip");
+
+        /** Number of items offered to the queue, written by the emitting thread only. */
+        volatile long produced;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<Partition> PRODUCED =
+                AtomicLongFieldUpdater.newUpdater(Partition.class, "produced");
+
+        /** Number of items taken from the queue, written from within the drain loop only. */
+        volatile long consumed;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<Partition> CONSUMED =
+                AtomicLongFieldUpdater.newUpdater(Partition.class, "consumed");
+
+        /** Items taken since the last replenish, accessed from within the drain loop only. */
+        int sinceReplenish;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public Partition(Partitioner<T, ?> parent) {
+            this.parent = parent;
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<T>(parent.bufferSize);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<T>(parent.bufferSize);
+            }
+            this.wip = 1;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> s) {
+            if (s == null) {
+                throw new NullPointerException("subscriber");
+            }
+            if (once != 0 || !ONCE.compareAndSet(this, 0, 1)) {
+                s.onSubscribe(EmptySubscription.INSTANCE);
+                s.onError(new IllegalStateException("A partition allows only a single Subscriber"));
+                return;
+            }
+            actual = s;
+            s.onSubscribe(this);
+            drainLoop();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancel();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            parent.connect();
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.replenish();
+                drain();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        void drainLoop() {
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+            final Queue<T> q = queue;
+            final Partitioner<T, ?> parent = this.parent;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = parent.done;
+                    T v = q.poll();
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    a.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(parent.done, q.isEmpty(), a)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    CONSUMED.lazySet(this, consumed + e);
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                    sinceReplenish = parent.consumed(sinceReplenish, (int)e, q);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+            if (cancelled) {
+                queue.clear();
+                actual = null;
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    a.onError(ex);
+                }
+                return true;
+            }
+            if (d && empty) {
+                cancelled = true;
+                actual = null;
+                Throwable ex = parent.error;
+                if (ex != null) {
+                    a.onError(ex);
+                } else {
+                    a.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.Queue;
+
+import rx.internal.util.atomic.*;
+import rx.internal.util.unsafe.*;
+
+/**
+ * Creates the single-producer single-consumer queues that hold the items prefetched from a Publisher.
+ * <p>
+ * Up to {@link #MAX_ARRAY_PREFETCH} the queue is an array of the prefetch amount, rounded up to a power
+ * of 2; larger amounts, up to {@code Integer.MAX_VALUE}, would make that array huge or overflow the
+ * rounding, so they get an unbounded queue growing in chunks of {@link #CHUNK_SIZE} items instead, the
+ * way {@code observeOn} copes with large buffer sizes. Either way the request accounting of the caller
+ * keeps the number of queued items within the prefetch amount.
+ */
+public final class PrefetchQueues {
+
+    /** The largest prefetch amount served by an array queue. */
+    public static final int MAX_ARRAY_PREFETCH = 1 << 16;
+
+    /** The size of the chunks of the unbounded queue. */
+    public static final int CHUNK_SIZE = 1024;
+
+    private PrefetchQueues() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Returns a queue for the given prefetch amount.
+     * @param <T> the value type
+     * @param prefetch the number of items to hold, positive
+     * @return the queue, bounded by the prefetch amount up to {@link #MAX_ARRAY_PREFETCH}, unbounded above
+     */
+    public static <T> Queue<T> create(int prefetch) {
+        if (prefetch > MAX_ARRAY_PREFETCH) {
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                return new SpscUnboundedArrayQueue<T>(CHUNK_SIZE);
+            }
+            return new SpscUnboundedAtomicArrayQueue<T>(CHUNK_SIZE);
+        }
+        if (UnsafeAccess.isUnsafeAvailable()) {
+            return new SpscArrayQueue<T>(prefetch);
+        }
+        return new SpscAtomicArrayQueue<T>(prefetch);
+    }
+}
@@ -15,95 +15,105 @@
  */
 package rx.internal.reactivestreams;
 
-import java.util.concurrent.atomic.*;
-
 import org.reactivestreams.*;
 
 import rx.Observable;
-import rx.internal.operators.BackpressureUtils;
+import rx.RxReactiveStreams.*;
 
+/**
+ * Exposes an Observable as a Publisher.
+ * <p>
+ * The adapter relies on the source honoring the Observable contract (serialized signals, no more
+ * onNext calls than requested) instead of serializing it; a source that overproduces is
+ * terminated with an IllegalStateException.
+ *
+ * @param <T> the value type
+ */
 public class PublisherAdapter<T> implements Publisher<T> {
 
     private final Observable<T> observable;
 
+    private final String name;
+
     public PublisherAdapter(final Observable<T> observable) {
-        this.observable = observable.serialize();
+        this(observable, null);
+    }
+
+    public PublisherAdapter(final Observable<T> observable, String name) {
+        this.observable = observable;
+        this.name = name;
+    }
+
+    /**
+     * Returns the wrapped Observable.
+     * @return the wrapped Observable
+     */
+    public Observable<T> observable() {
+        return observable;
     }
 
     @Override
     public void subscribe(final Subscriber<? super T> s) {
-        observable.subscribe(new rx.Subscriber<T>() {
-            private final AtomicBoolean done = new AtomicBoolean();
-            private final AtomicLong childRequested = new AtomicLong();
-            private void doRequest(long n) {
-                if (!done.get()) {
-                    BackpressureUtils.getAndAddRequest(childRequested, n);
-                    request(n);
-                }
-            }
-
-            @Override
-            public void onStart() {
-                final AtomicBoolean requested = new AtomicBoolean();
-                s.onSubscribe(new Subscription() {
-                    @Override
-                    public void request(long n) {
-                        if (n < 1) {
-                            unsubscribe();
-                            onError(new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0."));
-                            return;
-                        }
-
-                        requested.set(true);
-                        doRequest(n);
-                    }
-
-                    @Override
-                    public void cancel() {
-                        unsubscribe();
-                        fireDone();
-                    }
-                });
-
-                if (!requested.get()) {
-                    request(0);
-                }
-            }
-
-            boolean fireDone() {
-                return done.compareAndSet(false, true);
-            }
-
-            @Override
-            public void onCompleted() {
-                if (fireDone()) {
-                    s.onComplete();
-                }
-            }
-
-            @Override
-            public void onError(Throwable e) {
-                if (fireDone()) {
-                    s.onError(e);
-                }
-            }
-
-            @Override
-            public void onNext(T t) {
-                if (!done.get()) {
-                    if (childRequested.get() > 0) {
-                        s.onNext(t);
-                        childRequested.decrementAndGet();
-                    } else {
-                        try {
-                            onError(new IllegalStateException("1.1 source doesn't respect backpressure"));
-                        } finally {
-                            unsubscribe();
-                        }
-                    }
-                }
-            }
-        });
+        BridgeListener listener = BridgeHooks.listener(name);
+        if (listener != null) {
+            listener.onSubscribe(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        observable.subscribe(new PublisherAdapterSubscriber<T>(s, listener));
+    }
+
+    /**
+     * Relays the Observable's signals to the Reactive Streams Subscriber.
+     */
+    static final class PublisherAdapterSubscriber<T> extends AbstractPublisherAdapterSubscriber<T> {
+
+        final Subscriber<? super T> actual;
+
+        public PublisherAdapterSubscriber(Subscriber<? super T> actual, BridgeListener listener) {
+            super(listener);
+            this.actual = actual;
+        }
+
+        @Override
+        protected void deliverSubscription() {
+            actual.onSubscribe(new PublisherAdapterSubscription(this));
+        }
+
+        @Override
+        protected void deliverNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        protected void deliverError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        protected void deliverComplete() {
+            actual.onComplete();
+        }
     }
 
+    /**
+     * The Subscription handed to the Subscriber; rx.Subscriber's own request(long) is protected and final,
+     * so it can't be implemented by PublisherAdapterSubscriber itself.
+     */
+    static final class PublisherAdapterSubscription implements Subscription {
+
+        final PublisherAdapterSubscriber<?> parent;
+
+        public PublisherAdapterSubscription(PublisherAdapterSubscriber<?> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            parent.requestMore(n);
+        }
+
+        @Override
+        public void cancel() {
+            parent.cancel();
+        }
+    }
 }
@@ -19,6 +19,7 @@ package rx.internal.reactivestreams;
 import org.reactivestreams.*;
 
 import rx.CompletableSubscriber;
+import rx.RxReactiveStreams.*;
 
 /**
  * Wraps an arbitrary Publisher and exposes it as a Completable, ignoring any onNext events.
@@ -27,46 +28,75 @@ public final class PublisherAsCompletable implements rx.Completable.OnSubscribe
 
     final Publisher<?> publisher;
 
+    final String name;
+
     public PublisherAsCompletable(Publisher<?> publisher) {
+        this(publisher, null);
+    }
+
+    public PublisherAsCompletable(Publisher<?> publisher, String name) {
         this.publisher = publisher;
+        this.name = name;
     }
     
     @Override
     public void call(CompletableSubscriber t) {
-        publisher.subscribe(new PublisherAsCompletableSubscriber(t));
+        publisher.subscribe(new PublisherAsCompletableSubscriber(t, BridgeHooks.listener(name)));
     }
     
     static final class PublisherAsCompletableSubscriber implements Subscriber<Object>, rx.Subscription {
         
         final CompletableSubscriber actual;
 
+        final BridgeListener listener;
+
         Subscription s;
         
         volatile boolean unsubscribed;
         
-        public PublisherAsCompletableSubscriber(CompletableSubscriber actual) {
+        boolean done;
+        
+        public PublisherAsCompletableSubscriber(CompletableSubscriber actual, BridgeListener listener) {
             this.actual = actual;
+            this.listener = listener;
         }
         
         @Override
         public void onSubscribe(Subscription s) {
             this.s = s;
+            if (listener != null) {
+                listener.onSubscribe(Bridge.PUBLISHER_TO_COMPLETABLE);
+            }
             actual.onSubscribe(this);
+            if (listener != null) {
+                listener.onRequest(Bridge.PUBLISHER_TO_COMPLETABLE, Long.MAX_VALUE);
+            }
             s.request(Long.MAX_VALUE);
         }
         
         @Override
         public void onNext(Object t) {
             // values are ignored
+            if (listener != null) {
+                listener.onNext(Bridge.PUBLISHER_TO_COMPLETABLE);
+            }
         }
         
         @Override
         public void onError(Throwable t) {
+            done = true;
+            if (listener != null) {
+                listener.onError(Bridge.PUBLISHER_TO_COMPLETABLE, t);
+            }
             actual.onError(t);
         }
         
         @Override
         public void onComplete() {
+            done = true;
+            if (listener != null) {
+                listener.onComplete(Bridge.PUBLISHER_TO_COMPLETABLE);
+            }
             actual.onCompleted();
         }
         
@@ -79,6 +109,9 @@ public final class PublisherAsCompletable implements rx.Completable.OnSubscribe
         public void unsubscribe() {
             if (!unsubscribed) {
                 unsubscribed = true;
+                if (listener != null && !done) {
+                    listener.onCancel(Bridge.PUBLISHER_TO_COMPLETABLE);
+                }
                 s.cancel();
             }
         }
@@ -0,0 +1,317 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.RxReactiveStreams.*;
+import rx.exceptions.Exceptions;
+
+/**
+ * Wraps a Publisher of chunks and exposes their elements as an Observable.
+ * <p>
+ * The chunks are requested in batches, {@code prefetch} upfront and a replenishing batch each time 75%
+ * of that has been emitted, and queued as they are; the drain loop emits the elements of the chunk at
+ * the head of the queue as the Rx Subscriber requests them. Elements of a {@link RandomAccess} list are
+ * read by index, other chunks through their iterator, so there is no per-element queue. An onError of the
+ * Publisher is signalled after the elements of the chunks received before it.
+ *
+ * @param <T> the element type
+ */
+public final class PublisherAsFlattenedObservable<T> implements Observable.OnSubscribe<T> {
+
+    final Publisher<? extends Iterable<? extends T>> publisher;
+
+    final int prefetch;
+
+    public PublisherAsFlattenedObservable(Publisher<? extends Iterable<? extends T>> publisher, int prefetch) {
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void call(rx.Subscriber<? super T> t) {
+        publisher.subscribe(new FlattenSubscriber<T>(t, prefetch));
+    }
+
+    static final class FlattenSubscriber<T> implements Subscriber<Iterable<? extends T>>, rx.Producer {
+
+        final rx.Subscriber<? super T> actual;
+
+        final int prefetch;
+
+        final BridgeListener listener;
+
+        final int limit;
+
+        final Queue<Iterable<? extends T>> queue;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<FlattenSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(FlattenSubscriber.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<FlattenSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(FlattenSubscriber.class, "wip");
+
+        RxJavaSynchronizedProducer upstream;
+
+        /** The RandomAccess chunk being emitted, accessed from within the drain loop only. */
+        List<? extends T> list;
+
+        /** The index of the next element of list. */
+        int index;
+
+        /** The iterator of the chunk being emitted if it is not a RandomAccess list. */
+        Iterator<? extends T> iterator;
+
+        /** Chunks taken since the last replenish, accessed from within the drain loop only. */
+        int consumed;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        public FlattenSubscriber(rx.Subscriber<? super T> actual, int prefetch) {
+            this.actual = actual;
+            this.prefetch = prefetch;
+            this.listener = BridgeHooks.listener();
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = PrefetchQueues.create(prefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (s == null) {
+                throw new NullPointerException("onSubscribe(null)");
+            }
+            if (upstream != null) {
+                s.cancel();
+                return;
+            }
+            if (listener != null) {
+                listener.onSubscribe(Bridge.PUBLISHER_TO_OBSERVABLE);
+            }
+            RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(s, listener);
+            upstream = sp;
+            actual.add(sp);
+            actual.setProducer(this);
+            sp.request(prefetch);
+        }
+
+        @Override
+        public void onNext(Iterable<? extends T> t) {
+            if (t == null) {
+                throw new NullPointerException("onNext(null)");
+            }
+            if (listener != null) {
+                listener.onNext(Bridge.PUBLISHER_TO_OBSERVABLE);
+            }
+            if (!queue.offer(t)) {
+                upstream.unsubscribe();
+                onError(new IllegalStateException("Queue is full: the Publisher emitted more than requested"));
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (t == null) {
+                throw new NullPointerException("onError(null)");
+            }
+            if (done) {
+                return;
+            }
+            if (listener != null) {
+                listener.onError(Bridge.PUBLISHER_TO_OBSERVABLE, t);
+                upstream.terminated();
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (listener != null) {
+                listener.onComplete(Bridge.PUBLISHER_TO_OBSERVABLE);
+                upstream.terminated();
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n > 0L) {
+                BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drainLoop() {
+            int missed = 1;
+            final rx.Subscriber<? super T> a = actual;
+            final Queue<Iterable<? extends T>> q = queue;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                for (;;) {
+                    if (a.isUnsubscribed()) {
+                        clear();
+                        return;
+                    }
+
+                    List<? extends T> l = list;
+                    Iterator<? extends T> it = iterator;
+                    if (l == null && it == null) {
+                        boolean d = done;
+                        Iterable<? extends T> chunk = q.poll();
+                        boolean empty = chunk == null;
+                        if (d && empty) {
+                            Throwable ex = error;
+                            if (ex != null) {
+                                a.onError(ex);
+                            } else {
+                                a.onCompleted();
+                            }
+                            return;
+                        }
+                        if (empty) {
+                            break;
+                        }
+                        if (++consumed == limit) {
+                            consumed = 0;
+                            upstream.request(limit);
+                        }
+                        if (chunk instanceof RandomAccess && chunk instanceof List) {
+                            l = (List<? extends T>)chunk;
+                            if (l.isEmpty()) {
+                                continue;
+                            }
+                            list = l;
+                            index = 0;
+                        } else {
+                            try {
+                                it = chunk.iterator();
+                                if (!it.hasNext()) {
+                                    continue;
+                                }
+                            } catch (Throwable ex) {
+                                Exceptions.throwIfFatal(ex);
+                                fail(ex, a);
+                                return;
+                            }
+                            iterator = it;
+                        }
+                    }
+
+                    if (e == r) {
+                        break;
+                    }
+
+                    if (l != null) {
+                        int i = index;
+                        int n = l.size();
+                        while (e != r && i != n) {
+                            if (a.isUnsubscribed()) {
+                                clear();
+                                return;
+                            }
+                            a.onNext(l.get(i));
+                            i++;
+                            e++;
+                        }
+                        if (i == n) {
+                            list = null;
+                        } else {
+                            index = i;
+                        }
+                    } else {
+                        for (;;) {
+                            if (a.isUnsubscribed()) {
+                                clear();
+                                return;
+                            }
+                            T v;
+                            boolean hasNext;
+                            try {
+                                v = it.next();
+                            } catch (Throwable ex) {
+                                Exceptions.throwIfFatal(ex);
+                                fail(ex, a);
+                                return;
+                            }
+                            a.onNext(v);
+                            e++;
+                            try {
+                                hasNext = it.hasNext();
+                            } catch (Throwable ex) {
+                                Exceptions.throwIfFatal(ex);
+                                fail(ex, a);
+                                return;
+                            }
+                            if (!hasNext) {
+                                iterator = null;
+                                break;
+                            }
+                            if (e == r) {
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void fail(Throwable ex, rx.Subscriber<? super T> a) {
+            upstream.unsubscribe();
+            clear();
+            a.onError(ex);
+        }
+
+        void clear() {
+            list = null;
+            iterator = null;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.util.Iterator;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * Exposes a Publisher as an Iterable whose Iterators each subscribe to it and block until items arrive,
+ * see {@link BlockingPublisherIterator}.
+ *
+ * @param <T> the value type
+ */
+public final class PublisherAsIterable<T> implements Iterable<T> {
+
+    final Publisher<? extends T> publisher;
+
+    final int prefetch;
+
+    public PublisherAsIterable(Publisher<? extends T> publisher, int prefetch) {
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        BlockingPublisherIterator<T> it = new BlockingPublisherIterator<T>(prefetch);
+        publisher.subscribe(it);
+        return it;
+    }
+}
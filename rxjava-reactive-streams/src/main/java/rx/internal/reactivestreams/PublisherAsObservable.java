@@ -0,0 +1,306 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.RxReactiveStreams.*;
+import rx.functions.Action0;
+
+/**
+ * Wraps a Publisher and exposes it as an Observable.
+ * <p>
+ * With a zero prefetch the requests of the Rx Subscriber are relayed to the Publisher as they come
+ * via {@link SubscriberAdapter}. Otherwise the Publisher is requested in batches: {@code prefetch}
+ * items upfront, then a replenishing batch each time 75% of that has been consumed, independent of
+ * the amounts the Rx Subscriber requests. Items are queued until the Rx Subscriber requests them;
+ * an onError from the Publisher is signalled after the items received before it. With a Scheduler,
+ * the queue is drained on a Worker of it, which makes the Observable an async boundary on its own.
+ *
+ * @param <T> the value type
+ */
+public final class PublisherAsObservable<T> implements Observable.OnSubscribe<T> {
+
+    final Publisher<T> publisher;
+
+    final int prefetch;
+
+    final Scheduler scheduler;
+
+    /** Subscribe through a {@link TrustedSubscriberAdapter}; only used with a zero prefetch. */
+    final boolean trusted;
+
+    /** The name reported to the {@link BridgeListener}; only used with a zero prefetch. */
+    final String name;
+
+    public PublisherAsObservable(Publisher<T> publisher) {
+        this(publisher, 0);
+    }
+
+    public PublisherAsObservable(Publisher<T> publisher, boolean trusted) {
+        this.publisher = publisher;
+        this.prefetch = 0;
+        this.scheduler = null;
+        this.trusted = trusted;
+        this.name = null;
+    }
+
+    public PublisherAsObservable(Publisher<T> publisher, String name) {
+        this.publisher = publisher;
+        this.prefetch = 0;
+        this.scheduler = null;
+        this.trusted = false;
+        this.name = name;
+    }
+
+    public PublisherAsObservable(Publisher<T> publisher, int prefetch) {
+        this(publisher, prefetch, null);
+    }
+
+    public PublisherAsObservable(Publisher<T> publisher, int prefetch, Scheduler scheduler) {
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+        this.scheduler = scheduler;
+        this.trusted = false;
+        this.name = null;
+    }
+
+    /**
+     * Returns the wrapped Publisher.
+     * @return the wrapped Publisher
+     */
+    public Publisher<T> publisher() {
+        return publisher;
+    }
+
+    /**
+     * Returns true if the Observable relays the requests to the Publisher as they come, on no Scheduler,
+     * which makes the Publisher interchangeable with it.
+     * @return true if the Observable adds nothing but the conversion to the Publisher
+     */
+    public boolean isPassThrough() {
+        return prefetch == 0 && scheduler == null;
+    }
+
+    @Override
+    public void call(rx.Subscriber<? super T> t) {
+        if (trusted) {
+            publisher.subscribe(new TrustedSubscriberAdapter<T>(t));
+        } else if (prefetch == 0) {
+            publisher.subscribe(new SubscriberAdapter<T>(t, name));
+        } else if (scheduler == null) {
+            publisher.subscribe(new PublisherAsObservableSubscriber<T>(t, prefetch, null));
+        } else {
+            Scheduler.Worker worker = scheduler.createWorker();
+            t.add(worker);
+            publisher.subscribe(new PublisherAsObservableSubscriber<T>(t, prefetch, worker));
+        }
+    }
+
+    static final class PublisherAsObservableSubscriber<T> implements Subscriber<T>, rx.Producer, Action0 {
+
+        final rx.Subscriber<? super T> actual;
+
+        final int prefetch;
+
+        /** Drains the queue if not null, otherwise the thread that wins the wip does. */
+        final Scheduler.Worker worker;
+
+        final BridgeListener listener;
+
+        final int limit;
+
+        final Queue<T> queue;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<PublisherAsObservableSubscriber> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(PublisherAsObservableSubscriber.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<PublisherAsObservableSubscriber> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PublisherAsObservableSubscriber.class, "wip");
+
+        RxJavaSynchronizedProducer upstream;
+
+        /** Accessed from within the drain loop only. */
+        int consumed;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        public PublisherAsObservableSubscriber(rx.Subscriber<? super T> actual, int prefetch, Scheduler.Worker worker) {
+            this.actual = actual;
+            this.prefetch = prefetch;
+            this.worker = worker;
+            this.listener = BridgeHooks.listener();
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = PrefetchQueues.create(prefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (s == null) {
+                throw new NullPointerException("onSubscribe(null)");
+            }
+            if (upstream != null) {
+                s.cancel();
+                return;
+            }
+            if (listener != null) {
+                listener.onSubscribe(Bridge.PUBLISHER_TO_OBSERVABLE);
+            }
+            RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(s, listener);
+            upstream = sp;
+            actual.add(sp);
+            actual.setProducer(this);
+            sp.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (t == null) {
+                throw new NullPointerException("onNext(null)");
+            }
+            if (listener != null) {
+                listener.onNext(Bridge.PUBLISHER_TO_OBSERVABLE);
+            }
+            if (!queue.offer(t)) {
+                upstream.unsubscribe();
+                onError(new IllegalStateException("Queue is full: the Publisher emitted more than requested"));
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (t == null) {
+                throw new NullPointerException("onError(null)");
+            }
+            if (done) {
+                return;
+            }
+            if (listener != null) {
+                listener.onError(Bridge.PUBLISHER_TO_OBSERVABLE, t);
+                upstream.terminated();
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (listener != null) {
+                listener.onComplete(Bridge.PUBLISHER_TO_OBSERVABLE);
+                upstream.terminated();
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n > 0L) {
+                BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                if (worker == null) {
+                    call();
+                } else {
+                    worker.schedule(this);
+                }
+            }
+        }
+
+        @Override
+        public void call() {
+            int missed = 1;
+            final rx.Subscriber<? super T> a = actual;
+            final Queue<T> q = queue;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v = q.poll();
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    a.onNext(v);
+                    e++;
+
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+
+                if (e == r && checkTerminated(done, q.isEmpty(), a)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, rx.Subscriber<? super T> a) {
+            if (a.isUnsubscribed()) {
+                queue.clear();
+                return true;
+            }
+            if (d && empty) {
+                Throwable ex = error;
+                if (ex != null) {
+                    a.onError(ex);
+                } else {
+                    a.onCompleted();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import rx.*;
+import rx.RxReactiveStreams.*;
 
 /**
  * Wraps a Publisher and exposes it as a Single, signalling NoSuchElementException
@@ -35,19 +36,28 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
     
     final Publisher<T> publisher;
 
+    final String name;
+
     public PublisherAsSingle(Publisher<T> publisher) {
+        this(publisher, null);
+    }
+
+    public PublisherAsSingle(Publisher<T> publisher, String name) {
         this.publisher = publisher;
+        this.name = name;
     }
     
     @Override
     public void call(SingleSubscriber<? super T> t) {
-        publisher.subscribe(new PublisherAsSingleSubscriber<T>(t));
+        publisher.subscribe(new PublisherAsSingleSubscriber<T>(t, BridgeHooks.listener(name)));
     }
     
     static final class PublisherAsSingleSubscriber<T> implements Subscriber<T>, rx.Subscription {
         
         final SingleSubscriber<? super T> actual;
         
+        final BridgeListener listener;
+        
         Subscription s;
         
         T value;
@@ -56,8 +66,9 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
         
         boolean done;
 
-        public PublisherAsSingleSubscriber(SingleSubscriber<? super T> actual) {
+        public PublisherAsSingleSubscriber(SingleSubscriber<? super T> actual, BridgeListener listener) {
             this.actual = actual;
+            this.listener = listener;
         }
         
         @Override
@@ -66,6 +77,10 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
             
             actual.add(this);
             
+            if (listener != null) {
+                listener.onSubscribe(Bridge.PUBLISHER_TO_SINGLE);
+                listener.onRequest(Bridge.PUBLISHER_TO_SINGLE, Long.MAX_VALUE);
+            }
             s.request(Long.MAX_VALUE);
         }
         
@@ -74,9 +89,12 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
             if (done) {
                 return;
             }
+            if (listener != null) {
+                listener.onNext(Bridge.PUBLISHER_TO_SINGLE);
+            }
             if (hasValue) {
                 done = true;
-                s.cancel();
+                cancel();
                 actual.onError(new IndexOutOfBoundsException("The source Publisher emitted multiple values"));
             } else {
                 value = t;
@@ -89,6 +107,10 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
             if (done) {
                 return;
             }
+            done = true;
+            if (listener != null) {
+                listener.onError(Bridge.PUBLISHER_TO_SINGLE, t);
+            }
             actual.onError(t);
         }
         
@@ -97,6 +119,10 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
             if (done) {
                 return;
             }
+            done = true;
+            if (listener != null) {
+                listener.onComplete(Bridge.PUBLISHER_TO_SINGLE);
+            }
             if (hasValue) {
                 T v = value;
                 value = null;
@@ -113,6 +139,17 @@ public final class PublisherAsSingle<T> implements Single.OnSubscribe<T> {
         
         @Override
         public void unsubscribe() {
+            if (done) {
+                s.cancel();
+            } else {
+                cancel();
+            }
+        }
+        
+        void cancel() {
+            if (listener != null) {
+                listener.onCancel(Bridge.PUBLISHER_TO_SINGLE);
+            }
             s.cancel();
         }
     }
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import rx.internal.operators.*;
+
+/**
+ * Emits a range of integers to each Subscriber with a request loop and completes;
+ * used for {@code Observable.range(start, count)}.
+ */
+public final class RangeAsPublisher implements Publisher<Integer> {
+
+    static final Field START = SourceFields.find(OnSubscribeRange.class, "startIndex");
+
+    static final Field END = SourceFields.find(OnSubscribeRange.class, "endIndex");
+
+    /** The first value. */
+    final long start;
+
+    /** One past the last value. */
+    final long end;
+
+    public RangeAsPublisher(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns a Publisher emitting the same values as the given OnSubscribeRange.
+     * @param source the OnSubscribe of an {@code Observable.range()}
+     * @return the Publisher, null if the range can't be read
+     */
+    public static RangeAsPublisher of(OnSubscribeRange source) {
+        Object first = SourceFields.read(START, source);
+        Object last = SourceFields.read(END, source);
+        if (first instanceof Integer && last instanceof Integer) {
+            return new RangeAsPublisher((Integer)first, (Integer)last + 1L);
+        }
+        return null;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Integer> s) {
+        if (start == end) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onComplete();
+            return;
+        }
+        s.onSubscribe(new RangeSubscription(s, start, end));
+    }
+
+    /**
+     * The requested amount doubles as the emission lock: only the caller that moved it away from
+     * zero emits. An invalid request is turned into a cancellation plus a request of one so the
+     * current emitter, or the caller itself, signals the IllegalArgumentException.
+     */
+    static final class RangeSubscription extends AtomicLong implements Subscription {
+        /** */
+        private static final long serialVersionUID = -4310279738929384471L;
+
+        final Subscriber<? super Integer> actual;
+
+        final long end;
+
+        long index;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public RangeSubscription(Subscriber<? super Integer> actual, long start, long end) {
+            this.actual = actual;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                n = 1L;
+            }
+            if (BackpressureUtils.getAndAddRequest(this, n) == 0L) {
+                if (n == Long.MAX_VALUE) {
+                    fastPath();
+                } else {
+                    slowPath(n);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        boolean checkCancelled() {
+            if (cancelled) {
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    actual.onError(ex);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void fastPath() {
+            final Subscriber<? super Integer> a = actual;
+            final long f = end;
+
+            for (long i = index; i != f; i++) {
+                if (checkCancelled()) {
+                    return;
+                }
+                a.onNext((int)i);
+            }
+            if (!checkCancelled()) {
+                a.onComplete();
+            }
+        }
+
+        void slowPath(long r) {
+            final Subscriber<? super Integer> a = actual;
+            final long f = end;
+            long i = index;
+            long e = 0L;
+
+            for (;;) {
+                while (e != r && i != f) {
+                    if (checkCancelled()) {
+                        return;
+                    }
+                    a.onNext((int)i);
+                    i++;
+                    e++;
+                }
+
+                if (i == f) {
+                    if (!checkCancelled()) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    if (checkCancelled()) {
+                        return;
+                    }
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+}
@@ -15,23 +15,53 @@
  */
 package rx.internal.reactivestreams;
 
-import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.reactivestreams.Subscription;
 
+import rx.RxReactiveStreams.*;
+import rx.exceptions.Exceptions;
+import rx.plugins.RxJavaHooks;
+
+/**
+ * Relays requests and the unsubscription of an RxJava Subscriber to a Reactive Streams Subscription,
+ * making sure the Subscription's methods are never invoked concurrently or reentrantly.
+ * <p>
+ * Requests arriving while another thread (or an outer frame) is talking to the Subscription are
+ * accumulated into a single amount and issued by that emitter in one call. The calls reaching the
+ * Subscription are reported to the given {@link BridgeListener} as {@link Bridge#PUBLISHER_TO_OBSERVABLE}.
+ */
 public final class RxJavaSynchronizedProducer implements rx.Producer, rx.Subscription {
     private final Subscription subscription;
+    private final BridgeListener listener;
+    private volatile long missedRequested;
+    private static final AtomicLongFieldUpdater<RxJavaSynchronizedProducer> MISSED_REQUESTED =
+            AtomicLongFieldUpdater.newUpdater(RxJavaSynchronizedProducer.class, "missedRequested");
+    private volatile int wip;
+    private static final AtomicIntegerFieldUpdater<RxJavaSynchronizedProducer> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(RxJavaSynchronizedProducer.class, "wip");
     private volatile boolean unsubscribed;
-    /** Guarded by this. */
-    private boolean emitting;
-    /** Guarded by this. */
-    private List<Long> requests;
-    
+    /** Set once Long.MAX_VALUE has been relayed, after which requests are ignored. */
+    private volatile boolean unbounded;
+    private volatile boolean terminated;
+
     public RxJavaSynchronizedProducer(Subscription subscription) {
+        this(subscription, null);
+    }
+
+    public RxJavaSynchronizedProducer(Subscription subscription, BridgeListener listener) {
         if (subscription == null) {
             throw new NullPointerException("subscription");
         }
         this.subscription = subscription;
+        this.listener = listener;
+    }
+
+    /**
+     * Marks the Publisher as terminated so the unsubscription that follows isn't reported as a cancellation.
+     */
+    public void terminated() {
+        terminated = true;
     }
     @Override
     public boolean isUnsubscribed() {
@@ -39,72 +69,62 @@ public final class RxJavaSynchronizedProducer implements rx.Producer, rx.Subscri
     }
     @Override
     public void request(long n) {
-        if (n > 0 && !unsubscribed) {
-            synchronized (this) {
-                if (unsubscribed) {
-                    return;
-                }
-                if (emitting) {
-                    if (requests == null) {
-                        requests = new ArrayList<Long>(4);
-                    }
-                    requests.add(n);
-                    return;
-                }
-                emitting = true;
-            }
-            boolean skipFinal = false;
-            try {
-                subscription.request(n);
-                for (;;) {
-                    List<Long> list;
-                    synchronized (this) {
-                        list = requests;
-                        requests = null;
-                        if (list == null) {
-                            emitting = false;
-                            skipFinal = true;
-                            return;
-                        }
-                    }
-                    for (Long v : list) {
-                        if (v.longValue() == 0L) {
-                            unsubscribed = true;
-                            subscription.cancel();
-                            skipFinal = true;
-                            return;
-                        } else {
-                            subscription.request(v);
-                        }
-                    }
-                }
-            } finally {
-                if (!skipFinal) {
-                    synchronized (this) {
-                        emitting = false;
-                    }
-                }
-            }
+        if (n > 0 && !unsubscribed && !unbounded) {
+            BackpressureUpdaters.getAndAddRequest(MISSED_REQUESTED, this, n);
+            drain();
         }
     }
     @Override
     public void unsubscribe() {
         if (!unsubscribed) {
-            synchronized (this) {
-                if (unsubscribed) {
-                    return;
+            unsubscribed = true;
+            drain();
+        }
+    }
+    private void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            if (unsubscribed) {
+                // wip is never released so no further calls reach the subscription
+                if (listener != null && !terminated) {
+                    listener.onCancel(Bridge.PUBLISHER_TO_OBSERVABLE);
                 }
-                if (emitting) {
-                    // replace all pending requests with this single cancel indicator
-                    requests = new ArrayList<Long>(4);
-                    requests.add(0L);
+                try {
+                    subscription.cancel();
+                } catch (Throwable ex) {
+                    // cancel must return normally (rule §3.15)
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaHooks.onError(ex);
+                }
+                return;
+            }
+            long r = MISSED_REQUESTED.getAndSet(this, 0L);
+            if (r != 0L) {
+                if (r == Long.MAX_VALUE) {
+                    unbounded = true;
+                }
+                if (listener != null) {
+                    listener.onRequest(Bridge.PUBLISHER_TO_OBSERVABLE, r);
+                }
+                try {
+                    subscription.request(r);
+                } catch (Throwable ex) {
+                    // request must return normally (rule §3.16); wip stays held so no further calls reach
+                    // the broken Subscription, and the producer reports itself unsubscribed
+                    Exceptions.throwIfFatal(ex);
+                    unsubscribed = true;
+                    terminated = true;
+                    RxJavaHooks.onError(ex);
                     return;
                 }
-                emitting = true;
             }
-            unsubscribed = true;
-            subscription.cancel();
-            // no need to leave emitting as this is a terminal state
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
         }
     }
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.*;
+
+/**
+ * A Publisher that emits a single, constant non-null value to each Subscriber on its first request;
+ * used for {@code Observable.just(value)}.
+ *
+ * @param <T> the value type
+ */
+public final class ScalarPublisher<T> implements Publisher<T> {
+
+    final T value;
+
+    public ScalarPublisher(T value) {
+        this.value = value;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        s.onSubscribe(new ScalarSubscription<T>(s, value));
+    }
+
+    static final class ScalarSubscription<T> extends AtomicInteger implements Subscription {
+        /** */
+        private static final long serialVersionUID = -7403829441934802318L;
+
+        static final int FRESH = 0;
+        static final int REQUESTED = 1;
+        static final int CANCELLED = 2;
+
+        final Subscriber<? super T> actual;
+
+        final T value;
+
+        public ScalarSubscription(Subscriber<? super T> actual, T value) {
+            this.actual = actual;
+            this.value = value;
+        }
+
+        @Override
+        public void request(long n) {
+            if (compareAndSet(FRESH, REQUESTED)) {
+                if (n < 1L) {
+                    actual.onError(new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0."));
+                    return;
+                }
+                actual.onNext(value);
+                if (get() != CANCELLED) {
+                    actual.onComplete();
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            set(CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.internal.reactivestreams;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.exceptions.MissingBackpressureException;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+
+/**
+ * A Publisher that subscribes to the Observable once, on the first request of any of its Subscribers,
+ * and multicasts the items to all Subscribers.
+ * <p>
+ * Each Subscriber has a ring buffer of {@code bufferSize} items; the Observable is requested only as
+ * much as the fullest buffer can take, so faster Subscribers may run ahead of the slowest one by at most
+ * {@code bufferSize} items. A Subscriber arriving after the first item was emitted either joins and
+ * receives the items from then on, or is rejected with an IllegalStateException. Subscribers arriving
+ * after termination receive the terminal event (or are rejected if it was preceded by items). Once
+ * every Subscriber of a subscription to the Observable has cancelled, it is unsubscribed, and the next
+ * Subscriber starts over with a new one, like {@code refCount()} does.
+ *
+ * @param <T> the value type
+ */
+public final class SharedPublisher<T> implements Publisher<T> {
+
+    final Observable<T> observable;
+
+    final int bufferSize;
+
+    final boolean rejectLate;
+
+    /** The subscription to the Observable new Subscribers join, replaced once it is disconnected. */
+    volatile SharedSubscriber<T> current;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<SharedPublisher, SharedSubscriber> CURRENT =
+            AtomicReferenceFieldUpdater.newUpdater(SharedPublisher.class, SharedSubscriber.class, "current");
+
+    public SharedPublisher(Observable<T> observable, int bufferSize, boolean rejectLate) {
+        this.observable = observable;
+        this.bufferSize = bufferSize;
+        this.rejectLate = rejectLate;
+        this.current = new SharedSubscriber<T>(observable, bufferSize);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        SharedSubscriber<T> parent;
+        SharedSubscription<T> inner;
+        boolean added;
+        for (;;) {
+            parent = current;
+            inner = new SharedSubscription<T>(s, parent, bufferSize);
+            added = parent.add(inner);
+            if (added || !parent.isDisconnected()) {
+                break;
+            }
+            CURRENT.compareAndSet(this, parent, new SharedSubscriber<T>(observable, bufferSize));
+        }
+        if (rejectLate && parent.started) {
+            parent.remove(inner);
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onError(new IllegalStateException("The shared Publisher has already emitted items and rejects late Subscribers"));
+            return;
+        }
+        s.onSubscribe(inner);
+        inner.drainLoop();
+        if (added) {
+            parent.replenish();
+        }
+    }
+
+    static final class SharedSubscriber<T> extends PacingSubscriber<T> {
+
+        @SuppressWarnings("rawtypes")
+        static final SharedSubscription[] EMPTY = new SharedSubscription[0];
+
+        @SuppressWarnings("rawtypes")
+        static final SharedSubscription[] TERMINATED = new SharedSubscription[0];
+
+        /** Marks a subscription that was unsubscribed because every Subscriber cancelled. */
+        @SuppressWarnings("rawtypes")
+        static final SharedSubscription[] DISCONNECTED = new SharedSubscription[0];
+
+        final Observable<T> observable;
+
+        volatile SharedSubscription<T>[] subscribers;
+        @SuppressWarnings("rawtypes")
+        static final AtomicReferenceFieldUpdater<SharedSubscriber, SharedSubscription[]> SUBSCRIBERS =
+                AtomicReferenceFieldUpdater.newUpdater(SharedSubscriber.class, SharedSubscription[].class, "subscribers");
+
+        volatile boolean started;
+
+        volatile int once;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<SharedSubscriber> ONCE =
+                AtomicIntegerFieldUpdater.newUpdater(SharedSubscriber.class, "once");
+
+        volatile boolean done;
+
+        Throwable error;
+
+        @SuppressWarnings("unchecked")
+        public SharedSubscriber(Observable<T> observable, int bufferSize) {
+            super(bufferSize);
+            this.observable = observable;
+            this.subscribers = EMPTY;
+        }
+
+        void connect() {
+            if (once == 0 && ONCE.compareAndSet(this, 0, 1)) {
+                observable.subscribe(this);
+                subscribed = true;
+                replenish();
+            }
+        }
+
+        boolean isDisconnected() {
+            return subscribers == DISCONNECTED;
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (!started) {
+                started = true;
+            }
+            SharedSubscription<T>[] a = subscribers;
+            for (SharedSubscription<T> inner : a) {
+                if (!inner.queue.offer(t)) {
+                    unsubscribe();
+                    onError(new MissingBackpressureException("The Observable emitted more than requested"));
+                    return;
+                }
+                SharedSubscription.PRODUCED.lazySet(inner, inner.produced + 1);
+            }
+            long e = countEmitted();
+            for (SharedSubscription<T> inner : a) {
+                inner.drain();
+            }
+            replenishIfExhausted(e);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            error = e;
+            done = true;
+            terminate();
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+            done = true;
+            terminate();
+        }
+
+        @SuppressWarnings("unchecked")
+        void terminate() {
+            for (;;) {
+                SharedSubscription<T>[] a = subscribers;
+                if (a == DISCONNECTED) {
+                    return;
+                }
+                if (SUBSCRIBERS.compareAndSet(this, a, TERMINATED)) {
+                    for (SharedSubscription<T> inner : a) {
+                        inner.drain();
+                    }
+                    return;
+                }
+            }
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        boolean add(SharedSubscription<T> inner) {
+            for (;;) {
+                SharedSubscription<T>[] a = subscribers;
+                if (a == TERMINATED || a == DISCONNECTED) {
+                    return false;
+                }
+                int n = a.length;
+                SharedSubscription<T>[] b = new SharedSubscription[n + 1];
+                System.arraycopy(a, 0, b, 0, n);
+                b[n] = inner;
+                if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Removes the Subscriber and, if it was the last one of a connected subscription,
+         * unsubscribes from the Observable.
+         */
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        void remove(SharedSubscription<T> inner) {
+            for (;;) {
+                SharedSubscription<T>[] a = subscribers;
+                int n = a.length;
+                int j = -1;
+                for (int i = 0; i < n; i++) {
+                    if (a[i] == inner) {
+                        j = i;
+                        break;
+                    }
+                }
+                if (j < 0) {
+                    return;
+                }
+                SharedSubscription<T>[] b;
+                if (n == 1) {
+                    b = once != 0 ? DISCONNECTED : EMPTY;
+                } else {
+                    b = new SharedSubscription[n - 1];
+                    System.arraycopy(a, 0, b, 0, j);
+                    System.arraycopy(a, j + 1, b, j, n - j - 1);
+                }
+                if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+                    if (b == DISCONNECTED) {
+                        unsubscribe();
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        long maxBuffered() {
+            long buffered = -1L;
+            for (SharedSubscription<T> inner : subscribers) {
+                buffered = Math.max(buffered, inner.produced - inner.consumed);
+            }
+            return buffered;
+        }
+    }
+
+    /**
+     * The per-Subscriber ring buffer, drained according to the Subscriber's own requests. The drain
+     * is held by the subscribing thread until onSubscribe returns, so nothing is signalled before it.
+     */
+    static final class SharedSubscription<T> implements Subscription {
+
+        final Subscriber<? super T> actual;
+
+        final SharedSubscriber<T> parent;
+
+        final Queue<T> queue;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<SharedSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(SharedSubscription.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<SharedSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(SharedSubscription.class, "wip");
+
+        /** Number of items offered to the queue, written by the emitting thread only. */
+        volatile long produced;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<SharedSubscription> PRODUCED =
+                AtomicLongFieldUpdater.newUpdater(SharedSubscription.class, "produced");
+
+        /** Number of items taken from the queue, written from within the drain loop only. */
+        volatile long consumed;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<SharedSubscription> CONSUMED =
+                AtomicLongFieldUpdater.newUpdater(SharedSubscription.class, "consumed");
+
+        /** Items taken since the last replenish, accessed from within the drain loop only. */
+        int sinceReplenish;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public SharedSubscription(Subscriber<? super T> actual, SharedSubscriber<T> parent, int bufferSize) {
+            this.actual = actual;
+            this.parent = parent;
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<T>(bufferSize);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<T>(bufferSize);
+            }
+            this.wip = 1;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancel();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            parent.connect();
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.remove(this);
+                parent.replenish();
+                drain();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        void drainLoop() {
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+            final Queue<T> q = queue;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = parent.done;
+                    T v = q.poll();
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty, a, parent)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    a.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(parent.done, q.isEmpty(), a, parent)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    CONSUMED.lazySet(this, consumed + e);
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                    sinceReplenish = parent.consumed(sinceReplenish, (int)e, q);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a, SharedSubscriber<T> parent) {
+            if (cancelled) {
+                queue.clear();
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    a.onError(ex);
+                }
+                return true;
+            }
+            if (d && empty) {
+                cancelled = true;
+                Throwable ex = parent.error;
+                if (ex != null) {
+                    a.onError(ex);
+                } else {
+                    a.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -21,8 +21,9 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import rx.Single;
 import rx.SingleSubscriber;
+import rx.RxReactiveStreams.*;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Wraps a Single and exposes it as a Publisher.
@@ -33,13 +34,32 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
 
     final Single<T> single;
 
+    final String name;
+
     public SingleAsPublisher(Single<T> single) {
+        this(single, null);
+    }
+
+    public SingleAsPublisher(Single<T> single, String name) {
         this.single = single;
+        this.name = name;
+    }
+
+    /**
+     * Returns the wrapped Single.
+     * @return the wrapped Single
+     */
+    public Single<T> single() {
+        return single;
     }
 
     @Override
     public void subscribe(Subscriber<? super T> s) {
-        SingleAsPublisherSubscriber<T> parent = new SingleAsPublisherSubscriber<T>(s);
+        BridgeListener listener = BridgeHooks.listener(name);
+        if (listener != null) {
+            listener.onSubscribe(Bridge.SINGLE_TO_PUBLISHER);
+        }
+        SingleAsPublisherSubscriber<T> parent = new SingleAsPublisherSubscriber<T>(s, listener);
         s.onSubscribe(parent);
 
         single.subscribe(parent);
@@ -50,7 +70,12 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
 
         final Subscriber<? super T> actual;
 
-        final AtomicInteger state;
+        final BridgeListener listener;
+
+        volatile int state;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<SingleAsPublisherSubscriber> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(SingleAsPublisherSubscriber.class, "state");
 
         T value;
 
@@ -61,9 +86,9 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
         static final int HAS_REQUEST_NO_VALUE = 2;
         static final int HAS_REQUEST_HAS_VALUE = 3;
 
-        public SingleAsPublisherSubscriber(Subscriber<? super T> actual) {
+        public SingleAsPublisherSubscriber(Subscriber<? super T> actual, BridgeListener listener) {
             this.actual = actual;
-            this.state = new AtomicInteger();
+            this.listener = listener;
         }
 
         @Override
@@ -72,25 +97,22 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
                 return;
             }
             if (value == null) {
-                state.lazySet(HAS_REQUEST_HAS_VALUE);
-                actual.onError(new NullPointerException("value"));
+                STATE.lazySet(this, HAS_REQUEST_HAS_VALUE);
+                signalError(new NullPointerException("value"));
                 return;
             }
             for (;;) {
-                int s = state.get();
+                int s = state;
 
                 if (s == NO_REQUEST_HAS_VALUE || s == HAS_REQUEST_HAS_VALUE || cancelled) {
                     break;
                 } else
                 if (s == HAS_REQUEST_NO_VALUE) {
-                    actual.onNext(value);
-                    if (!cancelled) {
-                        actual.onComplete();
-                    }
+                    emit(value);
                     return;
                 } else {
                     this.value = value;
-                    if (state.compareAndSet(s, NO_REQUEST_HAS_VALUE)) {
+                    if (STATE.compareAndSet(this, s, NO_REQUEST_HAS_VALUE)) {
                         break;
                     }
                 }
@@ -102,31 +124,51 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
             if (cancelled) {
                 return;
             }
-            state.lazySet(HAS_REQUEST_HAS_VALUE);
+            STATE.lazySet(this, HAS_REQUEST_HAS_VALUE);
+            signalError(error);
+        }
+
+        void signalError(Throwable error) {
+            if (listener != null) {
+                listener.onError(Bridge.SINGLE_TO_PUBLISHER, error);
+            }
             actual.onError(error);
         }
 
+        void emit(T v) {
+            if (listener != null) {
+                listener.onNext(Bridge.SINGLE_TO_PUBLISHER);
+            }
+            actual.onNext(v);
+            if (!cancelled) {
+                if (listener != null) {
+                    listener.onComplete(Bridge.SINGLE_TO_PUBLISHER);
+                }
+                actual.onComplete();
+            }
+        }
+
         @Override
         public void request(long n) {
+            if (listener != null) {
+                listener.onRequest(Bridge.SINGLE_TO_PUBLISHER, n);
+            }
             if (n > 0) {
                 for (;;) {
-                    int s = state.get();
+                    int s = state;
                     if (s == HAS_REQUEST_HAS_VALUE || s == HAS_REQUEST_NO_VALUE || cancelled) {
                         break;
                     }
                     if (s == NO_REQUEST_HAS_VALUE) {
-                        if (state.compareAndSet(s, HAS_REQUEST_HAS_VALUE)) {
+                        if (STATE.compareAndSet(this, s, HAS_REQUEST_HAS_VALUE)) {
                             T v = value;
                             value = null;
 
-                            actual.onNext(v);
-                            if (!cancelled) {
-                                actual.onComplete();
-                            }
+                            emit(v);
                         }
                         break;
                     }
-                    if (state.compareAndSet(NO_REQUEST_NO_VALUE, HAS_REQUEST_NO_VALUE)) {
+                    if (STATE.compareAndSet(this, NO_REQUEST_NO_VALUE, HAS_REQUEST_NO_VALUE)) {
                         break;
                     }
                 }
@@ -136,8 +178,11 @@ public final class SingleAsPublisher<T> implements Publisher<T> {
         @Override
         public void cancel() {
             if (!cancelled) {
+                if (listener != null) {
+                    listener.onCancel(Bridge.SINGLE_TO_PUBLISHER);
+                }
                 cancelled = true;
-                if (state.getAndSet(HAS_REQUEST_HAS_VALUE) == NO_REQUEST_HAS_VALUE) {
+                if (STATE.getAndSet(this, HAS_REQUEST_HAS_VALUE) == NO_REQUEST_HAS_VALUE) {
                     value = null;
                 }
                 unsubscribe();
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads the state of RxJava's source operators reflectively so {@code toPublisher} can emit straight
+ * from the underlying data.
+ * <p>
+ * A field that is missing in the RxJava version on the classpath, or that can't be made accessible
+ * (a security manager, a module boundary), is looked up as null and every read of it returns null,
+ * so the caller falls back to the generic adapter.
+ */
+final class SourceFields {
+
+    private SourceFields() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    static Field find(Class<?> type, String name) {
+        try {
+            Field f = type.getDeclaredField(name);
+            f.setAccessible(true);
+            return f;
+        } catch (Exception ex) {
+            // NoSuchFieldException, SecurityException or Java 9's InaccessibleObjectException
+            return null;
+        }
+    }
+
+    static Object read(Field field, Object source) {
+        if (field == null) {
+            return null;
+        }
+        try {
+            return field.get(source);
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+    }
+}
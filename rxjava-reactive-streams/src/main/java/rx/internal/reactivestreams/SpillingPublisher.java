@@ -0,0 +1,493 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.RxReactiveStreams.*;
+import rx.exceptions.Exceptions;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.internal.util.unsafe.*;
+
+/**
+ * Exposes an Observable that may not honor backpressure as a Publisher by requesting it unbounded and
+ * buffering what the Subscriber hasn't requested yet in memory, up to {@code capacity} items, and beyond
+ * that in memory-mapped segment files.
+ * <p>
+ * Items go into the in-memory queue as long as nothing is spilled, otherwise they are serialized and
+ * appended to the current segment as a length-prefixed record; a record that doesn't fit is preceded by
+ * an end marker (when there is room for one) and goes into a new segment. The drain loop takes from the
+ * queue first and then replays the spilled records, unmapping and deleting each segment once it has been
+ * read through, so the queue only holds items older than the spilled ones. The spilled records are published
+ * to the drain loop by the {@code written} counter; the drain loop reads it before polling the queue, as the
+ * Observable can only have added to the queue in the meantime if nothing was spilled. Every remaining
+ * segment is deleted on termination and cancellation.
+ *
+ * @param <T> the value type
+ */
+public final class SpillingPublisher<T> implements Publisher<T> {
+
+    final Observable<T> observable;
+
+    final int capacity;
+
+    final SpillSerializer<T> serializer;
+
+    final File directory;
+
+    final int segmentSize;
+
+    public SpillingPublisher(Observable<T> observable, int capacity, SpillSerializer<T> serializer, File directory,
+            int segmentSize) {
+        this.observable = observable;
+        this.capacity = capacity;
+        this.serializer = serializer;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        if (s == null) {
+            throw new NullPointerException("subscriber");
+        }
+        BridgeListener listener = BridgeHooks.listener();
+        if (listener != null) {
+            listener.onSubscribe(Bridge.OBSERVABLE_TO_PUBLISHER);
+        }
+        SpillingSubscription<T> parent = new SpillingSubscription<T>(s, this, listener);
+        s.onSubscribe(parent);
+        observable.subscribe(parent.upstream);
+    }
+
+    /**
+     * A segment file and its mapping, written by the Observable's thread and read through a duplicate of
+     * the buffer by the drain loop.
+     */
+    static final class Segment {
+
+        final File file;
+
+        final MappedByteBuffer buffer;
+
+        public Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    static final class SpillingSubscription<T> implements Subscription {
+
+        /** Marks the end of the records of a segment. */
+        static final int END_OF_SEGMENT = -1;
+
+        final Subscriber<? super T> actual;
+
+        final int capacity;
+
+        final SpillSerializer<T> serializer;
+
+        final File directory;
+
+        final int segmentSize;
+
+        final BridgeListener listener;
+
+        final UpstreamSubscriber<T> upstream;
+
+        final Queue<T> queue;
+
+        /** The segments not taken by the drain loop yet, in the order they were created. */
+        final Queue<Segment> segments;
+
+        /** Every segment not deleted yet; guarded by itself, as is {@link #closed}. */
+        final List<Segment> files;
+
+        boolean closed;
+
+        /** The buffer records are appended to, accessed by the Observable's thread only. */
+        ByteBuffer writeBuffer;
+
+        /** The segment being replayed, accessed from within the drain loop only. */
+        Segment readSegment;
+
+        /** The read position within readSegment, accessed from within the drain loop only. */
+        ByteBuffer readBuffer;
+
+        /** The number of records spilled, written by the Observable's thread only. */
+        volatile long written;
+
+        /** The number of records replayed, written from within the drain loop only. */
+        volatile long read;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<SpillingSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(SpillingSubscription.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<SpillingSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(SpillingSubscription.class, "wip");
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        Throwable invalidRequest;
+
+        public SpillingSubscription(Subscriber<? super T> actual, SpillingPublisher<T> parent, BridgeListener listener) {
+            this.actual = actual;
+            this.capacity = parent.capacity;
+            this.serializer = parent.serializer;
+            this.directory = parent.directory;
+            this.segmentSize = parent.segmentSize;
+            this.listener = listener;
+            if (UnsafeAccess.isUnsafeAvailable()) {
+                this.queue = new SpscArrayQueue<T>(capacity);
+            } else {
+                this.queue = new SpscAtomicArrayQueue<T>(capacity);
+            }
+            this.segments = new ConcurrentLinkedQueue<Segment>();
+            this.files = new ArrayList<Segment>();
+            this.upstream = new UpstreamSubscriber<T>(this);
+        }
+
+        void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (t == null) {
+                upstream.unsubscribe();
+                onError(new NullPointerException("The Observable emitted a null value"));
+                return;
+            }
+            // the array queues round the capacity up to a power of 2
+            if (written != read || queue.size() >= capacity || !queue.offer(t)) {
+                try {
+                    spill(t);
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    upstream.unsubscribe();
+                    onError(ex);
+                    return;
+                }
+            }
+            drain();
+        }
+
+        void spill(T t) throws IOException {
+            byte[] bytes = serializer.serialize(t);
+            if (bytes == null) {
+                throw new NullPointerException("The serializer returned null");
+            }
+            int length = 4 + bytes.length;
+            ByteBuffer b = writeBuffer;
+            if (b == null || b.remaining() < length) {
+                if (b != null && b.remaining() >= 4) {
+                    b.putInt(END_OF_SEGMENT);
+                }
+                b = newSegment(Math.max(segmentSize, length));
+                writeBuffer = b;
+            }
+            b.putInt(bytes.length);
+            b.put(bytes);
+            written = written + 1;
+        }
+
+        ByteBuffer newSegment(int size) throws IOException {
+            File f = File.createTempFile("rx-spill-", ".seg", directory);
+            MappedByteBuffer buffer;
+            RandomAccessFile raf = new RandomAccessFile(f, "rw");
+            try {
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            } catch (IOException ex) {
+                raf.close();
+                f.delete();
+                throw ex;
+            }
+            // the mapping stays valid after the file is closed
+            raf.close();
+            Segment s = new Segment(f, buffer);
+            synchronized (files) {
+                if (closed) {
+                    f.delete();
+                } else {
+                    files.add(s);
+                }
+            }
+            segments.offer(s);
+            return buffer;
+        }
+
+        void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            error = e;
+            done = true;
+            drain();
+        }
+
+        void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (listener != null) {
+                listener.onRequest(Bridge.OBSERVABLE_TO_PUBLISHER, n);
+            }
+            if (n < 1L) {
+                if (cancelled) {
+                    return;
+                }
+                invalidRequest = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+                cancelled = true;
+                upstream.unsubscribe();
+                drain();
+                return;
+            }
+            BackpressureUpdaters.getAndAddRequest(REQUESTED, this, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                if (listener != null) {
+                    listener.onCancel(Bridge.OBSERVABLE_TO_PUBLISHER);
+                }
+                cancelled = true;
+                upstream.unsubscribe();
+                drain();
+            }
+        }
+
+        /**
+         * Takes the next item from the queue or, once that is empty, from the spilled records.
+         * @return the next item or null if there is none yet
+         * @throws IOException if the serializer fails to read a record
+         */
+        T poll() throws IOException {
+            long w = written;
+            T v = queue.poll();
+            if (v != null) {
+                return v;
+            }
+            long r = read;
+            if (w == r) {
+                return null;
+            }
+            ByteBuffer b = readBuffer;
+            for (;;) {
+                if (b == null) {
+                    readSegment = segments.poll();
+                    b = readSegment.buffer.duplicate();
+                    // the duplicate starts at the write position of the original
+                    b.clear();
+                    readBuffer = b;
+                }
+                if (b.remaining() >= 4) {
+                    int length = b.getInt();
+                    if (length != END_OF_SEGMENT) {
+                        byte[] bytes = new byte[length];
+                        b.get(bytes);
+                        read = r + 1;
+                        return serializer.deserialize(bytes);
+                    }
+                }
+                delete(readSegment);
+                readSegment = null;
+                readBuffer = null;
+                b = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty() && written == read;
+        }
+
+        /**
+         * Unmaps and deletes a segment the drain loop has read through; the Observable has moved on to
+         * a newer segment by then, so nothing accesses the mapping anymore.
+         */
+        void delete(Segment s) {
+            synchronized (files) {
+                files.remove(s);
+            }
+            MappedBuffers.unmap(s.buffer);
+            s.file.delete();
+        }
+
+        /**
+         * Deletes every remaining segment and unmaps them if the Observable has terminated; after a
+         * cancellation it may still be appending to the current segment, so the mappings are left to
+         * the garbage collector then.
+         */
+        void deleteAll() {
+            boolean unmap = done;
+            readSegment = null;
+            readBuffer = null;
+            List<Segment> list;
+            synchronized (files) {
+                closed = true;
+                list = new ArrayList<Segment>(files);
+                files.clear();
+            }
+            for (Segment s : list) {
+                if (unmap) {
+                    MappedBuffers.unmap(s.buffer);
+                }
+                s.file.delete();
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v;
+                    try {
+                        v = poll();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        upstream.unsubscribe();
+                        fail(ex, a);
+                        return;
+                    }
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    if (listener != null) {
+                        listener.onNext(Bridge.OBSERVABLE_TO_PUBLISHER);
+                    }
+                    a.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(done, isEmpty(), a)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    BackpressureUpdaters.produced(REQUESTED, this, e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+            if (cancelled) {
+                queue.clear();
+                deleteAll();
+                Throwable ex = invalidRequest;
+                if (ex != null) {
+                    invalidRequest = null;
+                    if (listener != null) {
+                        listener.onError(Bridge.OBSERVABLE_TO_PUBLISHER, ex);
+                    }
+                    a.onError(ex);
+                }
+                return true;
+            }
+            if (d && empty) {
+                Throwable ex = error;
+                if (ex != null) {
+                    fail(ex, a);
+                } else {
+                    cancelled = true;
+                    deleteAll();
+                    if (listener != null) {
+                        listener.onComplete(Bridge.OBSERVABLE_TO_PUBLISHER);
+                    }
+                    a.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void fail(Throwable ex, Subscriber<? super T> a) {
+            cancelled = true;
+            queue.clear();
+            deleteAll();
+            if (listener != null) {
+                listener.onError(Bridge.OBSERVABLE_TO_PUBLISHER, ex);
+            }
+            a.onError(ex);
+        }
+    }
+
+    /**
+     * Requests the Observable unbounded and forwards its signals; a separate object because
+     * {@code rx.Subscriber.request(long)} is final and clashes with {@code Subscription.request(long)}.
+     */
+    static final class UpstreamSubscriber<T> extends rx.Subscriber<T> {
+
+        final SpillingSubscription<T> parent;
+
+        public UpstreamSubscriber(SpillingSubscription<T> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onNext(T t) {
+            parent.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            parent.onCompleted();
+        }
+    }
+}
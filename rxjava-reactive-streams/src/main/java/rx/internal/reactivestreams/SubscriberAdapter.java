@@ -15,17 +15,42 @@
  */
 package rx.internal.reactivestreams;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.reactivestreams.*;
 
+import rx.RxReactiveStreams.*;
+
+/**
+ * Exposes an RxJava Subscriber as a Reactive Streams Subscriber.
+ * <p>
+ * The requests and unsubscription of the RxJava Subscriber are relayed to the Subscription by a
+ * {@link RxJavaSynchronizedProducer}; the first onSubscribe wins a CAS and only then allocates it,
+ * any later Subscription is cancelled (rule §2.5).
+ *
+ * @param <T> the value type
+ */
 public class SubscriberAdapter<T> implements Subscriber<T> {
 
     private final rx.Subscriber<? super T> rxSubscriber;
-    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final BridgeListener listener;
+
+    private volatile int subscribed;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<SubscriberAdapter> SUBSCRIBED =
+            AtomicIntegerFieldUpdater.newUpdater(SubscriberAdapter.class, "subscribed");
+
+    /** Written by the winning onSubscribe, read by the terminal signals that follow it (rule §1.3). */
+    private RxJavaSynchronizedProducer producer;
 
     public SubscriberAdapter(rx.Subscriber<? super T> rxSubscriber) {
+        this(rxSubscriber, null);
+    }
+
+    public SubscriberAdapter(rx.Subscriber<? super T> rxSubscriber, String name) {
         this.rxSubscriber = rxSubscriber;
+        this.listener = BridgeHooks.listener(name);
     }
 
     @Override
@@ -34,8 +59,12 @@ public class SubscriberAdapter<T> implements Subscriber<T> {
             throw new NullPointerException("onSubscribe(null)");
         }
 
-        if (started.compareAndSet(false, true)) {
-            RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rsSubscription);
+        if (SUBSCRIBED.compareAndSet(this, 0, 1)) {
+            RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rsSubscription, listener);
+            producer = sp;
+            if (listener != null) {
+                listener.onSubscribe(Bridge.PUBLISHER_TO_OBSERVABLE);
+            }
             rxSubscriber.add(sp);
             rxSubscriber.setProducer(sp);
         } else {
@@ -48,6 +77,9 @@ public class SubscriberAdapter<T> implements Subscriber<T> {
         if (t == null) {
             throw new NullPointerException("onNext(null)");
         }
+        if (listener != null) {
+            listener.onNext(Bridge.PUBLISHER_TO_OBSERVABLE);
+        }
         rxSubscriber.onNext(t);
     }
 
@@ -56,11 +88,26 @@ public class SubscriberAdapter<T> implements Subscriber<T> {
         if (t == null) {
             throw new NullPointerException("onError(null)");
         }
+        if (listener != null) {
+            listener.onError(Bridge.PUBLISHER_TO_OBSERVABLE, t);
+            terminated();
+        }
         rxSubscriber.onError(t);
     }
 
     @Override
     public void onComplete() {
+        if (listener != null) {
+            listener.onComplete(Bridge.PUBLISHER_TO_OBSERVABLE);
+            terminated();
+        }
         rxSubscriber.onCompleted();
     }
+
+    private void terminated() {
+        RxJavaSynchronizedProducer sp = producer;
+        if (sp != null) {
+            sp.terminated();
+        }
+    }
 }
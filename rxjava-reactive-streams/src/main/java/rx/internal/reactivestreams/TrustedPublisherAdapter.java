@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import org.reactivestreams.*;
+
+import rx.Observable;
+import rx.exceptions.Exceptions;
+
+/**
+ * Exposes an Observable as a Publisher without the defensive checks of {@link PublisherAdapter}.
+ * <p>
+ * The OnSubscribe is called directly, bypassing the subscribe hooks and the SafeSubscriber of
+ * {@link Observable#subscribe(rx.Subscriber)}, and the signals are relayed as they come: the source is
+ * trusted to honor backpressure and the Subscriber to request positive amounts and not to request
+ * reentrantly in an unbounded way. Invalid requests reach the producer as they are.
+ *
+ * @param <T> the value type
+ */
+public final class TrustedPublisherAdapter<T> extends PublisherAdapter<T> {
+
+    private final Observable.OnSubscribe<T> onSubscribe;
+
+    public TrustedPublisherAdapter(Observable<T> observable, Observable.OnSubscribe<T> onSubscribe) {
+        super(observable);
+        this.onSubscribe = onSubscribe;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        TrustedPublisherAdapterSubscriber<T> parent = new TrustedPublisherAdapterSubscriber<T>(s);
+        parent.onStart();
+        try {
+            onSubscribe.call(parent);
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            parent.onError(ex);
+        }
+    }
+
+    static final class TrustedPublisherAdapterSubscriber<T> extends rx.Subscriber<T> {
+
+        final Subscriber<? super T> actual;
+
+        public TrustedPublisherAdapterSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onStart() {
+            // don't let the upstream run unbounded until the Subscriber requests
+            request(0L);
+            actual.onSubscribe(new TrustedSubscription(this));
+        }
+
+        void requestMore(long n) {
+            request(n);
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            unsubscribe();
+            actual.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            unsubscribe();
+            actual.onComplete();
+        }
+    }
+
+    static final class TrustedSubscription implements Subscription {
+
+        final TrustedPublisherAdapterSubscriber<?> parent;
+
+        public TrustedSubscription(TrustedPublisherAdapterSubscriber<?> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            parent.requestMore(n);
+        }
+
+        @Override
+        public void cancel() {
+            parent.unsubscribe();
+        }
+    }
+}
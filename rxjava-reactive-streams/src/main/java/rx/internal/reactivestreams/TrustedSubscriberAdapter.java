@@ -0,0 +1,60 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.internal.reactivestreams;
+
+import org.reactivestreams.*;
+
+import rx.RxReactiveStreams.BridgeListener;
+
+/**
+ * Exposes an RxJava Subscriber as a Reactive Streams Subscriber without the defensive checks of
+ * {@link SubscriberAdapter}: the Publisher is trusted to call onSubscribe once and not to signal nulls.
+ * <p>
+ * The requests and unsubscription of the RxJava Subscriber are still serialized towards the Subscription,
+ * as rule §2.7 requires, but not reported to the {@link BridgeListener}.
+ *
+ * @param <T> the value type
+ */
+public final class TrustedSubscriberAdapter<T> implements Subscriber<T> {
+
+    private final rx.Subscriber<? super T> rxSubscriber;
+
+    public TrustedSubscriberAdapter(rx.Subscriber<? super T> rxSubscriber) {
+        this.rxSubscriber = rxSubscriber;
+    }
+
+    @Override
+    public void onSubscribe(Subscription rsSubscription) {
+        RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rsSubscription);
+        rxSubscriber.add(sp);
+        rxSubscriber.setProducer(sp);
+    }
+
+    @Override
+    public void onNext(T t) {
+        rxSubscriber.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        rxSubscriber.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        rxSubscriber.onCompleted();
+    }
+}
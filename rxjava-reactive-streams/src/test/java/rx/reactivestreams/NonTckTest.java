@@ -170,4 +170,43 @@ public class NonTckTest {
         assertEquals(1, rxs.received.size());
         assertNotNull(rxs.error);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void invalidRequestFromOnNextSignalsErrorAfterCurrentItem() {
+        RsSubscriber<Integer> subscriber = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.request(0);
+            }
+        };
+        toPublisher(Observable.range(1, 10)).subscribe(subscriber);
+
+        subscriber.subscription.request(5);
+
+        assertEquals(1, subscriber.received.size());
+        assertFalse(subscriber.complete);
+        assertEquals(subscriber.error.getClass(), IllegalArgumentException.class);
+    }
+
+    @Test
+    public void invalidRequestWhileSourceIsIdleSignalsErrorRightAway() {
+        PublishSubject<Integer> source = PublishSubject.create();
+        RsSubscriber<Integer> subscriber = subscribe(source);
+
+        subscriber.subscription.request(5);
+        source.onNext(1);
+
+        // the source still has demand left and may never signal again
+        subscriber.subscription.request(0);
+
+        assertEquals(1, subscriber.received.size());
+        assertEquals(subscriber.error.getClass(), IllegalArgumentException.class);
+        assertFalse(source.hasObservers());
+
+        source.onNext(2);
+        source.onCompleted();
+        assertEquals(1, subscriber.received.size());
+        assertFalse(subscriber.complete);
+    }
+}
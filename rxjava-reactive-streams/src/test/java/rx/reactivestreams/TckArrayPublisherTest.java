@@ -0,0 +1,51 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rx.reactivestreams;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+
+@Test
+public class TckArrayPublisherTest extends PublisherVerification<Long> {
+
+    public TckArrayPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        Long[] array = new Long[(int)elements];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (long)i;
+        }
+        return RxReactiveStreams.toPublisher(Observable.from(array));
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 1024L;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        return null;
+    }
+
+}
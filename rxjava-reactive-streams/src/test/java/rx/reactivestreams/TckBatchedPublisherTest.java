@@ -0,0 +1,55 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.functions.Func1;
+import rx.reactivestreams.test.CountdownIterable;
+import rx.schedulers.Schedulers;
+
+@Test
+public class TckBatchedPublisherTest extends PublisherVerification<List<Long>> {
+
+    public TckBatchedPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<List<Long>> createPublisher(long elements) {
+        // every item is doubled so each list is filled by two of them
+        Observable<Long> pairs = Observable.from(new CountdownIterable(elements)).concatMap(new Func1<Long, Observable<Long>>() {
+            @Override
+            public Observable<Long> call(Long v) {
+                return Observable.just(v, v);
+            }
+        });
+        return RxReactiveStreams.toBatchedPublisher(pairs, 2, 1, TimeUnit.HOURS, Schedulers.computation());
+    }
+
+    @Override
+    public Publisher<List<Long>> createFailedPublisher() {
+        return RxReactiveStreams.toBatchedPublisher(Observable.<Long>error(new RuntimeException("TCK failure")),
+                2, 1, TimeUnit.HOURS, Schedulers.computation());
+    }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams;
+
+import java.util.*;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.Observable;
+import rx.RxReactiveStreams.Sequenced;
+import rx.functions.Func1;
+
+/**
+ * Covers {@link RxReactiveStreams#mergeOrdered(List, int)} over two interleaved rails.
+ */
+@Test
+public class TckMergeOrderedPublisherTest extends PublisherVerification<Long> {
+
+    public TckMergeOrderedPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    static Publisher<Sequenced<Long>> rail(long elements, final int parity) {
+        return RxReactiveStreams.toPublisher(Observable.range(0, (int)elements).filter(new Func1<Integer, Boolean>() {
+            @Override
+            public Boolean call(Integer v) {
+                return v % 2 == parity;
+            }
+        }).map(new Func1<Integer, Sequenced<Long>>() {
+            @Override
+            public Sequenced<Long> call(Integer v) {
+                return new Sequenced<Long>(v, v.longValue());
+            }
+        }));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        return RxReactiveStreams.mergeOrdered(Arrays.asList(rail(elements, 0), rail(elements, 1)), 16);
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        return RxReactiveStreams.mergeOrdered(Collections.singletonList(
+                RxReactiveStreams.toPublisher(Observable.<Sequenced<Long>>error(new RuntimeException("Can't subscribe subscriber")))), 16);
+    }
+
+}
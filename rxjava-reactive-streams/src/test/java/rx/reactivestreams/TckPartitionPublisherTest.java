@@ -0,0 +1,50 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.functions.Func1;
+import rx.reactivestreams.test.CountdownIterable;
+
+@Test
+public class TckPartitionPublisherTest extends PublisherVerification<Long> {
+
+    public TckPartitionPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        return RxReactiveStreams.partition(Observable.from(new CountdownIterable(elements)), new Func1<Long, Long>() {
+            @Override
+            public Long call(Long v) {
+                return v;
+            }
+        }, 1, 16).get(0);
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        // Null because the Observable is only subscribed to on the first request,
+        // so a failing Observable is not signalled to a Subscriber that doesn't request
+        return null;
+    }
+
+}
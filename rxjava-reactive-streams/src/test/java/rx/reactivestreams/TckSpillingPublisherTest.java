@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.RxReactiveStreams.SpillSerializer;
+import rx.reactivestreams.test.CountdownIterable;
+
+@Test
+public class TckSpillingPublisherTest extends PublisherVerification<Long> {
+
+    static final SpillSerializer<Long> LONG_SERIALIZER = new SpillSerializer<Long>() {
+        @Override
+        public byte[] serialize(Long value) {
+            return ByteBuffer.allocate(8).putLong(value).array();
+        }
+
+        @Override
+        public Long deserialize(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+
+    public TckSpillingPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        // most of the items are spilled, over several segments
+        return RxReactiveStreams.toSpillingPublisher(Observable.from(new CountdownIterable(elements)), 16, LONG_SERIALIZER,
+                null, 1024);
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 1024L;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        return RxReactiveStreams.toSpillingPublisher(Observable.<Long>error(new IOException()), 16, LONG_SERIALIZER, null);
+    }
+
+}
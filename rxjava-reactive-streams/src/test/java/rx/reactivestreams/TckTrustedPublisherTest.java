@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.*;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import rx.*;
+import rx.functions.Func1;
+
+/**
+ * Covers {@link RxReactiveStreams.Trusted#toPublisher(Observable)}, which leaves the validation of request amounts out.
+ */
+@Test
+public class TckTrustedPublisherTest extends PublisherVerification<Long> {
+
+    public TckTrustedPublisherTest() {
+        super(new TestEnvironment(300L));
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        return RxReactiveStreams.trusted().toPublisher(Observable.range(0, (int)elements).map(new Func1<Integer, Long>() {
+            @Override
+            public Long call(Integer v) {
+                return v.longValue();
+            }
+        }));
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        return null;
+    }
+
+    @Override
+    public void required_spec309_requestZeroMustSignalIllegalArgumentException() throws Throwable {
+        throw new SkipException("Request amounts are not validated in trusted mode");
+    }
+
+    @Override
+    public void required_spec309_requestNegativeNumberMustSignalIllegalArgumentException() throws Throwable {
+        throw new SkipException("Request amounts are not validated in trusted mode");
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.*;
+import rx.subjects.PublishSubject;
+
+public class BatchedPublisherTest {
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toBatchedPublisher((Observable<Integer>)null, 16, 1, TimeUnit.SECONDS, Schedulers.computation());
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void unitNullCheck() {
+        toBatchedPublisher(Observable.just(1), 16, 1, null, Schedulers.computation());
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void schedulerNullCheck() {
+        toBatchedPublisher(Observable.just(1), 16, 1, TimeUnit.SECONDS, null);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void maxSizeCheck() {
+        toBatchedPublisher(Observable.just(1), 0, 1, TimeUnit.SECONDS, Schedulers.computation());
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void maxDelayCheck() {
+        toBatchedPublisher(Observable.just(1), 16, 0, TimeUnit.SECONDS, Schedulers.computation());
+    }
+
+    @Test
+    public void fullListsThenPartialOnCompletion() {
+        Publisher<List<Integer>> p = toBatchedPublisher(Observable.range(1, 10), 4, 1, TimeUnit.HOURS, new TestScheduler());
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(
+                Arrays.asList(1, 2, 3, 4), Arrays.asList(5, 6, 7, 8), Arrays.asList(9, 10)));
+    }
+
+    @Test
+    public void emptySourceCompletesWithoutLists() {
+        Publisher<List<Integer>> p = toBatchedPublisher(Observable.<Integer>empty(), 4, 1, TimeUnit.HOURS, new TestScheduler());
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+
+        ts.subscription.request(1);
+
+        Assert.assertTrue(ts.complete);
+        Assert.assertTrue(ts.received.isEmpty());
+    }
+
+    @Test
+    public void delayFlushesPartialList() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject, 4, 100, TimeUnit.MILLISECONDS, scheduler);
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+        ts.subscription.request(Long.MAX_VALUE);
+
+        subject.onNext(1);
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        subject.onNext(2);
+        Assert.assertTrue(ts.received.isEmpty());
+
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(Arrays.asList(1, 2)));
+
+        // the delay starts over with the first item of the next list
+        subject.onNext(3);
+        scheduler.advanceTimeBy(99, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(ts.received.size(), 1);
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(
+                Arrays.asList(1, 2), Arrays.asList(3)));
+    }
+
+    @Test
+    public void fullListCancelsItsTimer() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject, 2, 100, TimeUnit.MILLISECONDS, scheduler);
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+        ts.subscription.request(Long.MAX_VALUE);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        subject.onNext(3);
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(Arrays.asList(1, 2)));
+
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(
+                Arrays.asList(1, 2), Arrays.asList(3)));
+    }
+
+    @Test
+    public void expiredListKeepsFillingUntilRequested() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject.onBackpressureBuffer(), 4, 100, TimeUnit.MILLISECONDS, scheduler);
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+
+        subject.onNext(1);
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+        subject.onNext(2);
+        Assert.assertTrue(ts.received.isEmpty());
+
+        ts.subscription.request(1);
+        Assert.assertEquals(new ArrayList<List<Integer>>(ts.received), Arrays.asList(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void requestsOneListOfItemsAtATime() {
+        final List<Long> requests = new ArrayList<Long>();
+        Publisher<List<Integer>> p = toBatchedPublisher(Observable.range(1, 100).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requests.add(n);
+            }
+        }), 10, 1, TimeUnit.HOURS, new TestScheduler());
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+
+        Assert.assertEquals(requests, Arrays.asList(10L));
+
+        ts.subscription.request(1);
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertEquals(requests, Arrays.asList(10L, 10L));
+
+        ts.subscription.request(2);
+        Assert.assertEquals(ts.received.size(), 3);
+        Assert.assertEquals(requests, Arrays.asList(10L, 10L, 10L, 10L));
+    }
+
+    @Test
+    public void flushedListIsReplenishedByItsSize() {
+        TestScheduler scheduler = new TestScheduler();
+        final List<Long> requests = new ArrayList<Long>();
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject.onBackpressureBuffer().doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requests.add(n);
+            }
+        }), 10, 100, TimeUnit.MILLISECONDS, scheduler);
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+        ts.subscription.request(1);
+
+        subject.onNext(1);
+        subject.onNext(2);
+        subject.onNext(3);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertEquals(requests, Arrays.asList(10L, 3L));
+    }
+
+    @Test
+    public void errorDropsPendingItems() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject, 4, 1, TimeUnit.HOURS, new TestScheduler());
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+        ts.subscription.request(Long.MAX_VALUE);
+
+        subject.onNext(1);
+        subject.onError(new IllegalStateException("boom"));
+
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertTrue(ts.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void cancelUnsubscribesSource() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<List<Integer>> p = toBatchedPublisher(subject, 4, 1, TimeUnit.HOURS, new TestScheduler());
+        RsSubscriber<List<Integer>> ts = new RsSubscriber<List<Integer>>();
+        p.subscribe(ts);
+        ts.subscription.request(1);
+        Assert.assertTrue(subject.hasObservers());
+
+        ts.subscription.cancel();
+
+        Assert.assertFalse(subject.hasObservers());
+    }
+
+    @Test(timeOut = 10000)
+    public void asyncSourceKeepsAllItemsInOrder() {
+        Publisher<List<Integer>> p = toBatchedPublisher(Observable.range(1, 100000).subscribeOn(Schedulers.computation()),
+                64, 1, TimeUnit.MILLISECONDS, Schedulers.computation());
+        TestSubscriber<List<Integer>> ts = new TestSubscriber<List<Integer>>();
+
+        toObservable(p).subscribe(ts);
+        ts.awaitTerminalEvent();
+
+        ts.assertNoErrors();
+        int expected = 1;
+        for (List<Integer> list : ts.getOnNextEvents()) {
+            Assert.assertTrue(list.size() <= 64);
+            for (Integer v : list) {
+                Assert.assertEquals((int)v, expected++);
+            }
+        }
+        Assert.assertEquals(expected, 100001);
+    }
+}
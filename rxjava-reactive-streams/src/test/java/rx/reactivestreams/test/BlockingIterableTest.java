@@ -0,0 +1,248 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.Action0;
+import rx.internal.reactivestreams.BlockingPublisherIterator;
+import rx.reactivestreams.test.PublisherAsObservableTest.RequestRecordingPublisher;
+import rx.schedulers.Schedulers;
+
+public class BlockingIterableTest {
+
+    static List<Integer> range(int start, int count) {
+        List<Integer> list = new ArrayList<Integer>(count);
+        for (int i = start; i < start + count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toBlockingIterable((Publisher<Object>)null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void prefetchCheck() {
+        toBlockingIterable(new IterablePublisher<Integer>(Arrays.asList(1)), 0);
+    }
+
+    @Test
+    public void iteratesInBatches() {
+        RequestRecordingPublisher<Integer> p = new RequestRecordingPublisher<Integer>(toPublisher(Observable.range(1, 100)));
+
+        Iterator<Integer> it = toBlockingIterable(p, 16).iterator();
+
+        Assert.assertEquals(p.requests, Collections.singletonList(16L));
+
+        List<Integer> received = new ArrayList<Integer>();
+        while (it.hasNext()) {
+            received.add(it.next());
+        }
+
+        Assert.assertEquals(received, range(1, 100));
+        Assert.assertFalse(it.hasNext());
+        for (int i = 1; i < p.requests.size(); i++) {
+            Assert.assertEquals(p.requests.get(i).longValue(), 12L);
+        }
+    }
+
+    @Test
+    public void maxPrefetch() {
+        List<Integer> received = new ArrayList<Integer>();
+        for (Integer v : toBlockingIterable(toPublisher(Observable.range(1, 5000)), Integer.MAX_VALUE)) {
+            received.add(v);
+        }
+
+        Assert.assertEquals(received, range(1, 5000));
+    }
+
+    @Test
+    public void eachIteratorSubscribes() {
+        Iterable<Integer> iterable = toBlockingIterable(toPublisher(Observable.range(1, 10)), 4);
+
+        for (int round = 0; round < 2; round++) {
+            List<Integer> received = new ArrayList<Integer>();
+            for (Integer v : iterable) {
+                received.add(v);
+            }
+            Assert.assertEquals(received, range(1, 10));
+        }
+    }
+
+    @Test
+    public void errorAfterItems() {
+        Publisher<Integer> p = toPublisher(Observable.range(1, 3).concatWith(Observable.<Integer>error(new IllegalStateException("boom"))));
+        Iterator<Integer> it = toBlockingIterable(p, 16).iterator();
+
+        Assert.assertEquals(it.next().intValue(), 1);
+        Assert.assertEquals(it.next().intValue(), 2);
+        Assert.assertEquals(it.next().intValue(), 3);
+        try {
+            it.hasNext();
+            Assert.fail("Should have thrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals(ex.getMessage(), "boom");
+        }
+    }
+
+    @Test
+    public void checkedErrorIsWrapped() {
+        Publisher<Integer> p = toPublisher(Observable.<Integer>error(new IOException("boom")));
+        Iterator<Integer> it = toBlockingIterable(p, 16).iterator();
+        try {
+            it.hasNext();
+            Assert.fail("Should have thrown");
+        } catch (RuntimeException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(expectedExceptions = { NoSuchElementException.class })
+    public void nextAfterEnd() {
+        Iterator<Integer> it = toBlockingIterable(toPublisher(Observable.<Integer>empty()), 16).iterator();
+        it.next();
+    }
+
+    @Test(expectedExceptions = { UnsupportedOperationException.class })
+    public void removeUnsupported() {
+        Iterator<Integer> it = toBlockingIterable(toPublisher(Observable.just(1)), 16).iterator();
+        it.next();
+        it.remove();
+    }
+
+    @Test
+    public void interruptCancels() throws Exception {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final Publisher<Integer> p = toPublisher(Observable.<Integer>never().doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                cancelled.countDown();
+            }
+        }));
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    toBlockingIterable(p, 16).iterator().hasNext();
+                } catch (Throwable ex) {
+                    error.set(ex);
+                }
+            }
+        });
+        t.start();
+        Thread.sleep(100);
+        t.interrupt();
+        t.join(5000);
+
+        Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(error.get().getCause() instanceof InterruptedException, String.valueOf(error.get()));
+    }
+
+    @Test
+    public void asyncPublisher() {
+        final int n = 1000000;
+        for (int round = 0; round < 5; round++) {
+            Publisher<Integer> p = toPublisher(Observable.range(0, n).subscribeOn(Schedulers.computation()));
+            int expected = 0;
+            for (Integer v : toBlockingIterable(p, 128)) {
+                Assert.assertEquals(v.intValue(), expected);
+                expected++;
+            }
+            Assert.assertEquals(expected, n);
+        }
+    }
+
+    @Test
+    public void cancelRacingNextDoesNotOverlapCalls() throws Exception {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 2000; round++) {
+                final BlockingPublisherIterator<Integer> it = new BlockingPublisherIterator<Integer>(4);
+                final OverlapDetectingSubscription s = new OverlapDetectingSubscription(it);
+                it.onSubscribe(s);
+
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> f = exec.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        barrier.await();
+                        it.cancel();
+                        return null;
+                    }
+                });
+                barrier.await();
+                while (it.hasNext()) {
+                    it.next();
+                }
+                f.get(5, TimeUnit.SECONDS);
+
+                Assert.assertFalse(s.overlapped, "round " + round);
+                Assert.assertEquals(s.cancelCalls.get(), 1, "round " + round);
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    /** Emits the requested items synchronously and records whether two of its calls ran at the same time. */
+    static final class OverlapDetectingSubscription implements Subscription {
+        final Subscriber<? super Integer> subscriber;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger cancelCalls = new AtomicInteger();
+        volatile boolean overlapped;
+        volatile boolean cancelled;
+        int index;
+
+        OverlapDetectingSubscription(Subscriber<? super Integer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            for (long i = 0; i < n && !cancelled; i++) {
+                subscriber.onNext(index++);
+            }
+            active.decrementAndGet();
+        }
+
+        @Override
+        public void cancel() {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            cancelled = true;
+            cancelCalls.incrementAndGet();
+            active.decrementAndGet();
+        }
+    }
+}
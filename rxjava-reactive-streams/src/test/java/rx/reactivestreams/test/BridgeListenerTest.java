@@ -0,0 +1,304 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import rx.*;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+import rx.plugins.RxJavaHooks;
+
+public class BridgeListenerTest {
+
+    static class RecordingListener extends BridgeListener {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void onSubscribe(Bridge bridge) {
+            events.add(bridge + " subscribe");
+        }
+
+        @Override
+        public void onRequest(Bridge bridge, long n) {
+            events.add(bridge + " request " + n);
+        }
+
+        @Override
+        public void onNext(Bridge bridge) {
+            events.add(bridge + " next");
+        }
+
+        @Override
+        public void onCancel(Bridge bridge) {
+            events.add(bridge + " cancel");
+        }
+
+        @Override
+        public void onError(Bridge bridge, Throwable e) {
+            events.add(bridge + " error " + e.getMessage());
+        }
+
+        @Override
+        public void onComplete(Bridge bridge) {
+            events.add(bridge + " complete");
+        }
+    }
+
+    RecordingListener listener;
+
+    @BeforeMethod
+    public void before() {
+        listener = new RecordingListener();
+        setBridgeListener(listener);
+    }
+
+    @AfterMethod
+    public void after() {
+        setBridgeListener(null);
+    }
+
+    @Test
+    public void registration() {
+        Assert.assertSame(getBridgeListener(), listener);
+        setBridgeListener(null);
+        Assert.assertNull(getBridgeListener());
+
+        toPublisher(Observable.range(1, 2)).subscribe(new RsSubscriber<Integer>());
+
+        Assert.assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void observableToPublisher() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.range(1, 3).asObservable()).subscribe(ts);
+        ts.subscription.request(2);
+        ts.subscription.request(2);
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "OBSERVABLE_TO_PUBLISHER subscribe",
+                "OBSERVABLE_TO_PUBLISHER request 2",
+                "OBSERVABLE_TO_PUBLISHER next",
+                "OBSERVABLE_TO_PUBLISHER next",
+                "OBSERVABLE_TO_PUBLISHER request 2",
+                "OBSERVABLE_TO_PUBLISHER next",
+                "OBSERVABLE_TO_PUBLISHER complete"));
+    }
+
+    @Test
+    public void observableToPublisherCancel() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.<Integer>never()).subscribe(ts);
+        ts.subscription.cancel();
+        ts.subscription.cancel();
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "OBSERVABLE_TO_PUBLISHER subscribe",
+                "OBSERVABLE_TO_PUBLISHER cancel"));
+    }
+
+    @Test
+    public void publisherToObservable() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>(1L);
+        toObservable(new IterablePublisher<Integer>(Arrays.asList(1, 2))).subscribe(ts);
+        ts.requestMore(5);
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "PUBLISHER_TO_OBSERVABLE subscribe",
+                "PUBLISHER_TO_OBSERVABLE request 1",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE request 5",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE complete"));
+    }
+
+    @Test
+    public void publisherToObservablePrefetchCancel() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservable(new IterablePublisher<Integer>(Arrays.asList(1, 2, 3)), 2).take(1).subscribe(ts);
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "PUBLISHER_TO_OBSERVABLE subscribe",
+                "PUBLISHER_TO_OBSERVABLE request 2",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE cancel"));
+    }
+
+    @Test
+    public void singleToPublisher() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Single.just(1)).subscribe(ts);
+        ts.subscription.request(1);
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "SINGLE_TO_PUBLISHER subscribe",
+                "SINGLE_TO_PUBLISHER request 1",
+                "SINGLE_TO_PUBLISHER next",
+                "SINGLE_TO_PUBLISHER complete"));
+    }
+
+    @Test
+    public void publisherToSingle() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toSingle(new IterablePublisher<Integer>(Arrays.asList(1))).subscribe(ts);
+
+        ts.assertValue(1);
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "PUBLISHER_TO_SINGLE subscribe",
+                "PUBLISHER_TO_SINGLE request 9223372036854775807",
+                "PUBLISHER_TO_SINGLE next",
+                "PUBLISHER_TO_SINGLE complete"));
+    }
+
+    @Test
+    public void publisherToSingleTooMany() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toSingle(new IterablePublisher<Integer>(Arrays.asList(1, 2))).subscribe(ts);
+
+        ts.assertError(IndexOutOfBoundsException.class);
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "PUBLISHER_TO_SINGLE subscribe",
+                "PUBLISHER_TO_SINGLE request 9223372036854775807",
+                "PUBLISHER_TO_SINGLE next",
+                "PUBLISHER_TO_SINGLE next",
+                "PUBLISHER_TO_SINGLE cancel"));
+    }
+
+    @Test
+    public void completableToPublisher() {
+        RsSubscriber<Object> ts = new RsSubscriber<Object>();
+        toPublisher(Completable.error(new RuntimeException("Forced failure"))).subscribe(ts);
+
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "COMPLETABLE_TO_PUBLISHER subscribe",
+                "COMPLETABLE_TO_PUBLISHER error Forced failure"));
+    }
+
+    @Test
+    public void publisherToCompletable() {
+        TestSubscriber<Object> ts = new TestSubscriber<Object>();
+        toCompletable(new IterablePublisher<Integer>(Arrays.asList(1, 2))).subscribe(ts);
+
+        ts.assertCompleted();
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "PUBLISHER_TO_COMPLETABLE subscribe",
+                "PUBLISHER_TO_COMPLETABLE request 9223372036854775807",
+                "PUBLISHER_TO_COMPLETABLE next",
+                "PUBLISHER_TO_COMPLETABLE next",
+                "PUBLISHER_TO_COMPLETABLE complete"));
+    }
+
+    @Test
+    public void throwingListenerIsReportedAndDoesNotBreakTheStream() {
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        RxJavaHooks.setOnError(new Action1<Throwable>() {
+            @Override
+            public void call(Throwable e) {
+                errors.add(e);
+            }
+        });
+        setBridgeListener(new BridgeListener() {
+            @Override
+            public void onNext(Bridge bridge) {
+                throw new IllegalStateException("Forced failure");
+            }
+        });
+        try {
+            RsSubscriber<Integer> rs = new RsSubscriber<Integer>();
+            toPublisher(Observable.range(1, 3).asObservable()).subscribe(rs);
+            rs.subscription.request(3);
+
+            Assert.assertEquals(new ArrayList<Integer>(rs.received), Arrays.asList(1, 2, 3));
+            Assert.assertTrue(rs.complete);
+
+            TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+            toObservable(new IterablePublisher<Integer>(Arrays.asList(1, 2))).subscribe(ts);
+
+            ts.assertValues(1, 2);
+            ts.assertCompleted();
+
+            Assert.assertEquals(errors.size(), 5);
+            for (Throwable e : errors) {
+                Assert.assertTrue(e instanceof IllegalStateException, e.toString());
+            }
+        } finally {
+            RxJavaHooks.reset();
+        }
+    }
+
+    @Test
+    public void namedConversionsAreToldApart() {
+        final Map<String, RecordingListener> byName = new HashMap<String, RecordingListener>();
+        byName.put("orders", new RecordingListener());
+        byName.put("quotes", new RecordingListener());
+        setBridgeListener(new RecordingListener() {
+            @Override
+            public BridgeListener forName(String name) {
+                return byName.get(name);
+            }
+        });
+
+        RsSubscriber<Integer> orders = new RsSubscriber<Integer>();
+        named("orders").toPublisher(Observable.just(1)).subscribe(orders);
+        orders.subscription.request(1);
+        TestSubscriber<Integer> quotes = new TestSubscriber<Integer>();
+        named("quotes").toObservable(new IterablePublisher<Integer>(Arrays.asList(1, 2))).subscribe(quotes);
+        TestSubscriber<Integer> ignored = new TestSubscriber<Integer>();
+        named("other").toSingle(toPublisher(Single.just(1))).subscribe(ignored);
+
+        quotes.assertValues(1, 2);
+        ignored.assertValue(1);
+        Assert.assertEquals(byName.get("orders").events, Arrays.asList(
+                "OBSERVABLE_TO_PUBLISHER subscribe",
+                "OBSERVABLE_TO_PUBLISHER request 1",
+                "OBSERVABLE_TO_PUBLISHER next",
+                "OBSERVABLE_TO_PUBLISHER complete"));
+        Assert.assertEquals(byName.get("quotes").events, Arrays.asList(
+                "PUBLISHER_TO_OBSERVABLE subscribe",
+                "PUBLISHER_TO_OBSERVABLE request 9223372036854775807",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE next",
+                "PUBLISHER_TO_OBSERVABLE complete"));
+        Assert.assertEquals(((RecordingListener)getBridgeListener()).events, Arrays.asList(
+                "SINGLE_TO_PUBLISHER subscribe",
+                "SINGLE_TO_PUBLISHER request 9223372036854775807",
+                "SINGLE_TO_PUBLISHER next",
+                "SINGLE_TO_PUBLISHER complete",
+                "SINGLE_TO_PUBLISHER cancel"));
+    }
+
+    @Test
+    public void namedConversionsReportToTheListenerByDefault() {
+        TestSubscriber<Object> ts = new TestSubscriber<Object>();
+        named("done").toCompletable(named("done").toPublisher(Completable.complete())).subscribe(ts);
+
+        ts.assertCompleted();
+        Assert.assertEquals(listener.events, Arrays.asList(
+                "COMPLETABLE_TO_PUBLISHER subscribe",
+                "PUBLISHER_TO_COMPLETABLE subscribe",
+                "PUBLISHER_TO_COMPLETABLE request 9223372036854775807",
+                "COMPLETABLE_TO_PUBLISHER request 9223372036854775807",
+                "COMPLETABLE_TO_PUBLISHER complete",
+                "PUBLISHER_TO_COMPLETABLE complete",
+                "COMPLETABLE_TO_PUBLISHER cancel"));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void namedNull() {
+        named(null);
+    }
+
+    @Test
+    public void registeredListenerIsReturnedUnwrapped() {
+        BridgeListener l = new BridgeListener() { };
+        setBridgeListener(l);
+
+        Assert.assertSame(getBridgeListener(), l);
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
+import rx.reactivestreams.test.PublisherAsObservableTest.RequestRecordingPublisher;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class FlattenedObservableTest {
+
+    static List<List<Integer>> chunks(int count, int size) {
+        List<List<Integer>> chunks = new ArrayList<List<Integer>>();
+        int v = 0;
+        for (int i = 0; i < count; i++) {
+            List<Integer> chunk = new ArrayList<Integer>();
+            for (int j = 0; j < size; j++) {
+                chunk.add(v++);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toObservableFlattened((Publisher<List<Integer>>)null);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void prefetchCheck() {
+        toObservableFlattened(new IterablePublisher<List<Integer>>(chunks(1, 1)), 0);
+    }
+
+    @Test
+    public void elementsInOrder() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservableFlattened(new IterablePublisher<List<Integer>>(chunks(10, 7))).subscribe(ts);
+
+        ts.assertNoErrors();
+        ts.assertCompleted();
+        Assert.assertEquals(ts.getOnNextEvents(), Observable.range(0, 70).toList().toBlocking().single());
+    }
+
+    @Test
+    public void nonListAndEmptyChunks() {
+        List<Iterable<Integer>> source = new ArrayList<Iterable<Integer>>();
+        source.add(new LinkedList<Integer>(Arrays.asList(1, 2)));
+        source.add(Collections.<Integer>emptyList());
+        source.add(new TreeSet<Integer>(Arrays.asList(5, 3, 4)));
+        source.add(new LinkedList<Integer>());
+        source.add(Arrays.asList(6));
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservableFlattened(new IterablePublisher<Iterable<Integer>>(source), 2).subscribe(ts);
+
+        ts.assertValues(1, 2, 3, 4, 5, 6);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void elementDemandRequestsChunksInBatches() {
+        RequestRecordingPublisher<List<Integer>> p = new RequestRecordingPublisher<List<Integer>>(
+                new IterablePublisher<List<Integer>>(chunks(20, 10)));
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+
+        toObservableFlattened(p, 4).subscribe(rxs);
+
+        Assert.assertEquals(p.requests, Collections.singletonList(4L));
+
+        rxs.makeRequest(15);
+        Assert.assertEquals(rxs.received, Observable.range(0, 15).toList().toBlocking().single());
+        Assert.assertEquals(p.requests, Collections.singletonList(4L));
+
+        // taking the third chunk off the queue replenishes
+        rxs.makeRequest(6);
+        Assert.assertEquals(rxs.received.size(), 21);
+        Assert.assertEquals(p.requests, Arrays.asList(4L, 3L));
+
+        rxs.makeRequest(Long.MAX_VALUE);
+        Assert.assertEquals(rxs.received, Observable.range(0, 200).toList().toBlocking().single());
+        Assert.assertTrue(rxs.complete);
+        for (Long n : p.requests.subList(1, p.requests.size())) {
+            Assert.assertEquals(n.longValue(), 3L);
+        }
+    }
+
+    @Test
+    public void errorAfterElements() {
+        Publisher<List<Integer>> p = toPublisher(Observable.just(Arrays.asList(1, 2), Arrays.asList(3))
+                .concatWith(Observable.<List<Integer>>error(new RuntimeException("Forced failure"))));
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+
+        toObservableFlattened(p).subscribe(rxs);
+        rxs.makeRequest(2);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2));
+        Assert.assertNull(rxs.error);
+
+        rxs.makeRequest(1);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2, 3));
+        Assert.assertEquals(rxs.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void failingIteratorCancelsUpstream() {
+        PublishSubject<Iterable<Integer>> ps = PublishSubject.create();
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservableFlattened(toPublisher(ps)).subscribe(ts);
+
+        ps.onNext(new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                throw new IllegalStateException("Forced failure");
+            }
+        });
+
+        ts.assertError(IllegalStateException.class);
+        Assert.assertFalse(ps.hasObservers());
+    }
+
+    @Test
+    public void unsubscribeCancelsUpstream() {
+        PublishSubject<List<Integer>> ps = PublishSubject.create();
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservableFlattened(toPublisher(ps)).subscribe(ts);
+
+        ps.onNext(Arrays.asList(1, 2));
+        ts.assertValues(1, 2);
+
+        ts.unsubscribe();
+
+        Assert.assertFalse(ps.hasObservers());
+    }
+
+    @Test
+    public void takeStopsWithinAChunk() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservableFlattened(new IterablePublisher<List<Integer>>(chunks(3, 10))).take(15).subscribe(ts);
+
+        ts.assertValueCount(15);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void asyncSource() {
+        Publisher<List<Integer>> p = toPublisher(Observable.range(0, 100000).buffer(100)
+                .subscribeOn(Schedulers.computation()));
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservableFlattened(p).observeOn(Schedulers.computation()).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertCompleted();
+        List<Integer> values = ts.getOnNextEvents();
+        Assert.assertEquals(values.size(), 100000);
+        for (int i = 0; i < values.size(); i++) {
+            Assert.assertEquals(values.get(i).intValue(), i);
+        }
+    }
+
+    @Test
+    public void roundTripWithBatchedPublisher() {
+        Publisher<List<Integer>> p = toBatchedPublisher(Observable.range(0, 1000), 64, 1, TimeUnit.SECONDS,
+                Schedulers.computation());
+
+        List<Integer> list = toObservableFlattened(p).map(new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                return v + 1;
+            }
+        }).toList().toBlocking().single();
+
+        Assert.assertEquals(list, Observable.range(1, 1000).toList().toBlocking().single());
+    }
+}
@@ -0,0 +1,282 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class OverflowPublisherTest {
+
+    static final class DropCounter implements Action1<Integer> {
+        final List<Integer> dropped = new ArrayList<Integer>();
+
+        @Override
+        public void call(Integer t) {
+            dropped.add(t);
+        }
+    }
+
+    static void emit(PublishSubject<Integer> subject, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            subject.onNext(i);
+        }
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toPublisher((Observable<Integer>)null, OverflowStrategy.BUFFER, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void strategyNullCheck() {
+        toPublisher(Observable.just(1), null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void capacityCheck() {
+        toPublisher(Observable.just(1), OverflowStrategy.BUFFER, 0);
+    }
+
+    @Test
+    public void bufferOverflowFails() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        DropCounter counter = new DropCounter();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        DroppingPublisher<Integer> p = toPublisher(subject, OverflowStrategy.BUFFER, 3, counter);
+        p.subscribe(ts);
+
+        ts.subscription.request(1);
+        emit(subject, 1, 5);
+
+        Assert.assertFalse(subject.hasObservers());
+        Assert.assertEquals(counter.dropped, Arrays.asList(5));
+        Assert.assertEquals(p.droppedCount(), 1L);
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1));
+        Assert.assertNull(ts.error);
+
+        ts.subscription.request(10);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3, 4));
+        Assert.assertTrue(ts.error instanceof MissingBackpressureException);
+    }
+
+    @Test
+    public void dropLatest() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        DropCounter counter = new DropCounter();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(subject, OverflowStrategy.DROP_LATEST, 3, counter).subscribe(ts);
+
+        emit(subject, 1, 5);
+        ts.subscription.request(2);
+        emit(subject, 6, 7);
+        subject.onCompleted();
+        ts.subscription.request(10);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3, 6, 7));
+        Assert.assertEquals(counter.dropped, Arrays.asList(4, 5));
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void dropOldest() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        DropCounter counter = new DropCounter();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        DroppingPublisher<Integer> p = toPublisher(subject, OverflowStrategy.DROP_OLDEST, 3, counter);
+        p.subscribe(ts);
+
+        emit(subject, 1, 5);
+        ts.subscription.request(2);
+        emit(subject, 6, 7);
+        subject.onCompleted();
+        ts.subscription.request(10);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(3, 4, 5, 6, 7));
+        Assert.assertEquals(counter.dropped, Arrays.asList(1, 2));
+        Assert.assertEquals(p.droppedCount(), 2L);
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void latest() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        DropCounter counter = new DropCounter();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(subject, OverflowStrategy.LATEST, 3, counter).subscribe(ts);
+
+        emit(subject, 1, 6);
+        ts.subscription.request(4);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3, 6));
+        Assert.assertEquals(counter.dropped, Arrays.asList(4, 5));
+
+        emit(subject, 7, 8);
+        subject.onCompleted();
+        ts.subscription.request(10);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3, 6, 7, 8));
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void errorAfterBufferedItems() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(subject, OverflowStrategy.DROP_LATEST, 8).subscribe(ts);
+
+        emit(subject, 1, 2);
+        subject.onError(new RuntimeException("Forced failure"));
+
+        Assert.assertNull(ts.error);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2));
+        Assert.assertEquals(ts.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void cancelUnsubscribes() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(subject, OverflowStrategy.DROP_OLDEST, 8).subscribe(ts);
+
+        Assert.assertTrue(subject.hasObservers());
+
+        ts.subscription.cancel();
+
+        Assert.assertFalse(subject.hasObservers());
+    }
+
+    @Test
+    public void invalidRequest() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(subject, OverflowStrategy.LATEST, 8).subscribe(ts);
+
+        ts.subscription.request(-1);
+
+        Assert.assertTrue(ts.error instanceof IllegalArgumentException);
+        Assert.assertFalse(subject.hasObservers());
+    }
+
+    @Test
+    public void droppedItemsReportedToListener() {
+        final AtomicLong drops = new AtomicLong();
+        setBridgeListener(new BridgeListener() {
+            @Override
+            public void onDrop(Bridge bridge) {
+                drops.incrementAndGet();
+            }
+        });
+        try {
+            PublishSubject<Integer> subject = PublishSubject.create();
+            RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+            toPublisher(subject, OverflowStrategy.DROP_LATEST, 2).subscribe(ts);
+
+            emit(subject, 1, 5);
+
+            Assert.assertEquals(drops.get(), 3L);
+        } finally {
+            setBridgeListener(null);
+        }
+    }
+
+    @Test
+    public void asyncConsumer() {
+        for (OverflowStrategy strategy : OverflowStrategy.values()) {
+            if (strategy == OverflowStrategy.BUFFER) {
+                continue;
+            }
+            final AtomicLong dropped = new AtomicLong();
+            DroppingPublisher<Integer> p = toPublisher(Observable.range(1, 100000), strategy, 16, new Action1<Integer>() {
+                @Override
+                public void call(Integer t) {
+                    dropped.incrementAndGet();
+                }
+            });
+
+            TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+            toObservable(p).observeOn(Schedulers.computation()).subscribe(ts);
+
+            ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            ts.assertNoErrors();
+            ts.assertCompleted();
+
+            List<Integer> values = ts.getOnNextEvents();
+            Assert.assertEquals(values.size() + dropped.get(), 100000L, strategy.toString());
+            Assert.assertEquals(p.droppedCount(), dropped.get(), strategy.toString());
+            for (int i = 1; i < values.size(); i++) {
+                Assert.assertTrue(values.get(i - 1) < values.get(i), strategy.toString());
+            }
+            if (strategy != OverflowStrategy.DROP_LATEST) {
+                Assert.assertEquals(values.get(values.size() - 1).intValue(), 100000, strategy.toString());
+            }
+        }
+    }
+
+    @Test
+    public void droppedCountSumsSubscribers() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        DroppingPublisher<Integer> p = toPublisher(subject, OverflowStrategy.DROP_LATEST, 2);
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+
+        Assert.assertEquals(p.droppedCount(), 0L);
+
+        ts1.subscription.request(3);
+        emit(subject, 1, 5);
+
+        Assert.assertEquals(p.droppedCount(), 3L);
+    }
+
+    @Test
+    public void dropOldestKeepsCapacityItemsWhileConsumed() {
+        for (int round = 0; round < 100; round++) {
+            final PublishSubject<Integer> subject = PublishSubject.create();
+            final RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+            DroppingPublisher<Integer> p = toPublisher(subject, OverflowStrategy.DROP_OLDEST, 4);
+            p.subscribe(ts);
+
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        ts.subscription.request(1);
+                    }
+                }
+            });
+            consumer.start();
+            emit(subject, 1, 10000);
+            try {
+                consumer.join();
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+            subject.onCompleted();
+            ts.subscription.request(Long.MAX_VALUE);
+
+            List<Integer> values = new ArrayList<Integer>(ts.received);
+            Assert.assertEquals(values.size() + p.droppedCount(), 10000L);
+            for (int i = 1; i < values.size(); i++) {
+                Assert.assertTrue(values.get(i - 1) < values.get(i));
+            }
+            Assert.assertEquals(values.subList(values.size() - 4, values.size()), Arrays.asList(9997, 9998, 9999, 10000));
+            Assert.assertTrue(ts.complete);
+        }
+    }
+}
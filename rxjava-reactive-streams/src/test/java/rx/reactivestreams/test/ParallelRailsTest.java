@@ -0,0 +1,307 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.RxReactiveStreams.Sequenced;
+import rx.functions.*;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class ParallelRailsTest {
+
+    static <T> List<Publisher<Sequenced<T>>> rails(List<List<Long>> sequences, final List<T> values) {
+        List<Publisher<Sequenced<T>>> rails = new ArrayList<Publisher<Sequenced<T>>>();
+        for (List<Long> rail : sequences) {
+            rails.add(toPublisher(Observable.from(rail).map(new Func1<Long, Sequenced<T>>() {
+                @Override
+                public Sequenced<T> call(Long s) {
+                    return new Sequenced<T>(s, values.get(s.intValue()));
+                }
+            })));
+        }
+        return rails;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toParallelPublishers((Observable<Integer>)null, 4, Schedulers.computation(), 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void schedulerNullCheck() {
+        toParallelPublishers(Observable.just(1), 4, null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void railsCheck() {
+        toParallelPublishers(Observable.just(1), 0, Schedulers.computation(), 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void mergeNullRailCheck() {
+        mergeOrdered(Collections.<Publisher<Sequenced<Integer>>>singletonList(null), 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void mergeBufferSizeCheck() {
+        mergeOrdered(Collections.<Publisher<Sequenced<Integer>>>emptyList(), 0);
+    }
+
+    @Test
+    public void mergeRestoresOrder() {
+        List<Publisher<Sequenced<String>>> rails = rails(Arrays.asList(
+                Arrays.asList(0L, 3L, 4L, 8L),
+                Arrays.asList(1L, 2L, 6L),
+                Arrays.asList(5L, 7L)), Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i"));
+
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        mergeOrdered(rails, 2).subscribe(ts);
+
+        ts.subscription.request(3);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a", "b", "c"));
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i"));
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void mergePrefetchIsBounded() {
+        final List<Long> requests = new CopyOnWriteArrayList<Long>();
+        List<Publisher<Sequenced<Integer>>> rails = new ArrayList<Publisher<Sequenced<Integer>>>();
+        for (int r = 0; r < 2; r++) {
+            final int rail = r;
+            rails.add(toPublisher(Observable.range(0, 100).map(new Func1<Integer, Sequenced<Integer>>() {
+                @Override
+                public Sequenced<Integer> call(Integer v) {
+                    return new Sequenced<Integer>(v * 2 + rail, v);
+                }
+            }).doOnRequest(new Action1<Long>() {
+                @Override
+                public void call(Long n) {
+                    if (n != 0L) {
+                        requests.add(n);
+                    }
+                }
+            })));
+        }
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        mergeOrdered(rails, 8).subscribe(ts);
+        ts.subscription.request(1);
+
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertEquals(requests, Arrays.asList(8L, 8L));
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(ts.received.size(), 200);
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void mergeWaitsForSlowRail() {
+        PublishSubject<Sequenced<Integer>> slow = PublishSubject.create();
+        List<Publisher<Sequenced<Integer>>> rails = new ArrayList<Publisher<Sequenced<Integer>>>();
+        rails.add(toPublisher(Observable.just(new Sequenced<Integer>(1, 1), new Sequenced<Integer>(2, 2))));
+        rails.add(toPublisher(slow.onBackpressureBuffer()));
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        mergeOrdered(rails, 4).subscribe(ts);
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(ts.received.isEmpty());
+
+        slow.onNext(new Sequenced<Integer>(0, 0));
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(0));
+
+        slow.onCompleted();
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(0, 1, 2));
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void mergeErrorCancelsOtherRails() {
+        final List<String> events = new CopyOnWriteArrayList<String>();
+        List<Publisher<Sequenced<Integer>>> rails = new ArrayList<Publisher<Sequenced<Integer>>>();
+        rails.add(toPublisher(Observable.<Sequenced<Integer>>never().doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                events.add("cancelled");
+            }
+        })));
+        rails.add(toPublisher(Observable.<Sequenced<Integer>>error(new IllegalStateException("boom"))));
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        mergeOrdered(rails, 4).subscribe(ts);
+
+        Assert.assertTrue(ts.error instanceof IllegalStateException);
+        Assert.assertEquals(events, Collections.singletonList("cancelled"));
+    }
+
+    @Test
+    public void railsRunOnSchedulerWorkers() {
+        final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        List<Publisher<Sequenced<Integer>>> rails = toParallelPublishers(Observable.range(0, 1000), 4, Schedulers.computation(), 16);
+        Assert.assertEquals(rails.size(), 4);
+
+        List<TestSubscriber<Sequenced<Integer>>> subscribers = new ArrayList<TestSubscriber<Sequenced<Integer>>>();
+        for (Publisher<Sequenced<Integer>> rail : rails) {
+            TestSubscriber<Sequenced<Integer>> ts = new TestSubscriber<Sequenced<Integer>>();
+            subscribers.add(ts);
+            toObservable(rail).doOnNext(new Action1<Sequenced<Integer>>() {
+                @Override
+                public void call(Sequenced<Integer> t) {
+                    threads.add(Thread.currentThread().getName());
+                }
+            }).subscribe(ts);
+        }
+
+        for (int i = 0; i < subscribers.size(); i++) {
+            TestSubscriber<Sequenced<Integer>> ts = subscribers.get(i);
+            ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            ts.assertNoErrors();
+            ts.assertValueCount(250);
+            for (Sequenced<Integer> t : ts.getOnNextEvents()) {
+                Assert.assertEquals(t.sequence() % 4, i);
+                Assert.assertEquals(t.value().intValue(), (int)t.sequence());
+            }
+        }
+        Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void splitTransformMergeKeepsOrder() {
+        final int n = 100000;
+        for (int round = 0; round < 10; round++) {
+            List<Publisher<Sequenced<Integer>>> rails = toParallelPublishers(Observable.range(0, n), 4, Schedulers.computation(), 64);
+
+            List<Publisher<Sequenced<String>>> transformed = new ArrayList<Publisher<Sequenced<String>>>();
+            for (Publisher<Sequenced<Integer>> rail : rails) {
+                transformed.add(toPublisher(toObservable(rail).map(new Func1<Sequenced<Integer>, Sequenced<String>>() {
+                    @Override
+                    public Sequenced<String> call(Sequenced<Integer> t) {
+                        if (t.value() % 3 == 0) {
+                            return t.skip();
+                        }
+                        return t.withValue(Integer.toString(t.value()));
+                    }
+                })));
+            }
+
+            TestSubscriber<String> ts = new TestSubscriber<String>();
+            toObservable(mergeOrdered(transformed, 32)).observeOn(Schedulers.computation(), 7).subscribe(ts);
+
+            ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            ts.assertNoErrors();
+            ts.assertCompleted();
+            List<String> values = ts.getOnNextEvents();
+            int expected = 0;
+            for (String v : values) {
+                if (expected % 3 == 0) {
+                    expected++;
+                }
+                Assert.assertEquals(v, Integer.toString(expected));
+                expected++;
+            }
+            Assert.assertEquals(values.size(), n - (n + 2) / 3);
+        }
+    }
+
+    @Test
+    public void mergeConsumesSkippedItems() {
+        List<Publisher<Sequenced<String>>> rails = new ArrayList<Publisher<Sequenced<String>>>();
+        rails.add(toPublisher(Observable.just(new Sequenced<String>(0, "a"), new Sequenced<String>(2, "c").<String>skip(),
+                new Sequenced<String>(4, "e"))));
+        rails.add(toPublisher(Observable.just(new Sequenced<String>(1, "b").<String>skip(), new Sequenced<String>(3, "d"))));
+
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        mergeOrdered(rails, 1).subscribe(ts);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a", "d"));
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a", "d", "e"));
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void longRunOfSkippedItemsDoesNotStall() {
+        for (int round = 0; round < 10; round++) {
+            List<Publisher<Sequenced<Integer>>> rails = toParallelPublishers(Observable.range(0, 1000), 2, Schedulers.computation(), 4);
+
+            List<Publisher<Sequenced<Integer>>> transformed = new ArrayList<Publisher<Sequenced<Integer>>>();
+            for (Publisher<Sequenced<Integer>> rail : rails) {
+                transformed.add(toPublisher(toObservable(rail).map(new Func1<Sequenced<Integer>, Sequenced<Integer>>() {
+                    @Override
+                    public Sequenced<Integer> call(Sequenced<Integer> t) {
+                        if (t.value() < 500 && t.value() % 2 == 0) {
+                            return t.skip();
+                        }
+                        return t;
+                    }
+                })));
+            }
+
+            TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+            toObservable(mergeOrdered(transformed, 4)).subscribe(ts);
+
+            ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            ts.assertNoErrors();
+            ts.assertCompleted();
+            List<Integer> values = ts.getOnNextEvents();
+            Assert.assertEquals(values.size(), 750);
+            for (int i = 0; i < 250; i++) {
+                Assert.assertEquals(values.get(i).intValue(), 2 * i + 1);
+            }
+            for (int i = 250; i < 750; i++) {
+                Assert.assertEquals(values.get(i).intValue(), i + 250);
+            }
+        }
+    }
+
+    @Test
+    public void skipKeepsTheSequence() {
+        Sequenced<String> s = new Sequenced<String>(5, "a").skip();
+
+        Assert.assertEquals(s.sequence(), 5L);
+        Assert.assertTrue(s.isSkipped());
+        Assert.assertNull(s.value());
+        Assert.assertFalse(new Sequenced<String>(5, "a").isSkipped());
+        Assert.assertFalse(s.withValue("b").isSkipped());
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.*;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class PartitionTest {
+
+    static final Func1<Integer, Integer> MOD_4 = new Func1<Integer, Integer>() {
+        @Override
+        public Integer call(Integer v) {
+            return v % 4;
+        }
+    };
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        partition((Observable<Integer>)null, MOD_4, 4, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void keySelectorNullCheck() {
+        partition(Observable.just(1), null, 4, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void partitionsCheck() {
+        partition(Observable.just(1), MOD_4, 0, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void bufferSizeCheck() {
+        partition(Observable.just(1), MOD_4, 4, 0);
+    }
+
+    @Test
+    public void itemsOfAKeyGoToOnePartitionInOrder() {
+        List<Publisher<Integer>> ps = partition(Observable.range(0, 1000), MOD_4, 4, 16);
+        Assert.assertEquals(ps.size(), 4);
+
+        List<RsSubscriber<Integer>> subscribers = new ArrayList<RsSubscriber<Integer>>();
+        for (Publisher<Integer> p : ps) {
+            RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+            subscribers.add(ts);
+            p.subscribe(ts);
+        }
+        for (RsSubscriber<Integer> ts : subscribers) {
+            ts.subscription.request(Long.MAX_VALUE);
+        }
+
+        for (RsSubscriber<Integer> ts : subscribers) {
+            Assert.assertTrue(ts.complete);
+            Assert.assertNull(ts.error);
+            Assert.assertEquals(ts.received.size(), 250);
+            int key = ts.received.peek() % 4;
+            int last = -1;
+            for (int v : ts.received) {
+                Assert.assertEquals(v % 4, key);
+                Assert.assertTrue(v > last);
+                last = v;
+            }
+        }
+    }
+
+    @Test
+    public void fullestPartitionPaces() {
+        final List<Long> requests = new ArrayList<Long>();
+        Observable<Integer> source = Observable.range(0, 100).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                if (n != 0L) {
+                    requests.add(n);
+                }
+            }
+        });
+
+        List<Publisher<Integer>> ps = partition(source, new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                return v % 2;
+            }
+        }, 2, 16);
+
+        RsSubscriber<Integer> fast = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> slow = new RsSubscriber<Integer>();
+        ps.get(0).subscribe(fast);
+        ps.get(1).subscribe(slow);
+
+        fast.subscription.request(Long.MAX_VALUE);
+
+        // whatever is requested may go to the slow partition, so the upstream stops once its buffer is full
+        long total = 0L;
+        for (long n : requests) {
+            total += n;
+        }
+        Assert.assertEquals(total, 32L);
+        Assert.assertEquals(fast.received.size(), 16);
+
+        slow.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(fast.received.size(), 50);
+        Assert.assertEquals(slow.received.size(), 50);
+        Assert.assertTrue(fast.complete);
+        Assert.assertTrue(slow.complete);
+    }
+
+    @Test
+    public void cancelledPartitionStopsPacing() {
+        List<Publisher<Integer>> ps = partition(Observable.range(0, 100), MOD_4, 4, 8);
+
+        List<RsSubscriber<Integer>> subscribers = new ArrayList<RsSubscriber<Integer>>();
+        for (Publisher<Integer> p : ps) {
+            RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+            subscribers.add(ts);
+            p.subscribe(ts);
+        }
+        for (int i = 1; i < 4; i++) {
+            subscribers.get(i).subscription.request(Long.MAX_VALUE);
+        }
+        Assert.assertFalse(subscribers.get(1).complete);
+
+        subscribers.get(0).subscription.cancel();
+
+        for (int i = 1; i < 4; i++) {
+            Assert.assertEquals(subscribers.get(i).received.size(), 25);
+            Assert.assertTrue(subscribers.get(i).complete);
+        }
+        Assert.assertTrue(subscribers.get(0).received.isEmpty());
+        Assert.assertFalse(subscribers.get(0).complete);
+    }
+
+    @Test
+    public void cancellingEveryPartitionUnsubscribes() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        List<Publisher<Integer>> ps = partition(subject, MOD_4, 2, 8);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        ps.get(0).subscribe(ts1);
+        ps.get(1).subscribe(ts2);
+        ts1.subscription.request(1);
+
+        Assert.assertTrue(subject.hasObservers());
+
+        ts1.subscription.cancel();
+
+        Assert.assertTrue(subject.hasObservers());
+
+        ts2.subscription.cancel();
+
+        Assert.assertFalse(subject.hasObservers());
+    }
+
+    @Test
+    public void secondSubscriberRejected() {
+        Publisher<Integer> p = partition(Observable.range(0, 10), MOD_4, 1, 16).get(0);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+
+        Assert.assertTrue(ts2.error instanceof IllegalStateException);
+
+        ts1.subscription.request(10);
+
+        Assert.assertEquals(ts1.received.size(), 10);
+        Assert.assertTrue(ts1.complete);
+    }
+
+    @Test
+    public void lateSubscriberReceivesBufferedItems() {
+        List<Publisher<Integer>> ps = partition(Observable.range(0, 8), MOD_4, 2, 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        ps.get(0).subscribe(ts1);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(ts1.complete);
+
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        ps.get(1).subscribe(ts2);
+
+        Assert.assertTrue(ts2.received.isEmpty());
+        Assert.assertFalse(ts2.complete);
+
+        ts2.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(ts1.received.size() + ts2.received.size(), 8);
+        Assert.assertTrue(ts2.complete);
+    }
+
+    @Test
+    public void keySelectorErrorAfterBufferedItems() {
+        List<Publisher<Integer>> ps = partition(Observable.range(0, 10), new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                if (v == 5) {
+                    throw new IllegalStateException("boom");
+                }
+                return v % 2;
+            }
+        }, 2, 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        ps.get(0).subscribe(ts1);
+        ps.get(1).subscribe(ts2);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts1.received), Arrays.asList(0, 2, 4));
+        Assert.assertTrue(ts1.error instanceof IllegalStateException);
+        Assert.assertTrue(ts2.received.isEmpty());
+        Assert.assertNull(ts2.error);
+
+        ts2.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), Arrays.asList(1, 3));
+        Assert.assertTrue(ts2.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void invalidRequest() {
+        List<Publisher<Integer>> ps = partition(Observable.range(0, 100), MOD_4, 2, 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        ps.get(0).subscribe(ts1);
+        ps.get(1).subscribe(ts2);
+
+        ts2.subscription.request(0);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(ts2.error instanceof IllegalArgumentException);
+        Assert.assertEquals(ts1.received.size(), 50);
+        Assert.assertTrue(ts1.complete);
+    }
+
+    @Test
+    public void asyncPartitions() {
+        final int n = 100000;
+        for (int round = 0; round < 20; round++) {
+            PublishSubject<Object> gate = PublishSubject.create();
+            Observable<Integer> source = Observable.range(0, n).subscribeOn(Schedulers.computation()).delaySubscription(gate);
+            List<Publisher<Integer>> ps = partition(source, MOD_4, 4, 64);
+
+            List<TestSubscriber<Integer>> subscribers = new ArrayList<TestSubscriber<Integer>>();
+            for (int i = 0; i < 4; i++) {
+                TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+                subscribers.add(ts);
+                toObservable(ps.get(i)).observeOn(Schedulers.computation(), 1 + i * 32).subscribe(ts);
+            }
+            gate.onCompleted();
+
+            int total = 0;
+            for (TestSubscriber<Integer> ts : subscribers) {
+                ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+                ts.assertNoErrors();
+                ts.assertCompleted();
+                List<Integer> values = ts.getOnNextEvents();
+                for (int i = 1; i < values.size(); i++) {
+                    Assert.assertEquals(values.get(i) - values.get(i - 1), 4);
+                }
+                total += values.size();
+            }
+            Assert.assertEquals(total, n);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.*;
+import rx.subjects.PublishSubject;
+
+public class PublisherAsObservableTest {
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toObservable((Publisher<Object>)null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void prefetchCheck() {
+        toObservable(new IterablePublisher<Integer>(Arrays.asList(1)), 0);
+    }
+
+    @Test
+    public void requestsInBatches() {
+        List<Integer> source = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            source.add(i);
+        }
+        RequestRecordingPublisher<Integer> p = new RequestRecordingPublisher<Integer>(new IterablePublisher<Integer>(source));
+
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+        toObservable(p, 16).subscribe(rxs);
+
+        Assert.assertEquals(p.requests, Collections.singletonList(16L));
+
+        for (int i = 0; i < 100; i++) {
+            rxs.makeRequest(1);
+        }
+
+        Assert.assertEquals(rxs.received, source);
+        Assert.assertTrue(rxs.complete);
+        Assert.assertNull(rxs.error);
+
+        Assert.assertEquals(p.requests.get(0).longValue(), 16L);
+        for (int i = 1; i < p.requests.size(); i++) {
+            Assert.assertEquals(p.requests.get(i).longValue(), 12L);
+        }
+        Assert.assertTrue(p.requests.size() <= 10, p.requests.toString());
+    }
+
+    @Test
+    public void largestArrayPrefetch() {
+        largePrefetch(1 << 16);
+    }
+
+    @Test
+    public void prefetchAboveTheArrayLimit() {
+        largePrefetch((1 << 16) + 1);
+    }
+
+    @Test
+    public void maxPrefetch() {
+        largePrefetch(Integer.MAX_VALUE);
+    }
+
+    void largePrefetch(int prefetch) {
+        List<Integer> source = new ArrayList<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            source.add(i);
+        }
+        RequestRecordingPublisher<Integer> p = new RequestRecordingPublisher<Integer>(new IterablePublisher<Integer>(source));
+
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+        toObservable(p, prefetch).subscribe(rxs);
+
+        Assert.assertEquals(p.requests, Collections.singletonList((long)prefetch));
+
+        rxs.makeRequest(10);
+        Assert.assertEquals(rxs.received, source.subList(0, 10));
+
+        rxs.makeRequest(Long.MAX_VALUE);
+        Assert.assertEquals(rxs.received, source);
+        Assert.assertTrue(rxs.complete);
+        Assert.assertNull(rxs.error);
+    }
+
+    @Test
+    public void errorAfterItems() {
+        Publisher<Integer> p = new Publisher<Integer>() {
+            @Override
+            public void subscribe(final Subscriber<? super Integer> s) {
+                s.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                s.onNext(1);
+                s.onNext(2);
+                s.onError(new RuntimeException("Forced failure"));
+            }
+        };
+
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+        toObservable(p, 4).subscribe(rxs);
+
+        Assert.assertTrue(rxs.received.isEmpty());
+        Assert.assertNull(rxs.error);
+
+        rxs.makeRequest(1);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1));
+        Assert.assertNull(rxs.error);
+
+        rxs.makeRequest(1);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2));
+        Assert.assertNotNull(rxs.error);
+        Assert.assertEquals(rxs.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void cancellation() {
+        PublishSubject<Integer> ps = PublishSubject.create();
+
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservable(new RequestRecordingPublisher<Integer>(toPublisher(ps)), 8).subscribe(ts);
+
+        Assert.assertTrue(ps.hasObservers());
+
+        ps.onNext(1);
+
+        ts.assertValue(1);
+
+        ts.unsubscribe();
+
+        Assert.assertFalse(ps.hasObservers());
+    }
+
+    @Test
+    public void asyncSource() {
+        int n = 100000;
+        Publisher<Integer> p = new RequestRecordingPublisher<Integer>(
+                toPublisher(Observable.range(1, n).subscribeOn(Schedulers.computation())));
+
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+
+        toObservable(p, 32).observeOn(Schedulers.computation()).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertCompleted();
+
+        List<Integer> values = ts.getOnNextEvents();
+        Assert.assertEquals(values.size(), n);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(values.get(i).intValue(), i + 1);
+        }
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void schedulerNullCheck() {
+        toObservable(new IterablePublisher<Integer>(Arrays.asList(1)), null, 16);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void schedulerPrefetchCheck() {
+        toObservable(new IterablePublisher<Integer>(Arrays.asList(1)), Schedulers.immediate(), 0);
+    }
+
+    @Test
+    public void drainsOnScheduler() {
+        List<Integer> source = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            source.add(i);
+        }
+        RequestRecordingPublisher<Integer> p = new RequestRecordingPublisher<Integer>(new IterablePublisher<Integer>(source));
+        TestScheduler scheduler = Schedulers.test();
+
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservable(p, scheduler, 16).subscribe(ts);
+
+        Assert.assertEquals(p.requests, Collections.singletonList(16L));
+        ts.assertNoValues();
+
+        scheduler.triggerActions();
+
+        ts.assertValues(source.toArray(new Integer[0]));
+        ts.assertCompleted();
+        for (int i = 1; i < p.requests.size(); i++) {
+            Assert.assertEquals(p.requests.get(i).longValue(), 12L);
+        }
+    }
+
+    @Test
+    public void errorAfterItemsOnScheduler() {
+        PublishSubject<Integer> ps = PublishSubject.create();
+        TestScheduler scheduler = Schedulers.test();
+
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservable(new RequestRecordingPublisher<Integer>(toPublisher(ps)), scheduler, 8).subscribe(ts);
+
+        ps.onNext(1);
+        ps.onNext(2);
+        ps.onError(new RuntimeException("Forced failure"));
+
+        ts.assertNoValues();
+        ts.assertNoErrors();
+
+        scheduler.triggerActions();
+
+        ts.assertValues(1, 2);
+        ts.assertError(RuntimeException.class);
+    }
+
+    @Test
+    public void unsubscribeOnScheduler() {
+        PublishSubject<Integer> ps = PublishSubject.create();
+        TestScheduler scheduler = Schedulers.test();
+
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+        toObservable(new RequestRecordingPublisher<Integer>(toPublisher(ps)), scheduler, 8).subscribe(ts);
+
+        Assert.assertTrue(ps.hasObservers());
+
+        ps.onNext(1);
+        ts.unsubscribe();
+        scheduler.triggerActions();
+
+        ts.assertNoValues();
+        Assert.assertFalse(ps.hasObservers());
+    }
+
+    @Test
+    public void asyncSourceOnScheduler() {
+        int n = 100000;
+        Publisher<Integer> p = new RequestRecordingPublisher<Integer>(
+                toPublisher(Observable.range(1, n).subscribeOn(Schedulers.computation())));
+
+        final List<String> threads = new ArrayList<String>();
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>(new rx.Observer<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                if (threads.isEmpty()) {
+                    threads.add(Thread.currentThread().getName());
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        toObservable(p, Schedulers.io(), 32).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertCompleted();
+
+        List<Integer> values = ts.getOnNextEvents();
+        Assert.assertEquals(values.size(), n);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(values.get(i).intValue(), i + 1);
+        }
+        Assert.assertTrue(threads.get(0).startsWith("RxIoScheduler"), threads.toString());
+    }
+
+    /**
+     * Hides the identity of the wrapped Publisher and records the request amounts.
+     */
+    static final class RequestRecordingPublisher<T> implements Publisher<T> {
+        final Publisher<T> source;
+
+        final List<Long> requests = Collections.synchronizedList(new ArrayList<Long>());
+
+        RequestRecordingPublisher(Publisher<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(final Subscriber<? super T> s) {
+            source.subscribe(new Subscriber<T>() {
+                @Override
+                public void onSubscribe(final Subscription subscription) {
+                    s.onSubscribe(new Subscription() {
+                        @Override
+                        public void request(long n) {
+                            requests.add(n);
+                            subscription.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            subscription.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T t) {
+                    s.onNext(t);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    s.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    s.onComplete();
+                }
+            });
+        }
+    }
+}
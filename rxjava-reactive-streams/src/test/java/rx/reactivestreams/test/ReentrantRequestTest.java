@@ -0,0 +1,195 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import org.reactivestreams.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.Producer;
+
+/**
+ * Requesting one item at a time from within onNext of deep synchronous streams must not grow the stack,
+ * even if the source emits directly from within its request method.
+ */
+public class ReentrantRequestTest {
+
+    static final int COUNT = 100000;
+
+    /** The first item may be delivered from a different frame, e.g. by setProducer, so the depth is sampled later. */
+    static final int SAMPLE = 100;
+
+    static int stackDepth() {
+        return Thread.currentThread().getStackTrace().length;
+    }
+
+    /** An Observable whose producer emits from within request() and doesn't guard against reentrance. */
+    static Observable<Integer> naiveSource(final int count) {
+        return Observable.create(new Observable.OnSubscribe<Integer>() {
+            @Override
+            public void call(final rx.Subscriber<? super Integer> child) {
+                child.setProducer(new Producer() {
+                    int index;
+
+                    @Override
+                    public void request(long n) {
+                        for (long i = 0; i < n && index < count; i++) {
+                            child.onNext(++index);
+                        }
+                        if (index == count) {
+                            index++;
+                            child.onCompleted();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /** A Publisher that emits from within request() and doesn't guard against reentrance. */
+    static Publisher<Integer> naivePublisher(final int count) {
+        return new Publisher<Integer>() {
+            @Override
+            public void subscribe(final Subscriber<? super Integer> s) {
+                s.onSubscribe(new Subscription() {
+                    int index;
+
+                    @Override
+                    public void request(long n) {
+                        for (long i = 0; i < n && index < count; i++) {
+                            s.onNext(++index);
+                        }
+                        if (index == count) {
+                            index++;
+                            s.onComplete();
+                        }
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+            }
+        };
+    }
+
+    static final class OneByOneRsSubscriber implements Subscriber<Integer> {
+        Subscription s;
+        int received;
+        int sampleDepth;
+        int lastDepth;
+        boolean complete;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.s = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(Integer t) {
+            if (++received == SAMPLE) {
+                sampleDepth = stackDepth();
+            } else if (received == COUNT) {
+                lastDepth = stackDepth();
+            }
+            s.request(1);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+
+    static final class OneByOneRxSubscriber extends rx.Subscriber<Integer> {
+        int received;
+        int sampleDepth;
+        int lastDepth;
+        boolean complete;
+        Throwable error;
+
+        @Override
+        public void onStart() {
+            request(1);
+        }
+
+        @Override
+        public void onNext(Integer t) {
+            if (++received == SAMPLE) {
+                sampleDepth = stackDepth();
+            } else if (received == COUNT) {
+                lastDepth = stackDepth();
+            }
+            request(1);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onCompleted() {
+            complete = true;
+        }
+    }
+
+    void assertFlat(OneByOneRsSubscriber s) {
+        Assert.assertNull(s.error);
+        Assert.assertTrue(s.complete);
+        Assert.assertEquals(s.received, COUNT);
+        Assert.assertEquals(s.lastDepth, s.sampleDepth);
+    }
+
+    @Test
+    public void toPublisherNaiveSource() {
+        OneByOneRsSubscriber s = new OneByOneRsSubscriber();
+
+        toPublisher(naiveSource(COUNT)).subscribe(s);
+
+        assertFlat(s);
+    }
+
+    @Test
+    public void toPublisherRange() {
+        OneByOneRsSubscriber s = new OneByOneRsSubscriber();
+
+        toPublisher(Observable.range(1, COUNT).asObservable()).subscribe(s);
+
+        assertFlat(s);
+    }
+
+    @Test
+    public void toObservableNaivePublisher() {
+        OneByOneRxSubscriber s = new OneByOneRxSubscriber();
+
+        toObservable(naivePublisher(COUNT)).subscribe(s);
+
+        Assert.assertNull(s.error);
+        Assert.assertTrue(s.complete);
+        Assert.assertEquals(s.received, COUNT);
+        Assert.assertEquals(s.lastDepth, s.sampleDepth);
+    }
+
+    @Test
+    public void roundTripNaiveSources() {
+        OneByOneRsSubscriber s = new OneByOneRsSubscriber();
+
+        toPublisher(toObservable(naivePublisher(COUNT)).map(new rx.functions.Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                return v;
+            }
+        })).subscribe(s);
+
+        assertFlat(s);
+    }
+}
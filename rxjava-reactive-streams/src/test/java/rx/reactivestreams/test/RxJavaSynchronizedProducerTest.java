@@ -0,0 +1,172 @@
+package rx.reactivestreams.test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.Subscription;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.functions.Action1;
+import rx.internal.reactivestreams.RxJavaSynchronizedProducer;
+import rx.plugins.RxJavaHooks;
+
+public class RxJavaSynchronizedProducerTest {
+
+    @Test
+    public void reentrantRequestsAreAccumulated() {
+        final RecordingSubscription rs = new RecordingSubscription();
+        final RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rs);
+        rs.onRequest = new Runnable() {
+            int calls;
+            @Override
+            public void run() {
+                if (++calls == 1) {
+                    sp.request(2);
+                    sp.request(3);
+                }
+            }
+        };
+
+        sp.request(1);
+
+        Assert.assertEquals(rs.requestCalls.get(), 2);
+        Assert.assertEquals(rs.requested.get(), 6);
+        Assert.assertFalse(rs.overlapped);
+    }
+
+    @Test
+    public void reentrantUnsubscribeCancelsOnce() {
+        final RecordingSubscription rs = new RecordingSubscription();
+        final RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rs);
+        rs.onRequest = new Runnable() {
+            @Override
+            public void run() {
+                sp.request(5);
+                sp.unsubscribe();
+                sp.unsubscribe();
+            }
+        };
+
+        sp.request(1);
+        sp.request(1);
+
+        Assert.assertTrue(sp.isUnsubscribed());
+        Assert.assertEquals(rs.requestCalls.get(), 1);
+        Assert.assertEquals(rs.cancelCalls.get(), 1);
+    }
+
+    @Test
+    public void requestsAfterUnboundedAreNotRelayed() {
+        final RecordingSubscription rs = new RecordingSubscription();
+        final RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rs);
+
+        sp.request(Long.MAX_VALUE);
+        sp.request(1);
+        sp.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(rs.requestCalls.get(), 1);
+        Assert.assertEquals(rs.requested.get(), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void concurrentRequestsAreSerialized() throws Exception {
+        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        final int perThread = 100000;
+
+        final RecordingSubscription rs = new RecordingSubscription();
+        final RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rs);
+
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(threads);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = exec.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        barrier.await();
+                        for (int j = 0; j < perThread; j++) {
+                            sp.request(1);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            exec.shutdown();
+        }
+
+        Assert.assertFalse(rs.overlapped);
+        Assert.assertEquals(rs.requested.get(), (long)threads * perThread);
+        Assert.assertTrue(rs.requestCalls.get() <= (long)threads * perThread);
+    }
+
+    @Test
+    public void throwingRequestIsReportedAndStopsTheProducer() {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        RxJavaHooks.setOnError(new Action1<Throwable>() {
+            @Override
+            public void call(Throwable t) {
+                error.set(t);
+            }
+        });
+        try {
+            final IllegalStateException ex = new IllegalStateException("request");
+            final RecordingSubscription rs = new RecordingSubscription();
+            rs.onRequest = new Runnable() {
+                @Override
+                public void run() {
+                    throw ex;
+                }
+            };
+            final RxJavaSynchronizedProducer sp = new RxJavaSynchronizedProducer(rs);
+
+            sp.request(1);
+            sp.request(1);
+            sp.unsubscribe();
+
+            Assert.assertSame(error.get(), ex);
+            Assert.assertTrue(sp.isUnsubscribed());
+            Assert.assertEquals(rs.requestCalls.get(), 1);
+            Assert.assertEquals(rs.cancelCalls.get(), 0);
+        } finally {
+            RxJavaHooks.reset();
+        }
+    }
+
+    static final class RecordingSubscription implements Subscription {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+        final AtomicLong requestCalls = new AtomicLong();
+        final AtomicInteger cancelCalls = new AtomicInteger();
+        volatile boolean overlapped;
+        Runnable onRequest;
+
+        @Override
+        public void request(long n) {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            requested.addAndGet(n);
+            requestCalls.incrementAndGet();
+            Runnable r = onRequest;
+            if (r != null) {
+                r.run();
+            }
+            active.decrementAndGet();
+        }
+
+        @Override
+        public void cancel() {
+            if (active.getAndIncrement() != 0) {
+                overlapped = true;
+            }
+            cancelCalls.incrementAndGet();
+            active.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.*;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class SharedPublisherTest {
+
+    static List<Integer> range(int start, int count) {
+        List<Integer> list = new ArrayList<Integer>(count);
+        for (int i = start; i < start + count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toSharedPublisher((Observable<Object>)null, 16);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void policyNullCheck() {
+        toSharedPublisher(Observable.just(1), 16, null);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void bufferSizeCheck() {
+        toSharedPublisher(Observable.just(1), 0);
+    }
+
+    @Test
+    public void subscribesOnceOnFirstRequest() {
+        final AtomicInteger subscriptions = new AtomicInteger();
+        Observable<Integer> source = Observable.range(1, 100).doOnSubscribe(new Action0() {
+            @Override
+            public void call() {
+                subscriptions.incrementAndGet();
+            }
+        });
+
+        Publisher<Integer> p = toSharedPublisher(source, 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+
+        Assert.assertEquals(subscriptions.get(), 0);
+
+        ts1.subscription.request(Long.MAX_VALUE);
+        ts2.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(subscriptions.get(), 1);
+        Assert.assertEquals(new ArrayList<Integer>(ts1.received), range(1, 100));
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), range(1, 100));
+        Assert.assertTrue(ts1.complete);
+        Assert.assertTrue(ts2.complete);
+    }
+
+    @Test
+    public void slowestSubscriberPaces() {
+        final List<Long> requests = new ArrayList<Long>();
+        Observable<Integer> source = Observable.range(1, 100).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requests.add(n);
+            }
+        });
+
+        Publisher<Integer> p = toSharedPublisher(source, 16);
+
+        RsSubscriber<Integer> fast = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> slow = new RsSubscriber<Integer>();
+        p.subscribe(fast);
+        p.subscribe(slow);
+
+        fast.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(fast.received), range(1, 16));
+        Assert.assertTrue(slow.received.isEmpty());
+
+        slow.subscription.request(10);
+
+        Assert.assertEquals(new ArrayList<Integer>(fast.received), range(1, 26));
+        Assert.assertEquals(new ArrayList<Integer>(slow.received), range(1, 10));
+
+        slow.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(fast.received), range(1, 100));
+        Assert.assertEquals(new ArrayList<Integer>(slow.received), range(1, 100));
+        Assert.assertTrue(fast.complete);
+        Assert.assertTrue(slow.complete);
+
+        for (Long n : requests) {
+            Assert.assertTrue(n <= 16L, requests.toString());
+        }
+    }
+
+    @Test
+    public void cancellingSlowestSubscriberResumes() {
+        Publisher<Integer> p = toSharedPublisher(Observable.range(1, 100), 16);
+
+        RsSubscriber<Integer> fast = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> slow = new RsSubscriber<Integer>();
+        p.subscribe(fast);
+        p.subscribe(slow);
+
+        fast.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(fast.received.size(), 16);
+
+        slow.subscription.cancel();
+
+        Assert.assertEquals(new ArrayList<Integer>(fast.received), range(1, 100));
+        Assert.assertTrue(fast.complete);
+        Assert.assertTrue(slow.received.isEmpty());
+        Assert.assertFalse(slow.complete);
+    }
+
+    @Test
+    public void cancellingEverySubscriberDisconnects() {
+        final AtomicInteger subscriptions = new AtomicInteger();
+        final AtomicInteger unsubscriptions = new AtomicInteger();
+        Observable<Integer> source = Observable.range(1, 100).doOnSubscribe(new Action0() {
+            @Override
+            public void call() {
+                subscriptions.incrementAndGet();
+            }
+        }).doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                unsubscriptions.incrementAndGet();
+            }
+        });
+        Publisher<Integer> p = toSharedPublisher(source, 16);
+
+        for (int i = 1; i <= 3; i++) {
+            RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+            RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+            p.subscribe(ts1);
+            p.subscribe(ts2);
+            ts1.subscription.request(5);
+            ts2.subscription.request(3);
+
+            ts1.subscription.cancel();
+            Assert.assertEquals(unsubscriptions.get(), i - 1);
+
+            ts2.subscription.cancel();
+
+            Assert.assertEquals(subscriptions.get(), i);
+            Assert.assertEquals(unsubscriptions.get(), i);
+            // every connection starts over from the first item
+            Assert.assertEquals(new ArrayList<Integer>(ts1.received), range(1, 5));
+            Assert.assertEquals(new ArrayList<Integer>(ts2.received), range(1, 3));
+        }
+
+        RsSubscriber<Integer> ts3 = new RsSubscriber<Integer>();
+        p.subscribe(ts3);
+        ts3.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts3.received), range(1, 100));
+        Assert.assertTrue(ts3.complete);
+    }
+
+    @Test
+    public void lateSubscriberJoins() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        Publisher<Integer> p = toSharedPublisher(subject.onBackpressureBuffer(), 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        subject.onNext(1);
+        subject.onNext(2);
+
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts2);
+        ts2.subscription.request(Long.MAX_VALUE);
+
+        subject.onNext(3);
+        subject.onCompleted();
+
+        Assert.assertEquals(new ArrayList<Integer>(ts1.received), Arrays.asList(1, 2, 3));
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), Arrays.asList(3));
+        Assert.assertTrue(ts1.complete);
+        Assert.assertTrue(ts2.complete);
+
+        RsSubscriber<Integer> ts3 = new RsSubscriber<Integer>();
+        p.subscribe(ts3);
+
+        Assert.assertNotNull(ts3.subscription);
+        Assert.assertTrue(ts3.received.isEmpty());
+        Assert.assertTrue(ts3.complete);
+    }
+
+    @Test
+    public void lateSubscriberRejected() {
+        Publisher<Integer> p = toSharedPublisher(Observable.range(1, 100), 16, LateSubscriberPolicy.REJECT);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+        ts1.subscription.request(5);
+
+        RsSubscriber<Integer> ts3 = new RsSubscriber<Integer>();
+        p.subscribe(ts3);
+
+        Assert.assertNotNull(ts3.subscription);
+        Assert.assertTrue(ts3.received.isEmpty());
+        Assert.assertTrue(ts3.error instanceof IllegalStateException);
+
+        ts2.subscription.request(Long.MAX_VALUE);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts1.received), range(1, 100));
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), range(1, 100));
+    }
+
+    @Test
+    public void errorAfterBufferedItems() {
+        Observable<Integer> source = Observable.range(1, 3).concatWith(Observable.<Integer>error(new RuntimeException("Forced failure")));
+        Publisher<Integer> p = toSharedPublisher(source, 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(ts1.error.getMessage(), "Forced failure");
+        Assert.assertNull(ts2.error);
+
+        ts2.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), Arrays.asList(1, 2));
+        Assert.assertNull(ts2.error);
+
+        ts2.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts2.received), Arrays.asList(1, 2, 3));
+        Assert.assertEquals(ts2.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void invalidRequest() {
+        Publisher<Integer> p = toSharedPublisher(Observable.range(1, 100), 16);
+
+        RsSubscriber<Integer> ts1 = new RsSubscriber<Integer>();
+        RsSubscriber<Integer> ts2 = new RsSubscriber<Integer>();
+        p.subscribe(ts1);
+        p.subscribe(ts2);
+
+        ts2.subscription.request(0);
+        ts1.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(ts2.error instanceof IllegalArgumentException);
+        Assert.assertEquals(new ArrayList<Integer>(ts1.received), range(1, 100));
+        Assert.assertTrue(ts1.complete);
+    }
+
+    @Test
+    public void asyncSubscribers() {
+        final int n = 100000;
+        for (int round = 0; round < 20; round++) {
+            PublishSubject<Object> gate = PublishSubject.create();
+            Observable<Integer> source = Observable.range(1, n).subscribeOn(Schedulers.computation()).delaySubscription(gate);
+            Publisher<Integer> p = toSharedPublisher(source, 64);
+
+            List<TestSubscriber<Integer>> subscribers = new ArrayList<TestSubscriber<Integer>>();
+            for (int i = 0; i < 4; i++) {
+                TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
+                subscribers.add(ts);
+                toObservable(p).observeOn(Schedulers.computation(), 1 + i * 32).subscribe(ts);
+            }
+            gate.onCompleted();
+
+            for (TestSubscriber<Integer> ts : subscribers) {
+                ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+                ts.assertNoErrors();
+                ts.assertCompleted();
+                ts.assertValueCount(n);
+                Assert.assertEquals(ts.getOnNextEvents().get(n - 1).intValue(), n);
+            }
+        }
+    }
+}
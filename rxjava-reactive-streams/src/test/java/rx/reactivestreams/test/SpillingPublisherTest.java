@@ -0,0 +1,327 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import rx.Observable;
+import rx.RxReactiveStreams.SpillSerializer;
+import rx.internal.reactivestreams.MappedBuffers;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+public class SpillingPublisherTest {
+
+    static final SpillSerializer<String> UTF8 = new SpillSerializer<String>() {
+        @Override
+        public byte[] serialize(String value) throws IOException {
+            return value.getBytes("UTF-8");
+        }
+
+        @Override
+        public String deserialize(byte[] bytes) throws IOException {
+            return new String(bytes, "UTF-8");
+        }
+    };
+
+    File directory;
+
+    @BeforeMethod
+    public void before() throws IOException {
+        directory = File.createTempFile("spill", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdir());
+    }
+
+    @AfterMethod
+    public void after() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    int segmentFiles() {
+        return directory.listFiles().length;
+    }
+
+    static List<String> strings(int from, int count) {
+        List<String> list = new ArrayList<String>();
+        for (int i = from; i < from + count; i++) {
+            list.add("item-" + i);
+        }
+        return list;
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void nullCheck() {
+        toSpillingPublisher((Observable<String>)null, 16, UTF8, directory);
+    }
+
+    @Test(expectedExceptions = { NullPointerException.class })
+    public void serializerNullCheck() {
+        toSpillingPublisher(Observable.just("a"), 16, null, directory);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void capacityCheck() {
+        toSpillingPublisher(Observable.just("a"), 0, UTF8, directory);
+    }
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void segmentSizeCheck() {
+        toSpillingPublisher(Observable.just("a"), 16, UTF8, directory, 0);
+    }
+
+    @Test
+    public void burstWithinCapacityStaysInMemory() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 16, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 16)) {
+            ps.onNext(s);
+        }
+
+        Assert.assertEquals(segmentFiles(), 0);
+        ts.subscription.request(16);
+        Assert.assertEquals(new ArrayList<String>(ts.received), strings(0, 16));
+    }
+
+    @Test
+    public void burstSpillsAndReplaysInOrder() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 16, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 1000)) {
+            ps.onNext(s);
+        }
+        ps.onCompleted();
+
+        Assert.assertTrue(segmentFiles() > 1, "segments: " + segmentFiles());
+        Assert.assertTrue(ts.received.isEmpty());
+
+        for (int i = 0; i < 1000; i += 7) {
+            ts.subscription.request(7);
+        }
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), strings(0, 1000));
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+
+    @Test
+    public void readSegmentsAreDeleted() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 4, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 100)) {
+            ps.onNext(s);
+        }
+        int files = segmentFiles();
+
+        ts.subscription.request(50);
+
+        Assert.assertTrue(segmentFiles() < files, segmentFiles() + " of " + files);
+        Assert.assertTrue(segmentFiles() > 0);
+    }
+
+    @Test
+    public void segmentMappingIsReleased() throws IOException {
+        File f = new File(directory, "mapped.seg");
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        MappedByteBuffer buffer;
+        try {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, 64);
+        } finally {
+            raf.close();
+        }
+        buffer.putInt(1);
+
+        Assert.assertTrue(MappedBuffers.unmap(buffer));
+        Assert.assertTrue(f.delete());
+    }
+
+    @Test
+    public void returnsToMemoryOnceSpillIsReplayed() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 4, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 10)) {
+            ps.onNext(s);
+        }
+        ts.subscription.request(10);
+        // the segment being written to is kept for the next burst
+        Assert.assertEquals(segmentFiles(), 1);
+
+        // interleave spilled and in-memory items
+        for (String s : strings(10, 6)) {
+            ps.onNext(s);
+        }
+        ts.subscription.request(2);
+        for (String s : strings(16, 4)) {
+            ps.onNext(s);
+        }
+        ts.subscription.request(Long.MAX_VALUE);
+        for (String s : strings(20, 3)) {
+            ps.onNext(s);
+        }
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), strings(0, 23));
+    }
+
+    @Test
+    public void itemLargerThanSegment() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('x');
+        }
+        String big = sb.toString();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(Observable.just("a", big, "b", big), 1, UTF8, directory, 64).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a", big, "b", big));
+        Assert.assertTrue(ts.complete);
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+
+    @Test
+    public void cancelDeletesSegments() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 4, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 100)) {
+            ps.onNext(s);
+        }
+        Assert.assertTrue(segmentFiles() > 0);
+
+        ts.subscription.cancel();
+
+        Assert.assertFalse(ps.hasObservers());
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+
+    @Test
+    public void errorAfterSpilledItems() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 2, UTF8, directory, 64).subscribe(ts);
+
+        for (String s : strings(0, 10)) {
+            ps.onNext(s);
+        }
+        ps.onError(new IllegalStateException("Forced failure"));
+        ts.subscription.request(9);
+
+        Assert.assertNull(ts.error);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), strings(0, 10));
+        Assert.assertTrue(ts.error instanceof IllegalStateException);
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+
+    @Test
+    public void serializerFailureTerminates() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 1, new SpillSerializer<String>() {
+            @Override
+            public byte[] serialize(String value) throws IOException {
+                throw new IOException("Forced failure");
+            }
+
+            @Override
+            public String deserialize(byte[] bytes) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        }, directory, 64).subscribe(ts);
+
+        ps.onNext("a");
+        ps.onNext("b");
+
+        Assert.assertFalse(ps.hasObservers());
+        ts.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a"));
+        Assert.assertTrue(ts.error instanceof IOException);
+    }
+
+    @Test
+    public void deserializerFailureTerminates() {
+        PublishSubject<String> ps = PublishSubject.create();
+        RsSubscriber<String> ts = new RsSubscriber<String>();
+        toSpillingPublisher(ps, 1, new SpillSerializer<String>() {
+            @Override
+            public byte[] serialize(String value) throws IOException {
+                return UTF8.serialize(value);
+            }
+
+            @Override
+            public String deserialize(byte[] bytes) throws IOException {
+                throw new IOException("Forced failure");
+            }
+        }, directory, 64).subscribe(ts);
+
+        ps.onNext("a");
+        ps.onNext("b");
+        ts.subscription.request(2);
+
+        Assert.assertFalse(ps.hasObservers());
+        Assert.assertEquals(new ArrayList<String>(ts.received), Arrays.asList("a"));
+        Assert.assertTrue(ts.error instanceof IOException);
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+
+    @Test(timeOut = 20000)
+    public void asyncBurstWithSlowConsumer() {
+        Publisher<String> p = toSpillingPublisher(Observable.range(0, 100000).map(new rx.functions.Func1<Integer, String>() {
+            @Override
+            public String call(Integer v) {
+                return "item-" + v;
+            }
+        }).subscribeOn(Schedulers.computation()), 128, UTF8, directory, 4096);
+        TestSubscriber<String> ts = new TestSubscriber<String>();
+
+        toObservable(p, 16).observeOn(Schedulers.computation(), 16).subscribe(ts);
+        ts.awaitTerminalEvent();
+
+        ts.assertNoErrors();
+        Assert.assertEquals(ts.getOnNextEvents(), strings(0, 100000));
+        Assert.assertEquals(segmentFiles(), 0);
+    }
+}
@@ -0,0 +1,84 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Subscription;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.observers.TestSubscriber;
+
+public class SubscriberAdapterTest {
+
+    static final class CountingSubscription implements Subscription {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger cancels = new AtomicInteger();
+
+        @Override
+        public void request(long n) {
+            requests.getAndIncrement();
+        }
+
+        @Override
+        public void cancel() {
+            cancels.getAndIncrement();
+        }
+    }
+
+    @Test
+    public void secondSubscriptionIsCancelled() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>(1L);
+        org.reactivestreams.Subscriber<Integer> s = toSubscriber(ts);
+        CountingSubscription first = new CountingSubscription();
+        CountingSubscription second = new CountingSubscription();
+
+        s.onSubscribe(first);
+        s.onSubscribe(second);
+
+        Assert.assertEquals(first.requests.get(), 1);
+        Assert.assertEquals(first.cancels.get(), 0);
+        Assert.assertEquals(second.requests.get(), 0);
+        Assert.assertEquals(second.cancels.get(), 1);
+    }
+
+    @Test
+    public void concurrentOnSubscribeInstallsOneSubscription() throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                TestSubscriber<Integer> ts = new TestSubscriber<Integer>(1L);
+                final org.reactivestreams.Subscriber<Integer> s = toSubscriber(ts);
+                final CountingSubscription first = new CountingSubscription();
+                final CountingSubscription second = new CountingSubscription();
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+
+                Future<?> f1 = exec.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        s.onSubscribe(first);
+                        return null;
+                    }
+                });
+                Future<?> f2 = exec.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        s.onSubscribe(second);
+                        return null;
+                    }
+                });
+                f1.get(5, TimeUnit.SECONDS);
+                f2.get(5, TimeUnit.SECONDS);
+
+                Assert.assertEquals(first.cancels.get() + second.cancels.get(), 1);
+                Assert.assertEquals(first.requests.get() + second.requests.get(), 1);
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.toPublisher;
+
+import java.util.*;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.internal.reactivestreams.*;
+
+public class ToPublisherFastPathTest {
+
+    @Test
+    public void just() {
+        Assert.assertTrue(toPublisher(Observable.just(1)) instanceof ScalarPublisher);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.just(1)).subscribe(ts);
+
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(1);
+        ts.subscription.request(1);
+
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertEquals(ts.received.peek().intValue(), 1);
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void justCancelled() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.just(1)).subscribe(ts);
+
+        ts.subscription.cancel();
+        ts.subscription.request(1);
+
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertFalse(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void justCancelledInOnNext() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.cancel();
+            }
+        };
+        toPublisher(Observable.just(1)).subscribe(ts);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertFalse(ts.complete);
+    }
+
+    @Test
+    public void justInvalidRequest() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.just(1)).subscribe(ts);
+
+        ts.subscription.request(-1);
+
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertTrue(ts.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void justNullUsesAdapter() {
+        Assert.assertTrue(toPublisher(Observable.just((Integer)null)) instanceof PublisherAdapter);
+    }
+
+    @Test
+    public void empty() {
+        Assert.assertSame(toPublisher(Observable.<Integer>empty()), EmptyPublisher.INSTANCE);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.<Integer>empty()).subscribe(ts);
+
+        Assert.assertNotNull(ts.subscription);
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void error() {
+        Assert.assertTrue(toPublisher(Observable.<Integer>error(new RuntimeException())) instanceof ErrorPublisher);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.<Integer>error(new RuntimeException("Forced failure"))).subscribe(ts);
+
+        Assert.assertNotNull(ts.subscription);
+        Assert.assertTrue(ts.received.isEmpty());
+        Assert.assertFalse(ts.complete);
+        Assert.assertEquals(ts.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void array() {
+        Assert.assertTrue(toPublisher(Observable.from(new Integer[] { 1, 2, 3 })) instanceof ArrayAsPublisher);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.from(new Integer[] { 1, 2, 3 })).subscribe(ts);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2));
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3));
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void arrayNullElement() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.from(new Integer[] { 1, null, 3 })).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1));
+        Assert.assertTrue(ts.error instanceof NullPointerException);
+    }
+
+    @Test
+    public void arrayCancelledInOnNext() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.cancel();
+            }
+        };
+        toPublisher(Observable.from(new Integer[] { 1, 2, 3 })).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1));
+        Assert.assertFalse(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void arrayInvalidRequestInOnNext() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.request(0);
+            }
+        };
+        toPublisher(Observable.from(new Integer[] { 1, 2, 3 })).subscribe(ts);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1));
+        Assert.assertFalse(ts.complete);
+        Assert.assertTrue(ts.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void iterable() {
+        Assert.assertTrue(toPublisher(Observable.from(Arrays.asList(1, 2, 3))) instanceof IterableAsPublisher);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.from(Arrays.asList(1, 2, 3))).subscribe(ts);
+
+        ts.subscription.request(3);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3));
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void iterableEmpty() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.from(Collections.<Integer>emptyList())).subscribe(ts);
+
+        Assert.assertNotNull(ts.subscription);
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void iterableIteratorFails() {
+        Iterable<Integer> iterable = new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (count == 2) {
+                            throw new IllegalStateException("Forced failure");
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        return ++count;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.from(iterable)).subscribe(ts);
+
+        ts.subscription.request(5);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2));
+        Assert.assertEquals(ts.error.getMessage(), "Forced failure");
+    }
+
+    @Test
+    public void iterableRequestOneInOnNextDoesNotRecurse() {
+        final int n = 100000;
+        final List<Integer> list = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+
+        final int[] depth = { 0, 0 };
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                depth[0]++;
+                depth[1] = Math.max(depth[1], depth[0]);
+                subscription.request(1);
+                depth[0]--;
+            }
+        };
+        toPublisher(Observable.from(list)).subscribe(ts);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(ts.received.size(), n);
+        Assert.assertTrue(ts.complete);
+        Assert.assertEquals(depth[1], 1);
+    }
+
+    @Test
+    public void range() {
+        Assert.assertTrue(toPublisher(Observable.range(1, 3)) instanceof RangeAsPublisher);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.range(1, 3)).subscribe(ts);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2));
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(1);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3));
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void rangeUpToMaxValue() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.range(Integer.MAX_VALUE - 2, 3)).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received),
+                Arrays.asList(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+        Assert.assertTrue(ts.complete);
+    }
+
+    @Test
+    public void rangeInvalidRequestInOnNext() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.request(0);
+            }
+        };
+        toPublisher(Observable.range(1, 3)).subscribe(ts);
+
+        ts.subscription.request(2);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1));
+        Assert.assertFalse(ts.complete);
+        Assert.assertTrue(ts.error instanceof IllegalArgumentException);
+    }
+}
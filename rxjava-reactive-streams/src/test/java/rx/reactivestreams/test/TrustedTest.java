@@ -0,0 +1,204 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Publisher;
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import rx.Observable;
+import rx.functions.*;
+import rx.internal.reactivestreams.*;
+import rx.plugins.RxJavaHooks;
+
+public class TrustedTest {
+
+    @AfterMethod
+    public void after() {
+        RxJavaHooks.reset();
+        setBridgeListener(null);
+    }
+
+    @Test
+    public void toPublisherHonorsRequests() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        trusted().toPublisher(Observable.range(1, 10)).subscribe(ts);
+
+        Assert.assertTrue(ts.received.isEmpty());
+
+        ts.subscription.request(3);
+
+        Assert.assertEquals(new ArrayList<Integer>(ts.received), Arrays.asList(1, 2, 3));
+        Assert.assertFalse(ts.complete);
+
+        ts.subscription.request(7);
+
+        Assert.assertEquals(ts.received.size(), 10);
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+    }
+
+    @Test
+    public void toPublisherCancel() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        trusted().toPublisher(Observable.range(1, 10)).subscribe(ts);
+
+        ts.subscription.request(3);
+        ts.subscription.cancel();
+        ts.subscription.request(3);
+
+        Assert.assertEquals(ts.received.size(), 3);
+        Assert.assertFalse(ts.complete);
+    }
+
+    @Test
+    public void toPublisherError() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        trusted().toPublisher(Observable.range(1, 10).map(new Func1<Integer, Integer>() {
+            @Override
+            public Integer call(Integer v) {
+                if (v == 2) {
+                    throw new IllegalStateException("boom");
+                }
+                return v;
+            }
+        })).subscribe(ts);
+
+        ts.subscription.request(5);
+
+        Assert.assertEquals(ts.received.size(), 1);
+        Assert.assertTrue(ts.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void toPublisherSkipsSubscribeHook() {
+        final AtomicInteger starts = new AtomicInteger();
+        // RxJavaHooks declares its hooks with raw types
+        @SuppressWarnings("rawtypes")
+        Func2<Observable, Observable.OnSubscribe, Observable.OnSubscribe> hook =
+                new Func2<Observable, Observable.OnSubscribe, Observable.OnSubscribe>() {
+            @Override
+            public Observable.OnSubscribe call(Observable o, Observable.OnSubscribe f) {
+                starts.incrementAndGet();
+                return f;
+            }
+        };
+        RxJavaHooks.setOnObservableStart(hook);
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        trusted().toPublisher(Observable.range(1, 10).asObservable()).subscribe(ts);
+        ts.subscription.request(10);
+
+        Assert.assertEquals(starts.get(), 0);
+        Assert.assertTrue(ts.complete);
+
+        toPublisher(Observable.range(1, 10).asObservable()).subscribe(new RsSubscriber<Integer>());
+
+        Assert.assertEquals(starts.get(), 1);
+    }
+
+    @Test
+    public void toObservableSkipsCreateHook() {
+        final AtomicInteger creates = new AtomicInteger();
+        // RxJavaHooks declares its hooks with raw types
+        @SuppressWarnings("rawtypes")
+        Func1<Observable.OnSubscribe, Observable.OnSubscribe> hook = new Func1<Observable.OnSubscribe, Observable.OnSubscribe>() {
+            @Override
+            public Observable.OnSubscribe call(Observable.OnSubscribe f) {
+                creates.incrementAndGet();
+                return f;
+            }
+        };
+        RxJavaHooks.setOnObservableCreate(hook);
+
+        Publisher<Integer> p = new IterablePublisher<Integer>(Arrays.asList(1, 2, 3));
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+        trusted().toObservable(p).subscribe(rxs);
+
+        Assert.assertEquals(creates.get(), 0);
+
+        rxs.makeRequest(2);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2));
+
+        rxs.makeRequest(1);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2, 3));
+        Assert.assertTrue(rxs.complete);
+    }
+
+    @Test
+    public void toSubscriberRelaysRequests() {
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(0);
+        rxs.makeRequest(2);
+        new IterablePublisher<Integer>(Arrays.asList(1, 2, 3)).subscribe(trusted().toSubscriber(rxs));
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2));
+        Assert.assertFalse(rxs.complete);
+
+        rxs.unsubscribe();
+        rxs.makeRequest(1);
+
+        Assert.assertEquals(rxs.received, Arrays.asList(1, 2));
+    }
+
+    @Test
+    public void roundTripsUnwrap() {
+        Observable<Integer> o = Observable.range(1, 10).asObservable();
+        Publisher<Integer> p = new IterablePublisher<Integer>(Arrays.asList(1, 2, 3));
+
+        Assert.assertSame(trusted().toObservable(trusted().toPublisher(o)), o);
+        Assert.assertSame(trusted().toObservable(toPublisher(o)), o);
+        Assert.assertSame(toObservable(trusted().toPublisher(o)), o);
+        Assert.assertSame(trusted().toPublisher(trusted().toObservable(p)), p);
+        Assert.assertSame(toPublisher(trusted().toObservable(p)), p);
+    }
+
+    @Test
+    public void toPublisherKeepsDedicatedPublishers() {
+        Assert.assertTrue(trusted().toPublisher(Observable.just(1)) instanceof ScalarPublisher);
+        Assert.assertTrue(trusted().toPublisher(Observable.from(new Integer[] { 1, 2 })) instanceof ArrayAsPublisher);
+        Assert.assertTrue(trusted().toPublisher(Observable.range(1, 2)) instanceof RangeAsPublisher);
+        Assert.assertTrue(trusted().toPublisher(Observable.range(1, 2).asObservable()) instanceof TrustedPublisherAdapter);
+    }
+
+    @Test
+    public void notReportedToBridgeListener() {
+        final AtomicInteger events = new AtomicInteger();
+        setBridgeListener(new BridgeListener() {
+            @Override
+            public void onNext(Bridge bridge) {
+                events.incrementAndGet();
+            }
+        });
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        trusted().toPublisher(Observable.range(1, 10)).subscribe(ts);
+        ts.subscription.request(10);
+
+        RxSubscriber<Integer> rxs = new RxSubscriber<Integer>(Long.MAX_VALUE);
+        trusted().toObservable(new IterablePublisher<Integer>(Arrays.asList(1, 2, 3))).subscribe(rxs);
+
+        Assert.assertEquals(ts.received.size(), 10);
+        Assert.assertEquals(rxs.received.size(), 3);
+        Assert.assertEquals(events.get(), 0);
+    }
+}
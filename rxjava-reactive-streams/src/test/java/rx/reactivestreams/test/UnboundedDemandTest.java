@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rx.reactivestreams.test;
+
+import static rx.RxReactiveStreams.toPublisher;
+
+import java.util.*;
+
+import org.reactivestreams.Subscription;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rx.Observable;
+import rx.functions.Action1;
+
+/**
+ * Once Long.MAX_VALUE has been requested, toPublisher stops relaying further requests upstream.
+ */
+public class UnboundedDemandTest {
+
+    @Test
+    public void requestsAfterUnboundedAreNotRelayed() {
+        final List<Long> upstreamRequests = new ArrayList<Long>();
+        Observable<Integer> source = Observable.range(1, 1000).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                // the adapter starts the upstream with request(0) until the Subscriber requests
+                if (n != 0L) {
+                    upstreamRequests.add(n);
+                }
+            }
+        });
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                super.onSubscribe(s);
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                subscription.request(1);
+            }
+        };
+        toPublisher(source).subscribe(ts);
+
+        Assert.assertEquals(ts.received.size(), 1000);
+        Assert.assertTrue(ts.complete);
+        Assert.assertNull(ts.error);
+        Assert.assertEquals(upstreamRequests, Collections.singletonList(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void requestsAddingUpToUnboundedAreRelayedOnce() {
+        final List<Long> upstreamRequests = new ArrayList<Long>();
+        Observable<Integer> source = Observable.<Integer>never().doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                // the adapter starts the upstream with request(0) until the Subscriber requests
+                if (n != 0L) {
+                    upstreamRequests.add(n);
+                }
+            }
+        });
+
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(source).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE - 1);
+        ts.subscription.request(1);
+        ts.subscription.request(5);
+
+        Assert.assertNull(ts.error);
+        Assert.assertEquals(upstreamRequests, Arrays.asList(Long.MAX_VALUE - 1, 1L));
+    }
+
+    @Test
+    public void invalidRequestAfterUnboundedStillSignalsError() {
+        RsSubscriber<Integer> ts = new RsSubscriber<Integer>();
+        toPublisher(Observable.<Integer>never()).subscribe(ts);
+
+        ts.subscription.request(Long.MAX_VALUE);
+        ts.subscription.request(0);
+
+        Assert.assertTrue(ts.error instanceof IllegalArgumentException);
+    }
+}
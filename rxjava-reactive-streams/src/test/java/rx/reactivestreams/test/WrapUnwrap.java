@@ -15,11 +15,15 @@
  */
 package rx.reactivestreams.test;
 
+import java.util.Arrays;
+
 import org.reactivestreams.Publisher;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import rx.*;
 import rx.functions.Func1;
+import rx.schedulers.*;
 
 public class WrapUnwrap {
 
@@ -43,4 +47,67 @@ public class WrapUnwrap {
         }
     
     }
+
+    @Test
+    public void observableRoundTripReturnsOriginal() {
+        Observable<Integer> o = Observable.range(1, 10).asObservable();
+
+        Assert.assertSame(RxReactiveStreams.toObservable(RxReactiveStreams.toPublisher(o)), o);
+        Assert.assertSame(RxReactiveStreams.toObservable(RxReactiveStreams.toPublisher(o), 16), o);
+    }
+
+    @Test
+    public void publisherRoundTripReturnsOriginal() {
+        Publisher<Integer> p = new IterablePublisher<Integer>(Arrays.asList(1, 2, 3));
+
+        Assert.assertSame(RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(p)), p);
+    }
+
+    @Test
+    public void publisherRoundTripKeepsBatching() {
+        Publisher<Integer> p = new IterablePublisher<Integer>(Arrays.asList(1, 2, 3));
+
+        Assert.assertNotSame(RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(p, 16)), p);
+    }
+
+    @Test
+    public void publisherRoundTripKeepsScheduler() {
+        Publisher<Integer> p = new IterablePublisher<Integer>(Arrays.asList(1, 2, 3));
+        TestScheduler scheduler = Schedulers.test();
+
+        Publisher<Integer> roundTrip = RxReactiveStreams.toPublisher(RxReactiveStreams.toObservable(p, scheduler, 16));
+        Assert.assertNotSame(roundTrip, p);
+
+        RsSubscriber<Integer> subscriber = new RsSubscriber<Integer>();
+        roundTrip.subscribe(subscriber);
+        subscriber.subscription.request(3);
+
+        Assert.assertTrue(subscriber.received.isEmpty());
+
+        scheduler.triggerActions();
+
+        Assert.assertEquals(subscriber.received, Arrays.asList(1, 2, 3));
+        Assert.assertTrue(subscriber.complete);
+    }
+
+    @Test
+    public void singleRoundTripReturnsOriginal() {
+        Single<Integer> single = Single.just(1);
+
+        Assert.assertSame(RxReactiveStreams.toSingle(RxReactiveStreams.toPublisher(single)), single);
+    }
+
+    @Test
+    public void completableRoundTripReturnsOriginal() {
+        Completable completable = Completable.complete();
+
+        Assert.assertSame(RxReactiveStreams.toCompletable(RxReactiveStreams.toPublisher(completable)), completable);
+    }
+
+    @Test
+    public void publisherThroughSingleIsNotUnwrapped() {
+        Publisher<Integer> p = RxReactiveStreams.toPublisher(Observable.range(1, 2));
+
+        Assert.assertNotSame(RxReactiveStreams.toPublisher(RxReactiveStreams.toSingle(p)), p);
+    }
 }